@@ -0,0 +1,28 @@
+package kth.iv1201.gohire.DTO;
+
+import java.util.List;
+
+/**
+ * DTO containing the applications changed after a change sequence value, and the value to ask for changes after next.
+ */
+public class ApplicantChangesDTO {
+    private final List<ApplicantDTO> applicants;
+    private final long highWaterMark;
+
+    /**
+     * Creates a <code>ApplicantChangesDTO</code>.
+     * @param applicants the created or changed applications, ordered by change.
+     * @param highWaterMark the change sequence value that every returned change is included up to.
+     */
+    public ApplicantChangesDTO(List<ApplicantDTO> applicants, long highWaterMark) {
+        this.applicants = applicants;
+        this.highWaterMark = highWaterMark;
+    }
+
+    public List<ApplicantDTO> getApplicants() {
+        return applicants;
+    }
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+}
@@ -0,0 +1,34 @@
+package kth.iv1201.gohire.DTO;
+
+import java.util.List;
+
+/**
+ * DTO containing one page of applications and the cursor of the next page.
+ */
+public class ApplicantPageDTO {
+    private final List<ApplicantDTO> applicants;
+    private final int pageSize;
+    private final String nextCursor;
+
+    /**
+     * Creates a <code>ApplicantPageDTO</code>.
+     * @param applicants the applications on the page.
+     * @param pageSize the maximum number of applications on a page.
+     * @param nextCursor the cursor of the next page, or <code>null</code> if this is the last page.
+     */
+    public ApplicantPageDTO(List<ApplicantDTO> applicants, int pageSize, String nextCursor) {
+        this.applicants = applicants;
+        this.pageSize = pageSize;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ApplicantDTO> getApplicants() {
+        return applicants;
+    }
+    public int getPageSize() {
+        return pageSize;
+    }
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,65 @@
+package kth.iv1201.gohire.DTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO containing a summary of all logged errors sharing the same fingerprint.
+ */
+public class ErrorFingerprintDTO {
+    private final String fingerprint;
+    private final String exceptionClass;
+    private final String topFrame;
+    private final String lastMessage;
+    private final long count;
+    private final LocalDateTime firstSeen;
+    private final LocalDateTime lastSeen;
+
+    /**
+     * Creates an <code>ErrorFingerprintDTO</code>.
+     * @param fingerprint the fingerprint identifying the error.
+     * @param exceptionClass the class name of the exception.
+     * @param topFrame the topmost stack frame of the exception.
+     * @param lastMessage the message of the latest occurrence.
+     * @param count the number of occurrences since the application started.
+     * @param firstSeen the time of the first occurrence.
+     * @param lastSeen the time of the latest occurrence.
+     */
+    public ErrorFingerprintDTO(String fingerprint, String exceptionClass, String topFrame, String lastMessage,
+                               long count, LocalDateTime firstSeen, LocalDateTime lastSeen) {
+        this.fingerprint = fingerprint;
+        this.exceptionClass = exceptionClass;
+        this.topFrame = topFrame;
+        this.lastMessage = lastMessage;
+        this.count = count;
+        this.firstSeen = firstSeen;
+        this.lastSeen = lastSeen;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public String getExceptionClass() {
+        return exceptionClass;
+    }
+
+    public String getTopFrame() {
+        return topFrame;
+    }
+
+    public String getLastMessage() {
+        return lastMessage;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public LocalDateTime getFirstSeen() {
+        return firstSeen;
+    }
+
+    public LocalDateTime getLastSeen() {
+        return lastSeen;
+    }
+}
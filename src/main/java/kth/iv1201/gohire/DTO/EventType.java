@@ -0,0 +1,12 @@
+package kth.iv1201.gohire.DTO;
+
+/**
+ * ENUM representing the types of events written to the structured event log.
+ */
+public enum EventType {
+    LOGIN,
+    LOGOUT,
+    APPLICANT_REGISTERED,
+    APPLICATION_STATUS_CHANGED,
+
+}
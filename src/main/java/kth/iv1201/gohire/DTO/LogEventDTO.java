@@ -0,0 +1,61 @@
+package kth.iv1201.gohire.DTO;
+
+import java.time.Instant;
+
+/**
+ * DTO containing information about an event written to the structured event log.
+ */
+public class LogEventDTO {
+    private final EventType type;
+    private final String actor;
+    private final Integer subjectId;
+    private final String detail;
+    private final Instant timestamp;
+
+    /**
+     * Creates a <code>LogEventDTO</code> for an event happening now.
+     * @param type the type of event.
+     * @param actor the username of the user performing the action.
+     * @param subjectId the id of the person the event concerns, or <code>null</code> if unknown.
+     * @param detail optional short detail about the event, such as a new application status.
+     */
+    public LogEventDTO(EventType type, String actor, Integer subjectId, String detail) {
+        this(type, actor, subjectId, detail, Instant.now());
+    }
+
+    /**
+     * Creates a <code>LogEventDTO</code>.
+     * @param type the type of event.
+     * @param actor the username of the user performing the action.
+     * @param subjectId the id of the person the event concerns, or <code>null</code> if unknown.
+     * @param detail optional short detail about the event, such as a new application status.
+     * @param timestamp the time of the event.
+     */
+    public LogEventDTO(EventType type, String actor, Integer subjectId, String detail, Instant timestamp) {
+        this.type = type;
+        this.actor = actor;
+        this.subjectId = subjectId;
+        this.detail = detail;
+        this.timestamp = timestamp;
+    }
+
+    public EventType getType() {
+        return type;
+    }
+
+    public String getActor() {
+        return actor;
+    }
+
+    public Integer getSubjectId() {
+        return subjectId;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+}
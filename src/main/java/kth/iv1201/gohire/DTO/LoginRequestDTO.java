@@ -13,15 +13,18 @@ public class LoginRequestDTO {
     @NotBlank(message = "Invalid password: Password can not be empty")
     @Size(max = 255, message = "Invalid password: Password must be 1-255 characters long.")
     private final String password;
+    private final boolean rememberMe;
 
     /**
      * Creates a <code>LoginRequestDTO</code>
      * @param username the username
      * @param password the password
+     * @param rememberMe whether the login should be remembered after the session ends
      */
-    public LoginRequestDTO(String username, String password) {
+    public LoginRequestDTO(String username, String password, boolean rememberMe) {
         this.username = username;
         this.password = password;
+        this.rememberMe = rememberMe;
     }
 
     public String getUsername() {
@@ -31,5 +34,9 @@ public class LoginRequestDTO {
     public String getPassword() {
         return password;
     }
+
+    public boolean isRememberMe() {
+        return rememberMe;
+    }
 }
 
@@ -0,0 +1,34 @@
+package kth.iv1201.gohire.DTO;
+
+/**
+ * DTO containing the series and raw token of a remembered login, as stored in the remember-me cookie.
+ */
+public class PersistentLoginTokenDTO {
+    private final String series;
+    private final String token;
+    private final String username;
+
+    /**
+     * Creates an instance of a <code>PersistentLoginTokenDTO</code>.
+     * @param series The series identifying the remembered login.
+     * @param token The raw token, or <code>null</code> if the token in the cookie is still valid.
+     * @param username The username of the remembered person.
+     */
+    public PersistentLoginTokenDTO(String series, String token, String username) {
+        this.series = series;
+        this.token = token;
+        this.username = username;
+    }
+
+    public String getSeries() {
+        return series;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+}
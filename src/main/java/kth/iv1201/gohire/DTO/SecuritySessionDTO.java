@@ -0,0 +1,50 @@
+package kth.iv1201.gohire.DTO;
+
+import java.time.Instant;
+
+/**
+ * DTO containing a shared login session as stored in the <code>security_session</code> table.
+ */
+public class SecuritySessionDTO {
+    private final String sessionId;
+    private final long version;
+    private final String username;
+    private final byte[] context;
+    private final Instant lastAccess;
+
+    /**
+     * Creates an instance of a <code>SecuritySessionDTO</code>.
+     * @param sessionId The id of the session, as stored in the session cookie.
+     * @param version The version of the stored context, changed on every write.
+     * @param username The username of the logged-in user.
+     * @param context The serialized security context.
+     * @param lastAccess The last time the session was used.
+     */
+    public SecuritySessionDTO(String sessionId, long version, String username, byte[] context, Instant lastAccess) {
+        this.sessionId = sessionId;
+        this.version = version;
+        this.username = username;
+        this.context = context;
+        this.lastAccess = lastAccess;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public byte[] getContext() {
+        return context;
+    }
+
+    public Instant getLastAccess() {
+        return lastAccess;
+    }
+}
@@ -2,11 +2,13 @@ package kth.iv1201.gohire;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Contains main method bootstrapping the server.
  */
 @SpringBootApplication
+@EnableScheduling
 public class GoHireApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,125 @@
+package kth.iv1201.gohire.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import kth.iv1201.gohire.DTO.LogEventDTO;
+import kth.iv1201.gohire.controller.util.AuditEventBuffer;
+import kth.iv1201.gohire.controller.util.Logger;
+import kth.iv1201.gohire.service.AuditService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Configuration for the audit trail. Structured events logged by the <code>Logger</code> are buffered in memory and
+ * periodically written to the database in batches by the <code>AuditService</code>, so that logging an event never
+ * waits for the database.
+ */
+@Configuration
+public class AuditConfiguration {
+
+    private final AuditService auditService;
+    private final AuditEventBuffer auditEventBuffer;
+    private final Consumer<LogEventDTO> eventListener;
+    private final int batchSize;
+
+    /**
+     * Creates a new <code>AuditConfiguration</code>.
+     * @param auditService The <code>AuditService</code> persisting the events.
+     * @param bufferCapacity The maximum number of events kept in memory before they are spilled to disk.
+     * @param batchSize The maximum number of events written in one transaction.
+     * @param spillFile The file events are written to when the buffer is full or the database is unavailable.
+     */
+    public AuditConfiguration(AuditService auditService,
+                              @Value("${gohire.audit.buffer-capacity:10000}") int bufferCapacity,
+                              @Value("${gohire.audit.batch-size:500}") int batchSize,
+                              @Value("${gohire.audit.spill-file:audit-spill.bin}") String spillFile) {
+        this.auditService = auditService;
+        this.auditEventBuffer = new AuditEventBuffer(bufferCapacity, Path.of(spillFile));
+        this.eventListener = auditEventBuffer::offer;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Starts buffering the events logged by the <code>Logger</code>.
+     */
+    @PostConstruct
+    public void startAuditing() {
+        Logger.addEventListener(eventListener);
+    }
+
+    /**
+     * Periodically writes the spilled and buffered events to the database, spilled events first, one transaction per
+     * batch. Spilled events are read a batch at a time and stay in the spill file until their batch is committed. If
+     * the database is unavailable, buffered events are spilled to disk and everything is retried on the next run.
+     */
+    @Scheduled(fixedDelayString = "${gohire.audit.flush-interval-millis:1000}")
+    public void flushAuditEvents() {
+        auditEventBuffer.spillOverflow();
+        List<LogEventDTO> spilled;
+        while (!(spilled = auditEventBuffer.readSpilled(batchSize)).isEmpty()) {
+            if (!save(spilled))
+                return;
+            auditEventBuffer.markSpilledSaved();
+        }
+        List<LogEventDTO> batch;
+        while (!(batch = auditEventBuffer.drain(batchSize)).isEmpty()) {
+            if (!saveOrSpill(batch))
+                return;
+        }
+    }
+
+    /**
+     * Stops buffering events and writes the remaining ones before the application shuts down.
+     */
+    @PreDestroy
+    public void stopAuditing() {
+        Logger.removeEventListener(eventListener);
+        flushAuditEvents();
+    }
+
+    /**
+     * Creates metrics for the number of buffered and spilled audit events.
+     * @return the <code>MeterBinder</code> registering the metrics.
+     */
+    @Bean
+    public MeterBinder auditMetrics() {
+        return registry -> {
+            Gauge.builder("gohire.audit.buffered", auditEventBuffer, AuditEventBuffer::getBufferedEvents)
+                    .description("Audit events waiting to be written to the database")
+                    .register(registry);
+            FunctionCounter.builder("gohire.audit.spilled", auditEventBuffer, AuditEventBuffer::getSpilledEvents)
+                    .description("Audit events spilled to disk because the buffer was full or the database unavailable")
+                    .register(registry);
+        };
+    }
+
+    private boolean saveOrSpill(List<LogEventDTO> events) {
+        try {
+            auditService.saveAuditEvents(events);
+            return true;
+        } catch (RuntimeException exception) {
+            auditEventBuffer.spill(events);
+            System.out.println("Failed to write " + events.size() + " audit events, spilled to disk: " + exception);
+            return false;
+        }
+    }
+
+    private boolean save(List<LogEventDTO> spilledEvents) {
+        try {
+            auditService.saveAuditEvents(spilledEvents);
+            return true;
+        } catch (RuntimeException exception) {
+            System.out.println("Failed to write " + spilledEvents.size() + " spilled audit events: " + exception);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package kth.iv1201.gohire.config;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Finds the highest BCrypt strength whose hashing time on this machine fits a latency target. Hashing time doubles
+ * with every strength step, so a short measurement at a low strength is extrapolated instead of trying every strength.
+ */
+public class BCryptStrengthCalibrator {
+    private static final int MEASURED_STRENGTH = 8;
+    private static final int MEASUREMENTS = 3;
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+
+    private final long targetMillis;
+    private final int minimumStrength;
+    private final int maximumStrength;
+    private double estimatedMillis;
+
+    /**
+     * Creates a new <code>BCryptStrengthCalibrator</code>.
+     * @param targetMillis The longest time one hash may take.
+     * @param minimumStrength The lowest strength accepted, even if it takes longer than the target.
+     * @param maximumStrength The highest strength accepted.
+     */
+    public BCryptStrengthCalibrator(long targetMillis, int minimumStrength, int maximumStrength) {
+        this.targetMillis = targetMillis;
+        this.minimumStrength = minimumStrength;
+        this.maximumStrength = maximumStrength;
+    }
+
+    /**
+     * Measures the hashing time and picks the strength.
+     * @return The highest strength within the limits whose estimated hashing time fits the target.
+     */
+    public int calibrate() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(MEASURED_STRENGTH);
+        long fastestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < MEASUREMENTS; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            fastestNanos = Math.min(fastestNanos, System.nanoTime() - start);
+        }
+        double measuredMillis = fastestNanos / 1_000_000.0;
+        int strength = minimumStrength;
+        while (strength < maximumStrength && millisAt(measuredMillis, strength + 1) <= targetMillis)
+            strength++;
+        estimatedMillis = millisAt(measuredMillis, strength);
+        return strength;
+    }
+
+    /**
+     * @return The estimated time of one hash at the calibrated strength, in milliseconds.
+     */
+    public double getEstimatedMillis() {
+        return estimatedMillis;
+    }
+
+    private static double millisAt(double measuredMillis, int strength) {
+        return measuredMillis * Math.pow(2, strength - MEASURED_STRENGTH);
+    }
+}
@@ -0,0 +1,74 @@
+package kth.iv1201.gohire.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kth.iv1201.gohire.service.PersonChangedEvent;
+import kth.iv1201.gohire.service.PersonUserDetails;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * <code>UserCache</code> keeping the user details loaded during authentication in a size-bounded Caffeine cache
+ * with W-TinyLFU eviction and a time to live. Copies are stored and handed out, so that erasing the credentials of
+ * an authenticated principal does not erase them from the cache.
+ */
+public class CaffeineUserCache implements UserCache {
+
+    private final Cache<String, UserDetails> cache;
+
+    /**
+     * Creates a new <code>CaffeineUserCache</code>.
+     * @param maximumSize The maximum number of cached users.
+     * @param timeToLive How long a user is cached after being loaded.
+     */
+    public CaffeineUserCache(long maximumSize, Duration timeToLive) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        UserDetails user = cache.getIfPresent(username);
+        return user == null ? null : copyOf(user);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        cache.put(user.getUsername(), copyOf(user));
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.invalidate(username);
+    }
+
+    /**
+     * Removes a person from the cache once the transaction creating or changing it has committed.
+     * @param event The event describing the changed person.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPersonChanged(PersonChangedEvent event) {
+        removeUserFromCache(event.getUsername());
+    }
+
+    /**
+     * @return The underlying cache, for registering metrics.
+     */
+    public Cache<String, UserDetails> getCache() {
+        return cache;
+    }
+
+    private static UserDetails copyOf(UserDetails user) {
+        if (user instanceof PersonUserDetails person)
+            return new PersonUserDetails(person.getPersonId(), person.getUsername(), person.getPassword(),
+                    person.getRoleName());
+        return User.withUserDetails(user).build();
+    }
+}
@@ -0,0 +1,54 @@
+package kth.iv1201.gohire.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Configuration for the formats the API is served in. Besides JSON, responses are written as CBOR
+ * (<code>application/cbor</code>) or Smile (<code>application/x-jackson-smile</code>) when the client asks for them in
+ * the <code>Accept</code> header, and request bodies are read in the same formats. The binary formats are written with
+ * the same Jackson settings as JSON, and are placed after JSON so that clients accepting any format still get JSON.
+ */
+@Configuration
+public class ContentNegotiationConfiguration implements WebMvcConfigurer {
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders;
+
+    /**
+     * Creates a new <code>ContentNegotiationConfiguration</code>.
+     * @param objectMapperBuilders Provides a new <code>Jackson2ObjectMapperBuilder</code> with the application's Jackson
+     *                             settings for every binary format.
+     */
+    public ContentNegotiationConfiguration(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders) {
+        this.objectMapperBuilders = objectMapperBuilders;
+    }
+
+    /**
+     * Replaces the default CBOR and Smile converters by ones using the application's Jackson settings, placed right
+     * after the JSON converter.
+     * @param converters The configured message converters.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter ||
+                converter instanceof MappingJackson2SmileHttpMessageConverter);
+        int afterJson = 0;
+        for (int i = 0; i < converters.size(); i++)
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter)
+                afterJson = i + 1;
+        converters.add(afterJson, new MappingJackson2SmileHttpMessageConverter(
+                objectMapperBuilders.getObject().factory(new SmileFactory()).build()));
+        converters.add(afterJson, new MappingJackson2CborHttpMessageConverter(
+                objectMapperBuilders.getObject().factory(new CBORFactory()).build()));
+    }
+}
@@ -0,0 +1,372 @@
+package kth.iv1201.gohire.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kth.iv1201.gohire.DTO.SecuritySessionDTO;
+import kth.iv1201.gohire.service.PersonAuthentication;
+import kth.iv1201.gohire.service.SecuritySessionService;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.DeferredSecurityContext;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.SecurityContextRepository;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <code>SecurityContextRepository</code> keeping the security context of logged-in users in the shared
+ * <code>security_session</code> table, so that logins survive restarts and are shared between instances. The session
+ * is identified by its own cookie instead of the <code>HttpSession</code>.
+ * <p>
+ * Recently used sessions are kept in a local near-cache. A cached session is used without querying the database for
+ * a short while, after which only its version is read and compared. New and removed sessions are written to the
+ * database before the response is sent, so that the next request sees them on every instance. Only last access times
+ * are written in periodic batches, and only when they have moved by more than the touch interval. Expired sessions
+ * are deleted in the background in small chunks.
+ * <p>
+ * Only authentications of persons are stored, in the compact binary format of <code>PersonAuthentication</code>.
+ * Sessions stored in an unknown format are treated as missing, and the user has to log in again.
+ */
+public class JdbcSecurityContextRepository implements SecurityContextRepository {
+    /**
+     * The name of the cookie carrying the id of the shared session.
+     */
+    public static final String COOKIE_NAME = "GOHIRE_SESSION";
+    private static final int SESSION_ID_BYTES = 32;
+
+    private final SecuritySessionService securitySessionService;
+    private final SessionStatistics sessionStatistics;
+    private final Cache<String, CachedSession> nearCache;
+    private final Map<String, Instant> pendingTouches = new ConcurrentHashMap<>();
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet();
+    private final Duration timeout;
+    private final long revalidateAfterNanos;
+    private final Duration touchInterval;
+    private final int batchSize;
+    private final int cleanupChunkSize;
+    private final SecureRandom random = new SecureRandom();
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    /**
+     * Creates a new <code>JdbcSecurityContextRepository</code>.
+     * @param securitySessionService The <code>SecuritySessionService</code> storing the sessions.
+     * @param sessionStatistics The <code>SessionStatistics</code> recording the size of stored sessions.
+     * @param timeout How long a session stays valid after its last use.
+     * @param revalidateAfter How long a cached session is used before its version is checked again.
+     * @param touchInterval How far the last access must move before it is written.
+     * @param nearCacheSize The maximum number of sessions cached locally.
+     * @param batchSize The maximum number of last access times written in one batch.
+     * @param cleanupChunkSize The maximum number of expired sessions deleted in one statement.
+     */
+    public JdbcSecurityContextRepository(SecuritySessionService securitySessionService,
+                                         SessionStatistics sessionStatistics, Duration timeout, Duration revalidateAfter, Duration touchInterval, long nearCacheSize,
+                                         int batchSize, int cleanupChunkSize) {
+        this.securitySessionService = securitySessionService;
+        this.sessionStatistics = sessionStatistics;
+        this.timeout = timeout;
+        this.revalidateAfterNanos = revalidateAfter.toNanos();
+        this.touchInterval = touchInterval;
+        this.batchSize = batchSize;
+        this.cleanupChunkSize = cleanupChunkSize;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheSize)
+                .expireAfterAccess(timeout)
+                .build();
+    }
+
+    /**
+     * Loads the security context of the session identified by the cookie of the request. The session is only looked
+     * up when the context is first asked for, so requests that never need it never touch the near-cache or the
+     * database.
+     * @param request The request to load the security context of.
+     * @return The security context of the session, generated and empty if there is no valid session.
+     */
+    @Override
+    public DeferredSecurityContext loadDeferredContext(HttpServletRequest request) {
+        return new LazySecurityContext(sessionIdOf(request));
+    }
+
+    /**
+     * Only implemented because Spring Security 6 still declares it abstract, use <code>loadDeferredContext</code>.
+     * @deprecated Use <code>loadDeferredContext</code>.
+     */
+    @Override
+    @Deprecated
+    public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+        return loadDeferredContext(requestResponseHolder.getRequest()).get();
+    }
+
+    @Override
+    public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+        String sessionId = sessionIdOf(request);
+        Authentication authentication = context.getAuthentication();
+        if (authentication == null || trustResolver.isAnonymous(authentication)) {
+            if (sessionId != null) {
+                removeSession(sessionId);
+                writeCookie(request, response, "", Duration.ZERO);
+            }
+            return;
+        }
+        PersonAuthentication personAuthentication = PersonAuthentication.of(authentication);
+        if (personAuthentication == null)
+            return;
+        CachedSession cached = sessionId == null ? null : nearCache.getIfPresent(sessionId);
+        if (cached != null && cached.authentication().equals(personAuthentication))
+            return;
+        if (sessionId != null)
+            removeSession(sessionId);
+        sessionId = newSessionId();
+        writeCookie(request, response, sessionId, null);
+        long version = random.nextLong();
+        Instant now = Instant.now();
+        byte[] serialized = personAuthentication.toBytes();
+        sessionStatistics.recordContextBytes(serialized.length);
+        securitySessionService.saveSessions(List.of(new SecuritySessionDTO(sessionId, version,
+                personAuthentication.getName(), serialized, now)));
+        nearCache.put(sessionId, new CachedSession(version, personAuthentication, now, System.nanoTime()));
+    }
+
+    @Override
+    public boolean containsContext(HttpServletRequest request) {
+        String sessionId = sessionIdOf(request);
+        return sessionId != null && currentSession(sessionId) != null;
+    }
+
+    /**
+     * Writes the touched last access times to the database in batches, and retries the deletes of removed sessions
+     * that failed. Last access times that could not be written are dropped, as the next use of the session touches it
+     * again.
+     */
+    @Scheduled(fixedDelayString = "${gohire.security.jdbc-session.flush-interval-millis:500}")
+    public void flushSessions() {
+        try {
+            List<String> deletes = new ArrayList<>(pendingDeletes);
+            if (!deletes.isEmpty()) {
+                securitySessionService.deleteSessions(deletes);
+                deletes.forEach(pendingDeletes::remove);
+            }
+            Map<String, Instant> touches = new HashMap<>();
+            for (String sessionId : pendingTouches.keySet()) {
+                Instant touch = pendingTouches.remove(sessionId);
+                if (touch != null)
+                    touches.put(sessionId, touch);
+                if (touches.size() == batchSize) {
+                    securitySessionService.touchSessions(touches);
+                    touches.clear();
+                }
+            }
+            if (!touches.isEmpty())
+                securitySessionService.touchSessions(touches);
+        } catch (DataAccessException exception) {
+            System.out.println("Failed to write shared sessions, retrying on the next run: " + exception);
+        }
+    }
+
+    /**
+     * Deletes expired sessions from the database, one chunk per statement, until none are left.
+     */
+    @Scheduled(fixedDelayString = "${gohire.security.jdbc-session.cleanup-interval-millis:60000}")
+    public void removeExpiredSessions() {
+        Instant cutoff = Instant.now().minus(timeout);
+        try {
+            while (securitySessionService.deleteExpiredSessions(cutoff, cleanupChunkSize) == cleanupChunkSize) {
+                Thread.yield();
+            }
+        } catch (DataAccessException exception) {
+            System.out.println("Failed to delete expired shared sessions: " + exception);
+        }
+    }
+
+    /**
+     * Writes the pending changes before the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushSessions();
+    }
+
+    /**
+     * @return The number of sessions cached on this instance.
+     */
+    public long getCachedSessions() {
+        return nearCache.estimatedSize();
+    }
+
+    /**
+     * @return The number of touched sessions and failed deletes waiting to be written.
+     */
+    public int getPendingWrites() {
+        return pendingTouches.size() + pendingDeletes.size();
+    }
+
+    private CachedSession currentSession(String sessionId) {
+        if (pendingDeletes.contains(sessionId))
+            return null;
+        CachedSession cached = nearCache.getIfPresent(sessionId);
+        long now = System.nanoTime();
+        if (cached == null || now - cached.checkedAt() > revalidateAfterNanos)
+            cached = revalidate(sessionId, cached, now);
+        if (cached == null)
+            return null;
+        Instant accessed = Instant.now();
+        if (cached.lastAccess().plus(timeout).isBefore(accessed)) {
+            if (expireSession(sessionId, accessed.minus(timeout)))
+                return null;
+            cached = revalidate(sessionId, null, now);
+            if (cached == null || cached.lastAccess().plus(timeout).isBefore(accessed))
+                return null;
+        }
+        if (cached.lastAccess().plus(touchInterval).isBefore(accessed)) {
+            cached = new CachedSession(cached.version(), cached.authentication(), accessed, cached.checkedAt());
+            nearCache.put(sessionId, cached);
+            pendingTouches.put(sessionId, accessed);
+        }
+        return cached;
+    }
+
+    private CachedSession revalidate(String sessionId, CachedSession cached, long now) {
+        if (cached != null) {
+            SecuritySessionDTO current = securitySessionService.fetchSessionVersion(sessionId);
+            if (current == null) {
+                nearCache.invalidate(sessionId);
+                return null;
+            }
+            if (current.getVersion() == cached.version()) {
+                Instant lastAccess = current.getLastAccess().isAfter(cached.lastAccess()) ?
+                        current.getLastAccess() : cached.lastAccess();
+                CachedSession checked = new CachedSession(cached.version(), cached.authentication(), lastAccess, now);
+                nearCache.put(sessionId, checked);
+                return checked;
+            }
+        }
+        SecuritySessionDTO stored = securitySessionService.fetchSession(sessionId);
+        if (stored == null)
+            return null;
+        PersonAuthentication authentication;
+        try {
+            authentication = PersonAuthentication.fromBytes(stored.getContext());
+        } catch (IllegalArgumentException unknownFormat) {
+            forgetSession(sessionId);
+            return null;
+        }
+        CachedSession loaded = new CachedSession(stored.getVersion(), authentication, stored.getLastAccess(), now);
+        nearCache.put(sessionId, loaded);
+        return loaded;
+    }
+
+    private void removeSession(String sessionId) {
+        nearCache.invalidate(sessionId);
+        pendingTouches.remove(sessionId);
+        try {
+            securitySessionService.deleteSessions(List.of(sessionId));
+        } catch (DataAccessException exception) {
+            pendingDeletes.add(sessionId);
+            throw exception;
+        }
+    }
+
+    /**
+     * Deletes a session that looks expired from this instance, unless the database shows it was used more recently
+     * through another instance.
+     * @return <code>true</code> if the session has expired.
+     */
+    private boolean expireSession(String sessionId, Instant cutoff) {
+        nearCache.invalidate(sessionId);
+        pendingTouches.remove(sessionId);
+        try {
+            return securitySessionService.deleteSessionIfExpired(sessionId, cutoff);
+        } catch (DataAccessException exception) {
+            System.out.println("Failed to delete expired shared session: " + exception);
+            return true;
+        }
+    }
+
+    private void forgetSession(String sessionId) {
+        try {
+            removeSession(sessionId);
+        } catch (DataAccessException exception) {
+            System.out.println("Failed to delete shared session, retrying on the next run: " + exception);
+        }
+    }
+
+    private String sessionIdOf(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null)
+            return null;
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName()) && !cookie.getValue().isEmpty())
+                return cookie.getValue();
+        }
+        return null;
+    }
+
+    private String newSessionId() {
+        byte[] bytes = new byte[SESSION_ID_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static void writeCookie(HttpServletRequest request, HttpServletResponse response, String value,
+                                    Duration maxAge) {
+        ResponseCookie.ResponseCookieBuilder cookie = ResponseCookie.from(COOKIE_NAME, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax");
+        if (maxAge != null)
+            cookie.maxAge(maxAge);
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.build().toString());
+    }
+
+    private class LazySecurityContext implements DeferredSecurityContext {
+        private final String sessionId;
+        private SecurityContext context;
+        private boolean generated;
+
+        LazySecurityContext(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        @Override
+        public SecurityContext get() {
+            if (context == null) {
+                context = SecurityContextHolder.createEmptyContext();
+                CachedSession cached = sessionId == null ? null : currentSession(sessionId);
+                if (cached != null)
+                    context.setAuthentication(cached.authentication());
+                generated = cached == null;
+            }
+            return context;
+        }
+
+        @Override
+        public boolean isGenerated() {
+            get();
+            return generated;
+        }
+    }
+
+    private record CachedSession(long version, PersonAuthentication authentication, Instant lastAccess,
+                                 long checkedAt) {
+    }
+}
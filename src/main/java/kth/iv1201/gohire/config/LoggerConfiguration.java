@@ -0,0 +1,117 @@
+package kth.iv1201.gohire.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import kth.iv1201.gohire.controller.util.Logger;
+import kth.iv1201.gohire.controller.util.LoggerException;
+import kth.iv1201.gohire.controller.util.OverflowPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Configuration for the <code>Logger</code>, setting up log rolling, switching it to asynchronous mode when enabled
+ * and periodically writing the counts of deduplicated errors.
+ */
+@Configuration
+public class LoggerConfiguration {
+
+    private final boolean asyncEnabled;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final long errorDeduplicationWindowMillis;
+    private final long maxSegmentBytes;
+    private final long maxTotalBytes;
+    private final int maxAgeDays;
+
+    /**
+     * Creates a new <code>LoggerConfiguration</code>.
+     * @param asyncEnabled Whether log entries should be written by a background thread.
+     * @param queueCapacity The maximum number of entries waiting to be written.
+     * @param batchSize The maximum number of entries written in one batch.
+     * @param flushIntervalMillis The longest time an entry waits in the queue when traffic is low.
+     * @param overflowPolicy What to do with new entries when the queue is full.
+     * @param sampleRate With <code>OverflowPolicy.SAMPLE</code>, one in this many overflowing entries is kept.
+     * @param errorDeduplicationWindowMillis The time window in which a repeated error is only counted.
+     * @param maxSegmentBytes The size at which a log segment is closed and compressed.
+     * @param maxTotalBytes The maximum disk usage of all logs, after which the oldest closed segments are deleted.
+     * @param maxAgeDays The number of days closed segments of every log are kept.
+     */
+    public LoggerConfiguration(@Value("${gohire.logging.async.enabled:false}") boolean asyncEnabled,
+                               @Value("${gohire.logging.async.queue-capacity:8192}") int queueCapacity,
+                               @Value("${gohire.logging.async.batch-size:256}") int batchSize,
+                               @Value("${gohire.logging.async.flush-interval-millis:200}") long flushIntervalMillis,
+                               @Value("${gohire.logging.async.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                               @Value("${gohire.logging.async.sample-rate:10}") int sampleRate,
+                               @Value("${gohire.logging.error-dedup-window-millis:60000}") long errorDeduplicationWindowMillis,
+                               @Value("${gohire.logging.max-segment-bytes:10485760}") long maxSegmentBytes,
+                               @Value("${gohire.logging.max-total-bytes:524288000}") long maxTotalBytes,
+                               @Value("${gohire.logging.max-age-days:30}") int maxAgeDays) {
+        this.asyncEnabled = asyncEnabled;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = sampleRate;
+        this.errorDeduplicationWindowMillis = errorDeduplicationWindowMillis;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxTotalBytes = maxTotalBytes;
+        this.maxAgeDays = maxAgeDays;
+    }
+
+    /**
+     * Configures log rolling and error deduplication and starts asynchronous logging if it is enabled.
+     */
+    @PostConstruct
+    public void startLogger() {
+        Logger.configureRolling(maxSegmentBytes, maxTotalBytes, maxAgeDays);
+        Logger.setErrorDeduplicationWindow(errorDeduplicationWindowMillis);
+        if (asyncEnabled)
+            Logger.startAsyncMode(queueCapacity, batchSize, flushIntervalMillis, overflowPolicy, sampleRate);
+    }
+
+    /**
+     * Periodically writes the number of errors that were only counted to the error log.
+     */
+    @Scheduled(fixedDelayString = "${gohire.logging.error-count-flush-interval-millis:60000}")
+    public void flushErrorCounts() {
+        try {
+            Logger.flushErrorCounts();
+        } catch (LoggerException exception) {
+            System.out.println(exception.toString());
+        }
+    }
+
+    /**
+     * Writes every queued log entry and error count before the application shuts down.
+     */
+    @PreDestroy
+    public void flushLogger() {
+        flushErrorCounts();
+        Logger.stopAsyncMode();
+        Logger.closeLogFiles();
+    }
+
+    /**
+     * Creates metrics for the queue depth and the number of dropped entries of the <code>Logger</code>.
+     * @return the <code>MeterBinder</code> registering the metrics.
+     */
+    @Bean
+    public MeterBinder loggerMetrics() {
+        return registry -> {
+            Gauge.builder("gohire.logger.queue.depth", Logger::getQueuedEntries)
+                    .description("Log entries waiting to be written")
+                    .register(registry);
+            FunctionCounter.builder("gohire.logger.dropped", Logger.class, logger -> Logger.getDroppedEntries())
+                    .description("Log entries dropped because the queue was full")
+                    .register(registry);
+        };
+    }
+}
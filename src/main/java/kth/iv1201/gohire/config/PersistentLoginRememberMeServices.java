@@ -0,0 +1,99 @@
+package kth.iv1201.gohire.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kth.iv1201.gohire.DTO.PersistentLoginTokenDTO;
+import kth.iv1201.gohire.service.PersistentLoginService;
+import kth.iv1201.gohire.service.exception.InvalidPersistentLoginException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.web.authentication.rememberme.AbstractRememberMeServices;
+import org.springframework.security.web.authentication.rememberme.InvalidCookieException;
+
+/**
+ * Remember-me services keeping a series and token pair in a cookie and in the <code>persistent_login</code> table. A
+ * request without a session but with a valid cookie is logged in again without checking a password, and the token
+ * in the cookie is replaced on every such login.
+ */
+public class PersistentLoginRememberMeServices extends AbstractRememberMeServices {
+
+    private final PersistentLoginService persistentLoginService;
+
+    /**
+     * Creates a new <code>PersistentLoginRememberMeServices</code>. Every login passed to <code>loginSuccess</code>
+     * is remembered, so callers decide whether the user asked to be remembered.
+     * @param key The key identifying the remember-me authentications created by this instance.
+     * @param userDetailsService The <code>UserDetailsService</code> loading remembered users.
+     * @param persistentLoginService The <code>PersistentLoginService</code> storing the remembered logins.
+     */
+    public PersistentLoginRememberMeServices(String key, UserDetailsService userDetailsService,
+                                             PersistentLoginService persistentLoginService) {
+        super(key, userDetailsService);
+        this.persistentLoginService = persistentLoginService;
+        setAlwaysRemember(true);
+    }
+
+    @Override
+    protected void onLoginSuccess(HttpServletRequest request, HttpServletResponse response,
+                                  Authentication successfulAuthentication) {
+        removeLoginOfCookie(request);
+        try {
+            PersistentLoginTokenDTO persistentLogin =
+                    persistentLoginService.createPersistentLogin(successfulAuthentication.getName());
+            setCookie(new String[] {persistentLogin.getSeries(), persistentLogin.getToken()},
+                    getTokenValiditySeconds(), request, response);
+        } catch (DataAccessException e) {
+            logger.error("Failed to remember login of " + successfulAuthentication.getName(), e);
+        }
+    }
+
+    @Override
+    protected UserDetails processAutoLoginCookie(String[] cookieTokens, HttpServletRequest request,
+                                                 HttpServletResponse response) {
+        if (cookieTokens.length != 2)
+            throw new InvalidCookieException("Remember-me cookie did not contain a series and a token.");
+        PersistentLoginTokenDTO persistentLogin;
+        try {
+            persistentLogin = persistentLoginService.rotatePersistentLogin(cookieTokens[0], cookieTokens[1]);
+        } catch (InvalidPersistentLoginException e) {
+            throw new InvalidCookieException(e.getMessage());
+        }
+        if (persistentLogin.getToken() != null)
+            setCookie(new String[] {persistentLogin.getSeries(), persistentLogin.getToken()},
+                    getTokenValiditySeconds(), request, response);
+        return getUserDetailsService().loadUserByUsername(persistentLogin.getUsername());
+    }
+
+    /**
+     * Forgets the login remembered by the cookie of the request and removes the cookie.
+     * @param request The request of the user logging out.
+     * @param response The response used to remove the cookie.
+     * @param authentication The authentication of the user logging out.
+     */
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+        removeLoginOfCookie(request);
+        super.logout(request, response, authentication);
+    }
+
+    /**
+     * Periodically forgets the remembered logins that have expired.
+     */
+    @Scheduled(fixedDelayString = "${gohire.security.remember-me.purge-interval-millis:3600000}")
+    public void removeExpiredLogins() {
+        persistentLoginService.removeExpiredPersistentLogins();
+    }
+
+    private void removeLoginOfCookie(HttpServletRequest request) {
+        String cookie = extractRememberMeCookie(request);
+        if (cookie == null || cookie.isEmpty())
+            return;
+        try {
+            persistentLoginService.removePersistentLogin(decodeCookie(cookie)[0]);
+        } catch (InvalidCookieException ignored) {
+        }
+    }
+}
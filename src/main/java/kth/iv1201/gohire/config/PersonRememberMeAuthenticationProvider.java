@@ -0,0 +1,31 @@
+package kth.iv1201.gohire.config;
+
+import kth.iv1201.gohire.service.PersonAuthentication;
+import org.springframework.security.authentication.RememberMeAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import java.util.Objects;
+
+/**
+ * Authentication provider accepting the remember-me authentications created with its key, like
+ * <code>RememberMeAuthenticationProvider</code>, but returning the compact <code>PersonAuthentication</code> of the
+ * remembered person. A login from a remember-me cookie is thereby kept in the session in the same form as a login with
+ * a password.
+ */
+public class PersonRememberMeAuthenticationProvider extends RememberMeAuthenticationProvider {
+
+    /**
+     * Creates a new <code>PersonRememberMeAuthenticationProvider</code>.
+     * @param key The key identifying the remember-me authentications to accept.
+     */
+    public PersonRememberMeAuthenticationProvider(String key) {
+        super(key);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Authentication rememberMeAuthentication = super.authenticate(authentication);
+        return Objects.requireNonNullElse(PersonAuthentication.of(rememberMeAuthentication), rememberMeAuthentication);
+    }
+}
@@ -1,5 +1,14 @@
 package kth.iv1201.gohire.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import kth.iv1201.gohire.controller.util.AuthenticationTokens;
+import kth.iv1201.gohire.controller.util.SecurityMode;
+import kth.iv1201.gohire.service.PersistentLoginService;
+import kth.iv1201.gohire.service.SecuritySessionService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -8,12 +17,23 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
 
 import static jakarta.servlet.DispatcherType.ERROR;
 import static jakarta.servlet.DispatcherType.FORWARD;
@@ -31,6 +51,8 @@ public class SecurityConfiguration {
      */
     final String[] whitelist = { "/api/login", "/api/who", "/api/createApplicant"};
 
+    private static final String BCRYPT_ID = "bcrypt";
+
     private final AuthenticationEntryPoint authEntryPoint;
 
     public SecurityConfiguration(AuthenticationEntryPoint authEntryPoint) {
@@ -38,13 +60,22 @@ public class SecurityConfiguration {
     }
 
     /**
-     * Configures security filters.
+     * Configures security filters. In session mode the security context is kept in the <code>HttpSession</code>, in
+     * jdbc mode it is kept in the shared session table, and in stateless mode no session is created and every API
+     * request is authenticated by its signed token. A login from a remember-me cookie is kept as the compact
+     * <code>PersonAuthentication</code>, like a login with a password.
      * @param http needed to configure websecurity.
+     * @param rememberMeServices the remember-me services logging in users without a session again.
+     * @param authenticationTokens the <code>AuthenticationTokens</code> verifying tokens in stateless mode.
+     * @param securityContextRepository the <code>SecurityContextRepository</code> of the configured mode.
      * @return security filter chain to use for securing requests.
      * @throws Exception if SecurityFilterChain creation fails.
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   PersistentLoginRememberMeServices rememberMeServices,
+                                                   AuthenticationTokens authenticationTokens,
+                                                   SecurityContextRepository securityContextRepository) throws Exception {
         http
                 .authorizeHttpRequests((authorize) -> authorize
                         .dispatcherTypeMatchers(FORWARD, ERROR).permitAll()
@@ -54,29 +85,187 @@ public class SecurityConfiguration {
                 ).csrf(csrf -> csrf
                         .ignoringRequestMatchers("/**").disable())
                 .securityContext((securityContext) -> securityContext
-                        .securityContextRepository(new HttpSessionSecurityContextRepository())
-                );
+                        .securityContextRepository(securityContextRepository));
+        if (!(securityContextRepository instanceof HttpSessionSecurityContextRepository))
+            http
+                    .sessionManagement(sessionManagement -> sessionManagement
+                            .sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        if (authenticationTokens.isEnabled())
+            http
+                    .addFilterBefore(new SignedTokenAuthenticationFilter(authenticationTokens),
+                            UsernamePasswordAuthenticationFilter.class);
+        else
+            http
+                    .authenticationProvider(new PersonRememberMeAuthenticationProvider(rememberMeServices.getKey()))
+                    .rememberMe(rememberMe -> rememberMe
+                            .rememberMeServices(rememberMeServices)
+                            .key(rememberMeServices.getKey())
+                    );
         return http.build();
     }
 
     /**
-     * Creates a configured <code>PasswordEncoder</code> that uses the BCrypt hashing algorithm.
-     * @return the configured <code>BCryptPasswordEncoder</code>.
+     * Creates the <code>SecurityContextRepository</code> keeping the authentication of a logged-in user between
+     * requests, depending on the security mode.
+     * @param securityMode where the authentication of a logged-in user is kept.
+     * @param securitySessionService the <code>SecuritySessionService</code> storing shared sessions in jdbc mode.
+     * @param sessionStatistics the <code>SessionStatistics</code> recording the size of shared sessions.
+     * @param timeoutSeconds how long a shared session stays valid after its last use.
+     * @param revalidateMillis how long a locally cached shared session is used before its version is checked.
+     * @param touchIntervalSeconds how far the last use of a shared session must move before it is written.
+     * @param nearCacheSize the maximum number of shared sessions cached locally.
+     * @param batchSize the maximum number of last accesses of shared sessions written in one batch.
+     * @param cleanupChunkSize the maximum number of expired shared sessions deleted in one statement.
+     * @return the <code>SecurityContextRepository</code> of the configured mode.
+     */
+    @Bean
+    public SecurityContextRepository securityContextRepository(
+            @Value("${gohire.security.mode:session}") SecurityMode securityMode,
+            SecuritySessionService securitySessionService,
+            SessionStatistics sessionStatistics,
+            @Value("${gohire.security.jdbc-session.timeout-seconds:1800}") long timeoutSeconds,
+            @Value("${gohire.security.jdbc-session.revalidate-millis:5000}") long revalidateMillis,
+            @Value("${gohire.security.jdbc-session.touch-interval-seconds:60}") long touchIntervalSeconds,
+            @Value("${gohire.security.jdbc-session.near-cache-size:10000}") long nearCacheSize,
+            @Value("${gohire.security.jdbc-session.batch-size:500}") int batchSize,
+            @Value("${gohire.security.jdbc-session.cleanup-chunk-size:500}") int cleanupChunkSize) {
+        return switch (securityMode) {
+            case SESSION -> new HttpSessionSecurityContextRepository();
+            case STATELESS -> new RequestAttributeSecurityContextRepository();
+            case JDBC -> new JdbcSecurityContextRepository(securitySessionService, sessionStatistics,
+                    Duration.ofSeconds(timeoutSeconds), Duration.ofMillis(revalidateMillis),
+                    Duration.ofSeconds(touchIntervalSeconds), nearCacheSize, batchSize, cleanupChunkSize);
+        };
+    }
+
+    /**
+     * Creates metrics for the number of live sessions and the estimated size of the security context of one session.
+     * In jdbc mode the live sessions are those cached on this instance.
+     * @param sessionStatistics the <code>SessionStatistics</code> counting and measuring <code>HttpSession</code>s.
+     * @param securityContextRepository the <code>SecurityContextRepository</code> of the configured mode.
+     * @return the <code>MeterBinder</code> registering the metrics.
      */
     @Bean
-    public PasswordEncoder passwordEncoder(){return new BCryptPasswordEncoder();}
+    public MeterBinder sessionMetrics(SessionStatistics sessionStatistics,
+                                      SecurityContextRepository securityContextRepository) {
+        return registry -> {
+            if (securityContextRepository instanceof JdbcSecurityContextRepository jdbcRepository)
+                Gauge.builder("gohire.sessions.live", jdbcRepository, JdbcSecurityContextRepository::getCachedSessions)
+                        .description("Shared sessions cached on this instance")
+                        .register(registry);
+            else
+                Gauge.builder("gohire.sessions.live", sessionStatistics, SessionStatistics::getLiveSessions)
+                        .description("HttpSessions created and not yet destroyed")
+                        .register(registry);
+            Gauge.builder("gohire.sessions.context.bytes", sessionStatistics, SessionStatistics::getEstimatedContextBytes)
+                    .description("Average serialized size of the security context stored in a session")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Creates the remember-me services used when a user asks to be remembered at login. The key only has to match
+     * between the services and the filter, so a new one is generated at every start.
+     * @param userDetailsService <code>UserDetailsService</code> loading the remembered users.
+     * @param persistentLoginService the <code>PersistentLoginService</code> storing the remembered logins.
+     * @param validitySeconds how long the remember-me cookie is kept by the browser.
+     * @return the <code>PersistentLoginRememberMeServices</code>.
+     */
+    @Bean
+    public PersistentLoginRememberMeServices rememberMeServices(UserDetailsService userDetailsService,
+                                                                PersistentLoginService persistentLoginService,
+                                                                @Value("${gohire.security.remember-me.validity-seconds:1209600}") int validitySeconds) {
+        PersistentLoginRememberMeServices rememberMeServices = new PersistentLoginRememberMeServices(
+                UUID.randomUUID().toString(), userDetailsService, persistentLoginService);
+        rememberMeServices.setTokenValiditySeconds(validitySeconds);
+        return rememberMeServices;
+    }
+
+    /**
+     * Creates a configured <code>PasswordEncoder</code> that uses the BCrypt hashing algorithm on a dedicated, bounded
+     * pool of threads. Unless a strength is configured, the BCrypt strength is calibrated at startup to the highest
+     * strength fitting the latency target. New hashes are stored with a <code>{bcrypt}</code> prefix, while hashes
+     * without prefix are still matched and upgraded on the next successful login.
+     * @param threads the number of hashing threads, 0 for one per available processor.
+     * @param queueCapacity the maximum number of password operations waiting for a hashing thread.
+     * @param retryAfterSeconds the number of seconds a client rejected because of a full queue should wait.
+     * @param configuredStrength the BCrypt strength to use, 0 to calibrate it.
+     * @param targetMillis the latency target of one hash when calibrating.
+     * @param minimumStrength the lowest strength calibration may pick.
+     * @param maximumStrength the highest strength calibration may pick.
+     * @param meterRegistry the registry of the hashing metrics.
+     * @return the configured <code>BoundedPasswordEncoder</code>.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public PasswordEncoder passwordEncoder(@Value("${gohire.security.password-hashing.threads:0}") int threads,
+                                           @Value("${gohire.security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${gohire.security.password-hashing.retry-after-seconds:2}") long retryAfterSeconds,
+                                           @Value("${gohire.security.bcrypt.strength:0}") int configuredStrength,
+                                           @Value("${gohire.security.bcrypt.target-millis:250}") long targetMillis,
+                                           @Value("${gohire.security.bcrypt.minimum-strength:10}") int minimumStrength,
+                                           @Value("${gohire.security.bcrypt.maximum-strength:16}") int maximumStrength,
+                                           MeterRegistry meterRegistry) {
+        int strength = configuredStrength;
+        if (strength == 0) {
+            BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(targetMillis, minimumStrength, maximumStrength);
+            strength = calibrator.calibrate();
+            Gauge.builder("gohire.password.bcrypt.estimated.millis", calibrator, BCryptStrengthCalibrator::getEstimatedMillis)
+                    .description("Estimated time of one hash at the calibrated BCrypt strength")
+                    .strongReference(true)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("gohire.password.bcrypt.strength", strength, Integer::doubleValue)
+                .description("BCrypt strength used for new password hashes")
+                .strongReference(true)
+                .register(meterRegistry);
+        DelegatingPasswordEncoder bcrypt = new DelegatingPasswordEncoder(BCRYPT_ID,
+                Map.of(BCRYPT_ID, new BCryptPasswordEncoder(strength)));
+        bcrypt.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(strength));
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(bcrypt, poolSize, queueCapacity, retryAfterSeconds, meterRegistry);
+    }
+
+    /**
+     * Creates a cache for the user details loaded during authentication, so that repeated authentications of the
+     * same user do not query the database.
+     * @param maximumSize the maximum number of cached users.
+     * @param timeToLiveSeconds how long a user is cached after being loaded.
+     * @return the <code>CaffeineUserCache</code>.
+     */
+    @Bean
+    public CaffeineUserCache userCache(@Value("${gohire.security.user-cache.maximum-size:10000}") long maximumSize,
+                                       @Value("${gohire.security.user-cache.time-to-live-seconds:600}") long timeToLiveSeconds) {
+        return new CaffeineUserCache(maximumSize, Duration.ofSeconds(timeToLiveSeconds));
+    }
+
+    /**
+     * Creates hit, miss and eviction metrics for the user cache.
+     * @param userCache the <code>CaffeineUserCache</code> to monitor.
+     * @return the <code>MeterBinder</code> registering the metrics.
+     */
+    @Bean
+    public MeterBinder userCacheMetrics(CaffeineUserCache userCache) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, userCache.getCache(), "userDetails");
+    }
 
     /**
      * Creates an <code>AuthenticationManager</code> which manages the authentication of a user.
      * @param userDetailsService <code>UserDetailsService</code> for specifying how to access users.
      * @param passwordEncoder the <code>PasswordEncoder</code> implementation to use for encoding passwords.
+     * @param userCache the <code>UserCache</code> consulted before loading a user.
+     * @param userDetailsPasswordService the service storing password hashes upgraded after a successful login.
      * @return the <code>AuthenticationManager</code>.
      */
     @Bean
-    public AuthenticationManager authenticationManager(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+    public AuthenticationManager authenticationManager(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+                                                       UserCache userCache,
+                                                       UserDetailsPasswordService userDetailsPasswordService) {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(userDetailsService);
         authenticationProvider.setPasswordEncoder(passwordEncoder);
+        authenticationProvider.setUserCache(userCache);
+        authenticationProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return new ProviderManager(authenticationProvider);
     }
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package kth.iv1201.gohire.config;
+
+import jakarta.servlet.http.HttpSessionBindingEvent;
+import jakarta.servlet.http.HttpSessionAttributeListener;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the live <code>HttpSession</code>s and measures the serialized size of the security contexts stored in
+ * sessions, so that the memory needed per session can be estimated. Shared sessions of jdbc mode report their stored
+ * size through <code>recordContextBytes</code>.
+ */
+@Component
+public class SessionStatistics implements HttpSessionListener, HttpSessionAttributeListener {
+    private final AtomicLong liveSessions = new AtomicLong();
+    private final AtomicLong measuredContexts = new AtomicLong();
+    private final AtomicLong measuredContextBytes = new AtomicLong();
+
+    @Override
+    public void sessionCreated(HttpSessionEvent event) {
+        liveSessions.incrementAndGet();
+    }
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        liveSessions.decrementAndGet();
+    }
+
+    @Override
+    public void attributeAdded(HttpSessionBindingEvent event) {
+        measureSecurityContext(event);
+    }
+
+    @Override
+    public void attributeReplaced(HttpSessionBindingEvent event) {
+        measureSecurityContext(event);
+    }
+
+    /**
+     * Records the stored size of one security context.
+     * @param bytes The number of bytes the security context takes when serialized.
+     */
+    public void recordContextBytes(int bytes) {
+        measuredContexts.incrementAndGet();
+        measuredContextBytes.addAndGet(bytes);
+    }
+
+    /**
+     * @return The number of <code>HttpSession</code>s that have been created and not yet destroyed.
+     */
+    public long getLiveSessions() {
+        return liveSessions.get();
+    }
+
+    /**
+     * @return The average serialized size of the measured security contexts, 0 if none has been measured.
+     */
+    public double getEstimatedContextBytes() {
+        long contexts = measuredContexts.get();
+        return contexts == 0 ? 0 : (double) measuredContextBytes.get() / contexts;
+    }
+
+    private void measureSecurityContext(HttpSessionBindingEvent event) {
+        if (!HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY.equals(event.getName()))
+            return;
+        CountingOutputStream counter = new CountingOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(counter)) {
+            out.writeObject(event.getValue());
+        } catch (IOException e) {
+            return;
+        }
+        recordContextBytes((int) counter.count);
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package kth.iv1201.gohire.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kth.iv1201.gohire.controller.util.AuthenticationTokens;
+import kth.iv1201.gohire.service.PersonUserDetails;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filter authenticating API requests carrying a signed token in the <code>Authorization</code> header. Requests
+ * without a valid token are passed on unauthenticated and rejected by the authorization rules if needed.
+ */
+public class SignedTokenAuthenticationFilter extends OncePerRequestFilter {
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final AuthenticationTokens authenticationTokens;
+
+    /**
+     * Creates a new <code>SignedTokenAuthenticationFilter</code>.
+     * @param authenticationTokens The <code>AuthenticationTokens</code> verifying the tokens.
+     */
+    public SignedTokenAuthenticationFilter(AuthenticationTokens authenticationTokens) {
+        this.authenticationTokens = authenticationTokens;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            PersonUserDetails principal = authenticationTokens.verify(header.substring(BEARER_PREFIX.length()));
+            if (principal != null) {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(principal, null,
+                        principal.getAuthorities()));
+                SecurityContextHolder.setContext(context);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+}
@@ -2,19 +2,25 @@ package kth.iv1201.gohire.controller;
 
 import kth.iv1201.gohire.DTO.ErrorDTO;
 import kth.iv1201.gohire.controller.exception.AuthenticationForLoggedInUserFailed;
+import kth.iv1201.gohire.controller.exception.LoginThrottledException;
 import kth.iv1201.gohire.controller.util.Logger;
 import kth.iv1201.gohire.controller.util.LoggerException;
 import kth.iv1201.gohire.service.exception.ApplicationHandledException;
+import kth.iv1201.gohire.service.exception.InvalidPageCursorException;
+import kth.iv1201.gohire.service.exception.ServerOverloadedException;
 import kth.iv1201.gohire.service.exception.UserCreationFailedException;
 import org.springframework.boot.web.servlet.error.ErrorController;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import kth.iv1201.gohire.controller.util.ErrorType;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
@@ -50,6 +56,14 @@ public class ErrorHandler implements ErrorController {
             return handleApplicationHandledException((ApplicationHandledException) exception);
         } else if (exception instanceof AuthenticationForLoggedInUserFailed) {
             return handleAuthenticationFailedException((AuthenticationForLoggedInUserFailed) exception);
+        } else if (exception instanceof ServerOverloadedException) {
+            return handleServerOverloadedException((ServerOverloadedException) exception);
+        } else if (exception instanceof LoginThrottledException) {
+            return handleLoginThrottledException((LoginThrottledException) exception);
+        } else if (exception instanceof InvalidPageCursorException ||
+                exception instanceof MethodArgumentTypeMismatchException ||
+                exception instanceof MissingServletRequestParameterException) {
+            return handleInvalidRequestParameterException(exception);
         }
         return handleOtherExceptions(exception);
     }
@@ -83,6 +97,22 @@ public class ErrorHandler implements ErrorController {
         return new ResponseEntity<> (new ErrorDTO(ErrorType.AUTHENTICATION_FAIL, exception.getMessage()), HttpStatus.UNAUTHORIZED);
     }
 
+    private ResponseEntity<ErrorDTO> handleServerOverloadedException(ServerOverloadedException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(new ErrorDTO(ErrorType.SERVER_OVERLOADED, exception.getMessage()));
+    }
+
+    private ResponseEntity<ErrorDTO> handleLoginThrottledException(LoginThrottledException exception) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(new ErrorDTO(ErrorType.TOO_MANY_LOGIN_ATTEMPTS, exception.getMessage()));
+    }
+
+    private ResponseEntity<ErrorDTO> handleInvalidRequestParameterException(Exception exception) {
+        return new ResponseEntity<> (new ErrorDTO(ErrorType.USER_INPUT_ERROR, exception.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
     private ResponseEntity<ErrorDTO> handleLoggerException(LoggerException exception) {
         System.out.println(exception.toString());
         return null;
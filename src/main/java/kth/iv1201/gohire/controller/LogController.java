@@ -0,0 +1,90 @@
+package kth.iv1201.gohire.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kth.iv1201.gohire.DTO.ErrorFingerprintDTO;
+import kth.iv1201.gohire.controller.util.Logger;
+import kth.iv1201.gohire.controller.util.LoggerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Controller responsible for API calls giving insight into the logs written by the <code>Logger</code>.
+ */
+@RestController
+@RequestMapping("/api")
+public class LogController {
+
+    private static final int MAX_ERROR_SUMMARY_SIZE = 100;
+    private static final Duration DEFAULT_EVENT_RANGE = Duration.ofDays(7);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Creates a new <code>LogController</code>.
+     * @param objectMapper The <code>ObjectMapper</code> used to serialize streamed events.
+     */
+    @Autowired
+    public LogController(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Fetches a summary of the most frequent errors since the application started.
+     * @param limit The maximum number of errors to include.
+     * @return The most frequent errors, most frequent first.
+     */
+    @PreAuthorize("hasRole('recruiter')")
+    @GetMapping("/errors")
+    public List<ErrorFingerprintDTO> fetchErrorSummary(@RequestParam(defaultValue = "20") int limit) {
+        return Logger.fetchTopErrors(Math.max(0, Math.min(limit, MAX_ERROR_SUMMARY_SIZE)));
+    }
+
+    /**
+     * Streams the events of the structured event log within a time range as newline-delimited JSON.
+     * @param actor The username of the user performing the actions, all users if omitted.
+     * @param from The start of the time range, seven days before <code>to</code> if omitted.
+     * @param to The end of the time range, now if omitted.
+     * @return The matching events, one JSON object per line.
+     */
+    @PreAuthorize("hasRole('recruiter')")
+    @GetMapping("/events")
+    public ResponseEntity<StreamingResponseBody> fetchEvents(
+            @RequestParam(required = false) String actor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Instant end = to == null ? Instant.now() : to;
+        Instant start = from == null ? end.minus(DEFAULT_EVENT_RANGE) : from;
+        StreamingResponseBody body = outputStream -> {
+            try {
+                Logger.queryEvents(actor, start, end, event -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(event));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (LoggerException e) {
+                throw new IOException(e.getMessage());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+}
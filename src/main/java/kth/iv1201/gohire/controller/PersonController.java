@@ -1,29 +1,61 @@
 package kth.iv1201.gohire.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import kth.iv1201.gohire.DTO.*;
 import kth.iv1201.gohire.controller.exception.AuthenticationForLoggedInUserFailed;
+import kth.iv1201.gohire.controller.exception.LoginThrottledException;
+import kth.iv1201.gohire.controller.util.ApplicantEventBroadcaster;
+import kth.iv1201.gohire.controller.util.ApplicantSortOrder;
+import kth.iv1201.gohire.controller.util.AuthenticationTokens;
+import kth.iv1201.gohire.DTO.EventType;
 import kth.iv1201.gohire.controller.util.Logger;
 import kth.iv1201.gohire.controller.util.LoggerException;
+import kth.iv1201.gohire.controller.util.LoginThrottle;
+import kth.iv1201.gohire.controller.util.VerifiedCredentialCache;
+import kth.iv1201.gohire.service.ApplicantExportService;
+import kth.iv1201.gohire.service.PersonAuthentication;
 import kth.iv1201.gohire.service.PersonService;
+import kth.iv1201.gohire.service.PersonUserDetails;
 import kth.iv1201.gohire.service.exception.ApplicationHandledException;
+import kth.iv1201.gohire.service.exception.InvalidPageCursorException;
+import kth.iv1201.gohire.service.exception.ServerOverloadedException;
 import kth.iv1201.gohire.service.exception.UserCreationFailedException;
 import kth.iv1201.gohire.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.authentication.rememberme.AbstractRememberMeServices;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Controller responsible for API calls related to a <code>PersonEntity</code>.
@@ -32,47 +64,129 @@ import java.util.Map;
 @RequestMapping("/api")
 public class PersonController {
 
+    /**
+     * Response header carrying the signed token of a logged-in user in stateless mode.
+     */
+    public static final String AUTH_TOKEN_HEADER = "X-Auth-Token";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final List<MediaType> API_FORMATS = List.of(MediaType.APPLICATION_JSON,
+            MediaType.parseMediaType("application/cbor"), MediaType.parseMediaType("application/x-jackson-smile"));
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    private static final int EXPORT_GZIP_BUFFER_BYTES = 64 * 1024;
+
     private final PersonService personService;
     private final AuthenticationManager authenticationManager;
+    private final VerifiedCredentialCache verifiedCredentialCache;
+    private final LoginThrottle loginThrottle;
+    private final AbstractRememberMeServices rememberMeServices;
+    private final AuthenticationTokens authenticationTokens;
+    private final SecurityContextRepository securityContextRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicantEventBroadcaster applicantEventBroadcaster;
+    private final ApplicantExportService applicantExportService;
 
     /**
      * Creates a new <code>PersonController</code>.
      * @param personService The <code>PersonService</code> to use.
+     * @param verifiedCredentialCache The <code>VerifiedCredentialCache</code> remembering confirmed credentials.
+     * @param loginThrottle The <code>LoginThrottle</code> limiting login attempts.
+     * @param rememberMeServices The remember-me services remembering logins after the session ends.
+     * @param authenticationTokens The <code>AuthenticationTokens</code> issuing tokens in stateless mode.
+     * @param securityContextRepository The <code>SecurityContextRepository</code> keeping the logged-in user.
+     * @param objectMapper The <code>ObjectMapper</code> used to serialize streamed applicants.
+     * @param applicantEventBroadcaster The <code>ApplicantEventBroadcaster</code> pushing changed applicants.
+     * @param applicantExportService The <code>ApplicantExportService</code> exporting applications as CSV.
      */
     @Autowired
-    public PersonController(PersonService personService, AuthenticationManager authenticationManager) {
+    public PersonController(PersonService personService, AuthenticationManager authenticationManager,
+                            VerifiedCredentialCache verifiedCredentialCache, LoginThrottle loginThrottle,
+                            AbstractRememberMeServices rememberMeServices, AuthenticationTokens authenticationTokens,
+                            SecurityContextRepository securityContextRepository, ObjectMapper objectMapper,
+                            ApplicantEventBroadcaster applicantEventBroadcaster,
+                            ApplicantExportService applicantExportService) {
         this.personService = personService;
         this.authenticationManager = authenticationManager;
+        this.verifiedCredentialCache = verifiedCredentialCache;
+        this.loginThrottle = loginThrottle;
+        this.rememberMeServices = rememberMeServices;
+        this.authenticationTokens = authenticationTokens;
+        this.securityContextRepository = securityContextRepository;
+        this.objectMapper = objectMapper;
+        this.applicantEventBroadcaster = applicantEventBroadcaster;
+        this.applicantExportService = applicantExportService;
     }
 
     /**
-     * Handles the login API-request.
+     * Handles the login API-request. The returned person is built from the authenticated principal, so the person is
+     * only fetched once. In session and jdbc mode the compact <code>PersonAuthentication</code> of the user is saved in
+     * the session and, if requested, remembered with a cookie that logs the user in again after the session has ended.
+     * In stateless mode no session is created, and a signed token identifying the user is returned in the
+     * <code>X-Auth-Token</code> header instead.
      * @param loginRequest DTO containing login request data.
+     * @param request The HttpServletRequest, used for the client address and the session.
+     * @param response The HttpServletResponse the remember-me cookie or the token is added to.
      * @throws LoggerException if there is a problem with logging an event.
      * @throws UserNotFoundException If the user is authenticated but can not be fetched from the database.
+     * @throws LoginThrottledException If too many login attempts were made recently from the address or for the user.
      * @return <code>LoggedInPersonDTO</code> representing the logged-in user.
      */
     @PostMapping("/login")
-    public LoggedInPersonDTO login(@RequestBody @Valid LoginRequestDTO loginRequest, HttpSession session)
-            throws LoggerException, UserNotFoundException {
+    public LoggedInPersonDTO login(@RequestBody @Valid LoginRequestDTO loginRequest, HttpServletRequest request,
+                                   HttpServletResponse response)
+            throws LoggerException, UserNotFoundException, LoginThrottledException {
+        loginThrottle.checkLoginAllowed(loginRequest.getUsername(), request.getRemoteAddr());
         Authentication authenticationResponse = authenticateRequest(loginRequest.getUsername(), loginRequest.getPassword());
-        saveAuthenticatedUserInSession(authenticationResponse, session);
-        Logger.logEvent("User logged in: " + loginRequest.getUsername());
-        return personService.fetchLoggedInPersonByUsername(loginRequest.getUsername());
+        LoggedInPersonDTO loggedInPerson;
+        if (authenticationResponse.getPrincipal() instanceof PersonUserDetails principal)
+            loggedInPerson = toLoggedInPersonDTO(principal);
+        else
+            loggedInPerson = personService.fetchLoggedInPersonByUsername(loginRequest.getUsername());
+        if (authenticationTokens.isEnabled()) {
+            response.setHeader(AUTH_TOKEN_HEADER, authenticationTokens.issue(loggedInPerson));
+        } else {
+            saveAuthenticatedUser(authenticationResponse, request, response);
+            if (loginRequest.isRememberMe())
+                rememberMeServices.loginSuccess(request, response, authenticationResponse);
+        }
+        Logger.logEvent("User logged in: " + loginRequest.getUsername(), new LogEventDTO(EventType.LOGIN,
+                loginRequest.getUsername(), loggedInPerson.getId(), null));
+        return loggedInPerson;
     }
 
     /**
-     * Handles the logout API-request.
-     * @param session The HttpSession associated with the logged-in user's session.
+     * Fetches the logged-in user from the current session, without querying the database.
+     * @return <code>LoggedInPersonDTO</code> representing the logged-in user.
+     * @throws InsufficientAuthenticationException if no user is logged in.
+     */
+    @GetMapping("/who")
+    public LoggedInPersonDTO fetchLoggedInPerson() throws InsufficientAuthenticationException {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof PersonUserDetails principal))
+            throw new InsufficientAuthenticationException("No user is logged in.");
+        return toLoggedInPersonDTO(principal);
+    }
+
+    /**
+     * Handles the logout API-request. A remembered login is forgotten as well. In stateless mode there is no session
+     * to end, and the client discards its token.
+     * @param request The HttpServletRequest carrying the session and a possible remember-me cookie.
+     * @param response The HttpServletResponse used to remove the session and remember-me cookies.
      * @return ResponseEntity with an ok status and logout successful message.
      * @throws LoggerException if there is a problem with logging an event.
      */
     @GetMapping("/logout")
-    public ResponseEntity<Map<String, String>> performLogout(HttpSession session) throws LoggerException {
+    public ResponseEntity<Map<String, String>> performLogout(HttpServletRequest request, HttpServletResponse response)
+            throws LoggerException {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         auth.setAuthenticated(false);
-        session.invalidate();
-        Logger.logEvent("User logged out: " + auth.getName());
+        verifiedCredentialCache.invalidateCurrentSession();
+        rememberMeServices.logout(request, response, auth);
+        securityContextRepository.saveContext(SecurityContextHolder.createEmptyContext(), request, response);
+        HttpSession session = request.getSession(false);
+        if (session != null)
+            session.invalidate();
+        Logger.logEvent("User logged out: " + auth.getName(),
+                new LogEventDTO(EventType.LOGOUT, auth.getName(), null, null));
 
         Map<String, String> responseMap = new HashMap<>();
         responseMap.put("message", "Logout successful");
@@ -90,22 +204,145 @@ public class PersonController {
     public LoggedInPersonDTO createNewApplicant(@RequestBody @Valid CreateApplicantRequestDTO createApplicantRequest)
             throws UserCreationFailedException, LoggerException {
         LoggedInPersonDTO newApplicant = personService.createApplicantAccount(createApplicantRequest);
-        Logger.logEvent("New applicant registered: " + newApplicant.getUsername());
+        Logger.logEvent("New applicant registered: " + newApplicant.getUsername(), new LogEventDTO(
+                EventType.APPLICANT_REGISTERED, newApplicant.getUsername(), newApplicant.getId(), null));
         return newApplicant;
     }
 
     /**
-     * Fetches all applications.
-     * @return All applications.
+     * Fetches all applications. The response carries the version of the list and the format it is written in as a weak
+     * <code>ETag</code>, and a request whose <code>If-None-Match</code> matches is answered with 304 Not Modified,
+     * without fetching or serializing the list. The <code>ETag</code> is weak because the server compresses the response,
+     * which changes its bytes but not its meaning, and Tomcat does not compress responses carrying a strong one.
+     * @param webRequest The request, checked for <code>Accept</code> and <code>If-None-Match</code>.
+     * @param response The response, marked as varying with <code>Accept</code>.
+     * @return All applications, or <code>null</code> if the list has not been modified.
      */
     @PreAuthorize("hasRole('recruiter')")
     @GetMapping("/applications")
-    public List<ApplicantDTO> fetchApplicants(){
+    public List<ApplicantDTO> fetchApplicants(WebRequest webRequest, HttpServletResponse response){
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        String format = negotiatedFormat(webRequest.getHeader(HttpHeaders.ACCEPT));
+        if (webRequest.checkNotModified("W/\"" + personService.fetchApplicantsVersion() + "-" + format + "\""))
+            return null;
         return personService.fetchApplicants();
     }
 
     /**
-     * Changes the status of an application.
+     * Streams all applications as newline-delimited JSON, written as they are read from the database so that memory
+     * use stays flat however many applications there are.
+     * @return All applications, one JSON object per line.
+     */
+    @PreAuthorize("hasRole('recruiter')")
+    @GetMapping("/applications/stream")
+    public ResponseEntity<StreamingResponseBody> streamApplicants() {
+        StreamingResponseBody body = outputStream -> {
+            try {
+                personService.streamApplicants(applicant -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(applicant));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /**
+     * Exports all applications as a CSV file, streamed to the client as the rows are read from the database. The file
+     * is gzipped if the client accepts gzip.
+     * @param acceptEncoding The <code>Accept-Encoding</code> header of the request, if any.
+     * @return All applications as CSV with a header line, ordered by id.
+     */
+    @PreAuthorize("hasRole('recruiter')")
+    @GetMapping("/applications/export")
+    public ResponseEntity<StreamingResponseBody> exportApplicants(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = outputStream -> {
+            if (!gzip) {
+                applicantExportService.exportApplicantsAsCsv(outputStream);
+                return;
+            }
+            try (OutputStream gzipStream = new GZIPOutputStream(outputStream, EXPORT_GZIP_BUFFER_BYTES)) {
+                applicantExportService.exportApplicantsAsCsv(gzipStream);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(CSV)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("applications.csv").build().toString());
+        if (gzip)
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(body);
+    }
+
+    /**
+     * Subscribes to created applicants and changed application statuses, pushed as server-sent events named
+     * <code>applicant</code> with the applicant as JSON data once the change has been committed. A client that does
+     * not keep up is disconnected, and should fetch all applications again when it reconnects.
+     * @return The emitter the events are sent through.
+     */
+    @PreAuthorize("hasRole('recruiter')")
+    @GetMapping(value = "/applications/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToApplicantChanges() {
+        return applicantEventBroadcaster.subscribe();
+    }
+
+    /**
+     * Searches for applications by the applicant's name, ignoring case and diacritics.
+     * @param query The words to search for, each found anywhere in the first or last name, or at the start of a word
+     *              if shorter than three characters.
+     * @param limit The maximum number of applications to return.
+     * @return The matching applications, ordered by id.
+     */
+    @PreAuthorize("hasRole('recruiter')")
+    @GetMapping("/applications/search")
+    public List<ApplicantDTO> searchApplicants(@RequestParam("q") String query,
+                                               @RequestParam(defaultValue = "20") int limit) {
+        return personService.searchApplicants(query, limit);
+    }
+
+    /**
+     * Fetches the applications created or changed after a high-water mark, so that a client holding the list does not
+     * have to fetch all applications again.
+     * @param since The <code>highWaterMark</code> returned with the previous changes, or omitted to only fetch the
+     *              current high-water mark.
+     * @return The changed applications and the high-water mark to ask for changes after next.
+     */
+    @PreAuthorize("hasRole('recruiter')")
+    @GetMapping("/applications/changes")
+    public ApplicantChangesDTO fetchApplicantChanges(@RequestParam(required = false) Long since) {
+        return personService.fetchApplicantChanges(since);
+    }
+
+    /**
+     * Fetches one page of applications, using keyset pagination so that later pages are as cheap as the first.
+     * @param sort The order of the applications, <code>ID</code> or <code>NAME</code>.
+     * @param status The application status to filter by, or all statuses if omitted.
+     * @param size The maximum number of applications on the page.
+     * @param cursor The <code>nextCursor</code> of the previous page, or omitted for the first page.
+     * @return The page of applications and the cursor of the next page.
+     * @throws InvalidPageCursorException If the cursor is malformed or was returned for another sort order.
+     */
+    @PreAuthorize("hasRole('recruiter')")
+    @GetMapping("/applications/page")
+    public ApplicantPageDTO fetchApplicantPage(@RequestParam(defaultValue = "ID") ApplicantSortOrder sort,
+                                               @RequestParam(required = false) String status,
+                                               @RequestParam(defaultValue = "50") int size,
+                                               @RequestParam(required = false) String cursor)
+            throws InvalidPageCursorException {
+        return personService.fetchApplicantPage(sort, status, size, cursor);
+    }
+
+    /**
+     * Changes the status of an application. The recruiter's credentials are only fully authenticated if they have
+     * not been confirmed recently in the same session.
      * @param request DTO containing application change request data.
      * @return the changed and saved application.
      * @throws LoggerException if there is a problem with logging an event.
@@ -115,24 +352,67 @@ public class PersonController {
     @PostMapping("/changeApplicationStatus")
     public ApplicantDTO changeApplicationStatus(@RequestBody @Valid ChangeApplicationStatusRequestDTO request)
             throws LoggerException, ApplicationHandledException, AuthenticationForLoggedInUserFailed {
-        Authentication requestCredentialAuth;
+        Authentication currentLoggedInRecruiterAuth = SecurityContextHolder.getContext().getAuthentication();
+        if (!currentLoggedInRecruiterAuth.getName().equals(request.getUsername()) ||
+                !verifiedCredentialCache.isVerified(request.getUsername(), request.getPassword())) {
+            Authentication requestCredentialAuth;
+            try {
+                requestCredentialAuth = authenticateRequest(request.getUsername(), request.getPassword());
+            } catch (ServerOverloadedException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new AuthenticationForLoggedInUserFailed("Logged in user provided username or password that " +
+                        "did not match logged in account.");
+            }
+            if (!currentLoggedInRecruiterAuth.getName().equals(requestCredentialAuth.getName()))
+                throw new AuthenticationForLoggedInUserFailed("Logged in user provided username or password that " +
+                        "did not match logged in account.");
+            verifiedCredentialCache.markVerified(request.getUsername(), request.getPassword());
+        }
+        ApplicantDTO changedApplicant = personService.changeApplicantStatus(request);
+        Logger.logEvent("Recruiter " + request.getUsername() + " changed status of applicant " +
+                changedApplicant.getFirstName() + " " + changedApplicant.getLastName() + " to " +
+                changedApplicant.getStatus() + ".", new LogEventDTO(EventType.APPLICATION_STATUS_CHANGED,
+                request.getUsername(), changedApplicant.getId(), changedApplicant.getStatus()));
+        return changedApplicant;
+    }
+
+    private String negotiatedFormat(String accept) {
+        List<MediaType> acceptedTypes;
         try {
-            requestCredentialAuth = authenticateRequest(request.getUsername(), request.getPassword());
-        } catch (Exception e) {
-            throw new AuthenticationForLoggedInUserFailed("Logged in user provided username or password that did not " +
-                    "match logged in account.");
+            acceptedTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            acceptedTypes = new ArrayList<>();
         }
-        Authentication currentLoggedInRecruiterAuth = SecurityContextHolder.getContext().getAuthentication();
-        if (currentLoggedInRecruiterAuth.equals(requestCredentialAuth)) {
-            ApplicantDTO changedApplicant = personService.changeApplicantStatus(request);
-            Logger.logEvent("Recruiter " + request.getUsername() + " changed status of applicant " +
-                    changedApplicant.getFirstName() + " " + changedApplicant.getLastName() + " to " +
-                    changedApplicant.getStatus() + ".");
-            return changedApplicant;
-        } else {
-            throw new AuthenticationForLoggedInUserFailed("Logged in user provided username or password that did not " +
-                    "match logged in account.");
+        if (acceptedTypes.isEmpty())
+            acceptedTypes.add(MediaType.ALL);
+        MimeTypeUtils.sortBySpecificity(acceptedTypes);
+        for (MediaType acceptedType : acceptedTypes)
+            for (MediaType format : API_FORMATS)
+                if (acceptedType.getQualityValue() > 0 && acceptedType.isCompatibleWith(format))
+                    return format.getSubtype();
+        return API_FORMATS.get(0).getSubtype();
+    }
+
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            if (!parameters[0].strip().equalsIgnoreCase("gzip"))
+                continue;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].strip();
+                if (parameter.startsWith("q=") && parameter.substring(2).matches("0(\\.0*)?"))
+                    return false;
+            }
+            return true;
         }
+        return false;
+    }
+
+    private LoggedInPersonDTO toLoggedInPersonDTO(PersonUserDetails principal) {
+        return new LoggedInPersonDTO(principal.getPersonId(), principal.getUsername(), principal.getRoleName());
     }
 
     private Authentication authenticateRequest(String username, String password) throws BadCredentialsException {
@@ -145,10 +425,13 @@ public class PersonController {
         return authenticationResponse;
     }
 
-    private void saveAuthenticatedUserInSession(Authentication authenticationResponse, HttpSession session) {
-        SecurityContextHolder.getContext().setAuthentication(authenticationResponse);
-        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
-                SecurityContextHolder.getContext());
+    private void saveAuthenticatedUser(Authentication authenticationResponse, HttpServletRequest request,
+                                       HttpServletResponse response) {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(Objects.requireNonNullElse(PersonAuthentication.of(authenticationResponse),
+                authenticationResponse));
+        SecurityContextHolder.setContext(context);
+        securityContextRepository.saveContext(context, request, response);
     }
 }
 
@@ -0,0 +1,23 @@
+package kth.iv1201.gohire.controller.exception;
+
+
+/**
+ * Exception thrown when a login attempt is rejected because too many attempts were made recently.
+ */
+public class LoginThrottledException extends Exception{
+    private final long retryAfterSeconds;
+
+    /**
+     * Creates an instance of a throwable <code>LoginThrottledException</code>.
+     * @param message Exception message.
+     * @param retryAfterSeconds The number of seconds after which a new attempt will be allowed.
+     */
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
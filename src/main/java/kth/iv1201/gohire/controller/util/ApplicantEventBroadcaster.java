@@ -0,0 +1,196 @@
+package kth.iv1201.gohire.controller.util;
+
+import jakarta.annotation.PreDestroy;
+import kth.iv1201.gohire.DTO.ApplicantDTO;
+import kth.iv1201.gohire.service.ApplicantChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pushes created and changed applicants to subscribed recruiters as server-sent events, once the change has been
+ * committed. Every subscriber has a bounded buffer of events not yet sent, and a subscriber whose buffer is full is
+ * considered too slow and is disconnected, so that it can never hold back the others or grow without limit. A
+ * disconnected client reloads the list when it reconnects. One shared fan-out thread hands the pending events of each
+ * subscriber to a pool of writer threads, one write at a time per subscriber, and sends a heartbeat comment to idle
+ * subscribers so that closed connections are noticed. As writes block, the fan-out thread never writes itself, and a
+ * subscriber whose write has not finished within the write timeout is considered stalled and is disconnected as well.
+ * Disconnected emitters are completed on a writer thread, since completing waits for a stalled write.
+ */
+@Component
+public class ApplicantEventBroadcaster {
+    private static final String EVENT_NAME = "applicant";
+    private static final long IDLE = Long.MIN_VALUE;
+
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong droppedSubscribers = new AtomicLong();
+    private final int bufferCapacity;
+    private final long emitterTimeoutMillis;
+    private final long heartbeatIntervalNanos;
+    private final long writeTimeoutNanos;
+    private final ExecutorService writers;
+    private final Thread fanOutThread;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a new <code>ApplicantEventBroadcaster</code> and starts its fan-out thread.
+     * @param bufferCapacity The maximum number of events waiting to be sent to one subscriber.
+     * @param emitterTimeoutMillis How long a subscription lasts before the client has to reconnect.
+     * @param heartbeatIntervalMillis How often a heartbeat is sent when there are no events.
+     * @param writeTimeoutMillis How long a write to one subscriber may take before the subscriber is disconnected.
+     */
+    public ApplicantEventBroadcaster(@Value("${gohire.applicants.events.buffer-capacity:64}") int bufferCapacity,
+                                     @Value("${gohire.applicants.events.timeout-millis:1800000}") long emitterTimeoutMillis,
+                                     @Value("${gohire.applicants.events.heartbeat-interval-millis:30000}") long heartbeatIntervalMillis,
+                                     @Value("${gohire.applicants.events.write-timeout-millis:10000}") long writeTimeoutMillis) {
+        this.bufferCapacity = bufferCapacity;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.heartbeatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMillis);
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "gohire-applicant-events-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.fanOutThread = new Thread(this::fanOutLoop, "gohire-applicant-events");
+        this.fanOutThread.setDaemon(true);
+        this.fanOutThread.start();
+    }
+
+    /**
+     * Subscribes the current client to created and changed applicants.
+     * @return The <code>SseEmitter</code> the events are sent through.
+     */
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(emitterTimeoutMillis));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(bufferCapacity), new AtomicLong(IDLE));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Queues a committed change of an applicant for every subscriber, disconnecting subscribers whose buffer is full.
+     * @param event The event describing the created or changed applicant.
+     */
+    @TransactionalEventListener
+    public void onApplicantChanged(ApplicantChangedEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.pending().offer(event.getApplicant()))
+                drop(subscriber);
+        }
+        LockSupport.unpark(fanOutThread);
+    }
+
+    /**
+     * Stops the fan-out thread and disconnects every subscriber.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(fanOutThread);
+        try {
+            fanOutThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Subscriber subscriber : subscribers)
+            complete(subscriber.emitter());
+        subscribers.clear();
+        writers.shutdown();
+    }
+
+    /**
+     * @return The number of currently subscribed clients.
+     */
+    public int getSubscribers() {
+        return subscribers.size();
+    }
+
+    /**
+     * @return The total number of subscribers disconnected because they did not keep up with the events or stalled.
+     */
+    public long getDroppedSubscribers() {
+        return droppedSubscribers.get();
+    }
+
+    private void fanOutLoop() {
+        long lastHeartbeat = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            boolean heartbeat = now - lastHeartbeat >= heartbeatIntervalNanos;
+            for (Subscriber subscriber : subscribers) {
+                long writeStarted = subscriber.writeStarted().get();
+                if (writeStarted != IDLE) {
+                    if (now - writeStarted > writeTimeoutNanos)
+                        drop(subscriber);
+                } else if (heartbeat || !subscriber.pending().isEmpty()) {
+                    subscriber.writeStarted().set(now);
+                    writers.execute(() -> send(subscriber, heartbeat));
+                }
+            }
+            if (heartbeat)
+                lastHeartbeat = now;
+            LockSupport.parkNanos(this, Math.min(heartbeatIntervalNanos, writeTimeoutNanos));
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            droppedSubscribers.incrementAndGet();
+            complete(subscriber.emitter());
+        }
+    }
+
+    private void complete(SseEmitter emitter) {
+        try {
+            writers.execute(emitter::complete);
+        } catch (RejectedExecutionException stopped) {
+            emitter.complete();
+        }
+    }
+
+    private void send(Subscriber subscriber, boolean heartbeat) {
+        try {
+            ApplicantDTO applicant;
+            boolean sent = false;
+            while ((applicant = subscriber.pending().poll()) != null) {
+                subscriber.emitter().send(SseEmitter.event().name(EVENT_NAME)
+                        .data(applicant, MediaType.APPLICATION_JSON));
+                sent = true;
+            }
+            if (heartbeat && !sent)
+                subscriber.emitter().send(SseEmitter.event().comment("heartbeat"));
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.emitter().completeWithError(e);
+        } finally {
+            subscriber.writeStarted().set(IDLE);
+            if (!subscriber.pending().isEmpty())
+                LockSupport.unpark(fanOutThread);
+        }
+    }
+
+    private record Subscriber(SseEmitter emitter, BlockingQueue<ApplicantDTO> pending, AtomicLong writeStarted) {
+    }
+}
@@ -0,0 +1,10 @@
+package kth.iv1201.gohire.controller.util;
+
+/**
+ * ENUM representing the order in which pages of applicants are listed.
+ */
+public enum ApplicantSortOrder {
+    ID,
+    NAME,
+
+}
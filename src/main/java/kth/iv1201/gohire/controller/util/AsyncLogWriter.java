@@ -0,0 +1,194 @@
+package kth.iv1201.gohire.controller.util;
+
+import kth.iv1201.gohire.DTO.LogEventDTO;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Background writer used by the <code>Logger</code> in asynchronous mode. Producers put entries on a bounded
+ * lock-free queue and a single writer thread appends them in batches to the open <code>RollingLogFile</code>s and the
+ * <code>StructuredEventLog</code>. Producers announce themselves while they queue an entry, and <code>stop</code> waits for
+ * the announced producers before the writer thread writes the last entries, so an entry is either written or handed
+ * back to its producer, never lost.
+ */
+class AsyncLogWriter {
+
+    private static final long BLOCKED_PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final ConcurrentLinkedQueue<LogEntry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedEntries = new AtomicInteger();
+    private final AtomicInteger activeProducers = new AtomicInteger();
+    private final AtomicLong droppedEntries;
+    private final AtomicLong overflowingEntries = new AtomicLong();
+    private final Function<String, RollingLogFile> logFiles;
+    private final StructuredEventLog structuredEventLog;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    private volatile boolean producersDone;
+
+    /**
+     * Creates and starts a new <code>AsyncLogWriter</code>.
+     * @param logFiles Looks up the <code>RollingLogFile</code> of a log name.
+     * @param structuredEventLog The log structured events are appended to.
+     * @param queueCapacity The maximum number of entries waiting to be written.
+     * @param batchSize The maximum number of entries written in one batch.
+     * @param flushIntervalMillis The longest time an entry waits in the queue when traffic is low.
+     * @param overflowPolicy What to do with new entries when the queue is full.
+     * @param sampleRate With <code>OverflowPolicy.SAMPLE</code>, one in this many overflowing entries is kept.
+     * @param droppedEntries The counter dropped entries are added to, outliving the writer.
+     */
+    AsyncLogWriter(Function<String, RollingLogFile> logFiles, StructuredEventLog structuredEventLog, int queueCapacity,
+                   int batchSize, long flushIntervalMillis, OverflowPolicy overflowPolicy, int sampleRate,
+                   AtomicLong droppedEntries) {
+        this.logFiles = logFiles;
+        this.structuredEventLog = structuredEventLog;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.droppedEntries = droppedEntries;
+        this.writerThread = new Thread(this::writeLoop, "gohire-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues an entry to be appended to the named log.
+     * @param logName The name of the log, without date prefix.
+     * @param date The date the entry belongs to.
+     * @param text The complete text of the entry.
+     * @param event The structured form of the entry, or <code>null</code> if it has none.
+     * @return <code>false</code> if the writer has been stopped and the caller must write the entry itself.
+     */
+    boolean submit(String logName, LocalDate date, String text, LogEventDTO event) {
+        activeProducers.incrementAndGet();
+        try {
+            return offer(new LogEntry(logName, date, text, event));
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stops the writer after everything already queued, and everything queued by producers that were queueing when
+     * the writer was stopped, has been written.
+     */
+    void stop() {
+        running = false;
+        while (activeProducers.get() > 0)
+            waitForSpace();
+        producersDone = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return The number of entries currently waiting to be written.
+     */
+    int getQueuedEntries() {
+        return queuedEntries.get();
+    }
+
+    private boolean offer(LogEntry entry) {
+        while (running) {
+            int queued = queuedEntries.get();
+            if (queued < queueCapacity) {
+                if (queuedEntries.compareAndSet(queued, queued + 1)) {
+                    queue.offer(entry);
+                    if (queued + 1 == batchSize)
+                        LockSupport.unpark(writerThread);
+                    return true;
+                }
+                continue;
+            }
+            if (overflowPolicy == OverflowPolicy.DROP ||
+                    (overflowPolicy == OverflowPolicy.SAMPLE && overflowingEntries.incrementAndGet() % sampleRate != 0)) {
+                droppedEntries.incrementAndGet();
+                return true;
+            }
+            waitForSpace();
+        }
+        return false;
+    }
+
+    private void waitForSpace() {
+        LockSupport.unpark(writerThread);
+        LockSupport.parkNanos(this, BLOCKED_PRODUCER_PARK_NANOS);
+    }
+
+    private void writeLoop() {
+        List<LogEntry> batch = new ArrayList<>(batchSize);
+        while (!producersDone || !queue.isEmpty()) {
+            drainBatch(batch);
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+                continue;
+            }
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void drainBatch(List<LogEntry> batch) {
+        LogEntry entry;
+        while (batch.size() < batchSize && (entry = queue.poll()) != null)
+            batch.add(entry);
+        queuedEntries.addAndGet(-batch.size());
+    }
+
+    private void writeBatch(List<LogEntry> batch) {
+        Map<String, List<LogEntry>> entriesPerFile = new LinkedHashMap<>();
+        List<LogEventDTO> events = new ArrayList<>();
+        for (LogEntry entry : batch) {
+            entriesPerFile.computeIfAbsent(entry.fileName(), fileName -> new ArrayList<>()).add(entry);
+            if (entry.event() != null)
+                events.add(entry.event());
+        }
+        for (List<LogEntry> entries : entriesPerFile.values()) {
+            StringBuilder text = new StringBuilder();
+            for (LogEntry entry : entries)
+                text.append(entry.text());
+            LogEntry first = entries.get(0);
+            try {
+                logFiles.apply(first.logName()).append(first.date(), text.toString());
+            } catch (IOException e) {
+                droppedEntries.addAndGet(entries.size());
+                System.out.println(new LoggerException("Logger failed to write to log. Caused by: \n" + e));
+            }
+        }
+        if (events.isEmpty())
+            return;
+        try {
+            structuredEventLog.append(events);
+        } catch (IOException e) {
+            System.out.println(new LoggerException("Logger failed to write to event log. Caused by: \n" + e));
+        }
+    }
+
+    private record LogEntry(String logName, LocalDate date, String text, LogEventDTO event) {
+        String fileName() {
+            return date + "_" + logName;
+        }
+    }
+}
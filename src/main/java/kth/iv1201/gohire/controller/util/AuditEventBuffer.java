@@ -0,0 +1,262 @@
+package kth.iv1201.gohire.controller.util;
+
+import kth.iv1201.gohire.DTO.EventType;
+import kth.iv1201.gohire.DTO.LogEventDTO;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory buffer of events waiting to be written to the audit table. Events that do not fit in the buffer
+ * are collected in an overflow list of the same size, which is appended to a local spill file in one write when it is
+ * full or when the flusher calls <code>spillOverflow</code>, so that request threads do not write each event to disk.
+ * Events that could not be written because the database is unavailable are spilled as well. Spilled events
+ * are handed out again in batches by <code>readSpilled</code>, and a batch is only removed from the file once
+ * <code>markSpilledSaved</code> confirms it has been committed, so a crash replays at most the last batch.
+ * <p>
+ * The spill file is renamed before it is read, so that events spilled meanwhile go to a new file. The offset up to
+ * which the renamed file has been saved is kept in a small file next to it, and the renamed file is deleted when all of
+ * it has been saved.
+ */
+public class AuditEventBuffer {
+
+    private static final String NO_VALUE = "";
+    private static final int NO_SUBJECT = -1;
+
+    private final ArrayBlockingQueue<LogEventDTO> queue;
+    private final ConcurrentLinkedQueue<LogEventDTO> overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger overflowSize = new AtomicInteger();
+    private final int overflowCapacity;
+    private final Path spillFile;
+    private final Path takenFile;
+    private final Path savedOffsetFile;
+    private long pendingOffset = -1;
+    private final AtomicLong spilledEvents = new AtomicLong();
+
+    /**
+     * Creates a new <code>AuditEventBuffer</code>.
+     * @param capacity The maximum number of events kept in the buffer, and in the overflow list.
+     * @param spillFile The file events are written to when they can not be kept in memory or persisted.
+     */
+    public AuditEventBuffer(int capacity, Path spillFile) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflowCapacity = capacity;
+        this.spillFile = spillFile;
+        this.takenFile = Path.of(spillFile + ".taken");
+        this.savedOffsetFile = Path.of(spillFile + ".offset");
+    }
+
+    /**
+     * Buffers an event without blocking. If the buffer is full the event is added to the overflow list instead, and
+     * the thread that fills the overflow list spills all of it to disk at once.
+     * @param event The event to buffer.
+     */
+    public void offer(LogEventDTO event) {
+        if (queue.offer(event))
+            return;
+        overflow.add(event);
+        if (overflowSize.incrementAndGet() >= overflowCapacity)
+            spillOverflow();
+    }
+
+    /**
+     * Appends the events of the overflow list to the spill file in one write.
+     */
+    public void spillOverflow() {
+        List<LogEventDTO> events = new ArrayList<>();
+        LogEventDTO event;
+        while ((event = overflow.poll()) != null) {
+            overflowSize.decrementAndGet();
+            events.add(event);
+        }
+        if (!events.isEmpty())
+            spill(events);
+    }
+
+    /**
+     * Removes up to <code>maxEvents</code> buffered events, oldest first.
+     * @param maxEvents The maximum number of events to remove.
+     * @return The removed events.
+     */
+    public List<LogEventDTO> drain(int maxEvents) {
+        List<LogEventDTO> events = new ArrayList<>(Math.min(maxEvents, queue.size()));
+        queue.drainTo(events, maxEvents);
+        return events;
+    }
+
+    /**
+     * Appends events to the spill file.
+     * @param events The events to spill.
+     */
+    public synchronized void spill(List<LogEventDTO> events) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)))) {
+            for (LogEventDTO event : events) {
+                out.writeLong(event.getTimestamp().toEpochMilli());
+                out.writeUTF(event.getType().name());
+                out.writeUTF(event.getActor() == null ? NO_VALUE : event.getActor());
+                out.writeInt(event.getSubjectId() == null ? NO_SUBJECT : event.getSubjectId());
+                out.writeUTF(event.getDetail() == null ? NO_VALUE : event.getDetail());
+            }
+            spilledEvents.addAndGet(events.size());
+        } catch (IOException e) {
+            System.out.println(new LoggerException("Failed to spill " + events.size() + " audit events. Caused by: \n" + e));
+        }
+    }
+
+    /**
+     * Reads the next batch of spilled events after those already saved. The same batch is returned again until it is
+     * confirmed by <code>markSpilledSaved</code>. A record cut short by a crash is skipped. A record that can not be
+     * decoded ends the batch before it, and when it is reached again the rest of the file is moved aside to a
+     * <code>.corrupt</code> file, so that the events spilled after it are still replayed.
+     * @param maxEvents The maximum number of events to read.
+     * @return The spilled events, oldest first, or an empty list if there are none.
+     */
+    public synchronized List<LogEventDTO> readSpilled(int maxEvents) {
+        List<LogEventDTO> events = new ArrayList<>();
+        try {
+            if (!Files.exists(takenFile)) {
+                if (!Files.exists(spillFile))
+                    return events;
+                Files.move(spillFile, takenFile, StandardCopyOption.ATOMIC_MOVE);
+                Files.deleteIfExists(savedOffsetFile);
+            }
+            long savedOffset = readSavedOffset();
+            RuntimeException corruptRecord = null;
+            try (FileChannel channel = FileChannel.open(takenFile, StandardOpenOption.READ)) {
+                CountingInputStream counter = new CountingInputStream(
+                        new BufferedInputStream(Channels.newInputStream(channel.position(savedOffset))));
+                DataInputStream in = new DataInputStream(counter);
+                long recordEnd = savedOffset;
+                try {
+                    while (events.size() < maxEvents) {
+                        Instant timestamp = Instant.ofEpochMilli(in.readLong());
+                        EventType type = EventType.valueOf(in.readUTF());
+                        String actor = in.readUTF();
+                        int subjectId = in.readInt();
+                        String detail = in.readUTF();
+                        events.add(new LogEventDTO(type, actor.isEmpty() ? null : actor,
+                                subjectId == NO_SUBJECT ? null : subjectId, detail.isEmpty() ? null : detail, timestamp));
+                        recordEnd = savedOffset + counter.count;
+                    }
+                } catch (EOFException endOfSpillFile) {
+                    if (events.isEmpty()) {
+                        Files.delete(takenFile);
+                        Files.deleteIfExists(savedOffsetFile);
+                        return readSpilledAfterTaken(maxEvents);
+                    }
+                } catch (UTFDataFormatException e) {
+                    corruptRecord = new IllegalArgumentException(e);
+                } catch (IllegalArgumentException | DateTimeException e) {
+                    corruptRecord = e;
+                }
+                pendingOffset = recordEnd;
+            }
+            if (corruptRecord != null && events.isEmpty()) {
+                pendingOffset = -1;
+                setCorruptSpillFileAside(savedOffset, corruptRecord);
+                return readSpilledAfterTaken(maxEvents);
+            }
+        } catch (IOException e) {
+            System.out.println(new LoggerException("Failed to read spilled audit events. Caused by: \n" + e));
+            events.clear();
+        }
+        return events;
+    }
+
+    /**
+     * Confirms that the batch last returned by <code>readSpilled</code> has been committed, so that it is not returned
+     * again.
+     */
+    public synchronized void markSpilledSaved() {
+        if (pendingOffset < 0)
+            return;
+        try {
+            Path temporary = Path.of(savedOffsetFile + ".tmp");
+            Files.write(temporary, ByteBuffer.allocate(Long.BYTES).putLong(pendingOffset).array());
+            Files.move(temporary, savedOffsetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println(new LoggerException("Failed to record saved audit events. Caused by: \n" + e));
+        }
+        pendingOffset = -1;
+    }
+
+    /**
+     * @return The number of events currently buffered in memory, including the overflow list.
+     */
+    public int getBufferedEvents() {
+        return queue.size() + overflowSize.get();
+    }
+
+    /**
+     * @return The total number of events written to the spill file.
+     */
+    public long getSpilledEvents() {
+        return spilledEvents.get();
+    }
+
+    private void setCorruptSpillFileAside(long savedOffset, RuntimeException corruptRecord) throws IOException {
+        Path corruptFile = Path.of(spillFile + ".corrupt." + System.currentTimeMillis());
+        Files.move(takenFile, corruptFile, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(savedOffsetFile);
+        System.out.println(new LoggerException("Spilled audit event at offset " + savedOffset + " could not be read, " +
+                "the rest of the spill file was moved to " + corruptFile + ". Caused by: \n" + corruptRecord));
+    }
+
+    private List<LogEventDTO> readSpilledAfterTaken(int maxEvents) {
+        return Files.exists(spillFile) ? readSpilled(maxEvents) : new ArrayList<>();
+    }
+
+    private long readSavedOffset() throws IOException {
+        if (!Files.exists(savedOffsetFile))
+            return 0;
+        byte[] offset = Files.readAllBytes(savedOffsetFile);
+        return offset.length == Long.BYTES ? ByteBuffer.wrap(offset).getLong() : 0;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0)
+                count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0)
+                count += read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package kth.iv1201.gohire.controller.util;
+
+import kth.iv1201.gohire.DTO.LoggedInPersonDTO;
+import kth.iv1201.gohire.service.PersonUserDetails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Issues and verifies the signed tokens carrying the authentication of a logged-in user in stateless mode. A token
+ * is the URL-safe Base64 of a binary payload and of its HMAC-SHA256, separated by a dot. The payload holds a format
+ * version, the id of the signing key, the expiry time, the person id, the role name and the username, so verifying a
+ * token needs neither a session nor the database.
+ * <p>
+ * Keys are configured as a comma separated list of <code>id:base64-secret</code>. New tokens are signed with the
+ * signing key, while every configured key is accepted, so a key can be rotated by adding a new key, making it the
+ * signing key and removing the old key once its tokens have expired.
+ */
+@Component
+public class AuthenticationTokens {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final byte FORMAT_VERSION = 1;
+    private static final int GENERATED_KEY_BYTES = 32;
+    private static final String GENERATED_KEY_ID = "local";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecurityMode securityMode;
+    private final Map<String, SecretKeySpec> keys = new HashMap<>();
+    private final String signingKeyId;
+    private final Duration timeToLive;
+    private final Clock clock;
+
+    /**
+     * Creates a new <code>AuthenticationTokens</code>. Without configured keys a random key is generated, which is
+     * only valid as long as this instance runs.
+     * @param securityMode Where the authentication of a logged-in user is kept.
+     * @param configuredKeys The keys accepted when verifying, as <code>id:base64-secret</code> pairs.
+     * @param signingKeyId The id of the key new tokens are signed with.
+     * @param timeToLiveSeconds How long an issued token is valid.
+     */
+    @Autowired
+    public AuthenticationTokens(@Value("${gohire.security.mode:session}") SecurityMode securityMode,
+                                @Value("${gohire.security.token.keys:}") String configuredKeys,
+                                @Value("${gohire.security.token.signing-key-id:}") String signingKeyId,
+                                @Value("${gohire.security.token.ttl-seconds:3600}") long timeToLiveSeconds) {
+        this(securityMode, configuredKeys, signingKeyId, Duration.ofSeconds(timeToLiveSeconds), Clock.systemUTC());
+    }
+
+    AuthenticationTokens(SecurityMode securityMode, String configuredKeys, String signingKeyId, Duration timeToLive,
+                         Clock clock) {
+        this.securityMode = securityMode;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        for (String configuredKey : configuredKeys.split(",")) {
+            if (configuredKey.isBlank())
+                continue;
+            String[] idAndSecret = configuredKey.trim().split(":", 2);
+            if (idAndSecret.length != 2 || idAndSecret[0].length() > Byte.MAX_VALUE)
+                throw new IllegalArgumentException("Token keys must be given as id:base64-secret.");
+            keys.put(idAndSecret[0], new SecretKeySpec(Base64.getDecoder().decode(idAndSecret[1]), HMAC_ALGORITHM));
+        }
+        if (keys.isEmpty()) {
+            byte[] secret = new byte[GENERATED_KEY_BYTES];
+            new SecureRandom().nextBytes(secret);
+            keys.put(GENERATED_KEY_ID, new SecretKeySpec(secret, HMAC_ALGORITHM));
+            signingKeyId = GENERATED_KEY_ID;
+        } else if (signingKeyId.isEmpty() && keys.size() == 1) {
+            signingKeyId = keys.keySet().iterator().next();
+        }
+        if (!keys.containsKey(signingKeyId))
+            throw new IllegalArgumentException("The token signing key " + signingKeyId + " is not configured.");
+        this.signingKeyId = signingKeyId;
+    }
+
+    /**
+     * @return <code>true</code> if logged-in users are identified by tokens instead of sessions.
+     */
+    public boolean isEnabled() {
+        return securityMode == SecurityMode.STATELESS;
+    }
+
+    /**
+     * Issues a token for an authenticated person.
+     * @param person The authenticated person.
+     * @return The signed token.
+     */
+    public String issue(LoggedInPersonDTO person) {
+        byte[] keyId = signingKeyId.getBytes(StandardCharsets.UTF_8);
+        byte[] role = person.getRole().getBytes(StandardCharsets.UTF_8);
+        byte[] username = person.getUsername().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(1 + 1 + keyId.length + Long.BYTES + Integer.BYTES +
+                Short.BYTES + role.length + Short.BYTES + username.length);
+        payload.put(FORMAT_VERSION)
+                .put((byte) keyId.length).put(keyId)
+                .putLong(clock.instant().plus(timeToLive).getEpochSecond())
+                .putInt(person.getId())
+                .putShort((short) role.length).put(role)
+                .putShort((short) username.length).put(username);
+        byte[] payloadBytes = payload.array();
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(signingKeyId, payloadBytes));
+    }
+
+    /**
+     * Verifies a token and reads the person it was issued for.
+     * @param token The token to verify.
+     * @return The person, or <code>null</code> if the token is malformed, expired or not signed by a known key.
+     */
+    public PersonUserDetails verify(String token) {
+        int separator = token.indexOf('.');
+        if (separator < 0)
+            return null;
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, separator));
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            ByteBuffer payload = ByteBuffer.wrap(payloadBytes);
+            if (payload.get() != FORMAT_VERSION)
+                return null;
+            String keyId = readString(payload, payload.get());
+            if (!keys.containsKey(keyId) || !MessageDigest.isEqual(signature, sign(keyId, payloadBytes)))
+                return null;
+            if (payload.getLong() < clock.instant().getEpochSecond())
+                return null;
+            int personId = payload.getInt();
+            String role = readString(payload, payload.getShort());
+            String username = readString(payload, payload.getShort());
+            return new PersonUserDetails(personId, username, "", role);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    private static String readString(ByteBuffer payload, int length) {
+        if (length < 0)
+            throw new IllegalArgumentException("Negative length in token.");
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte[] sign(String keyId, byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(keys.get(keyId));
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available.", e);
+        }
+    }
+}
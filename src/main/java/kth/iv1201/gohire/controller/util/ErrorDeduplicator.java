@@ -0,0 +1,137 @@
+package kth.iv1201.gohire.controller.util;
+
+import kth.iv1201.gohire.DTO.ErrorFingerprintDTO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fingerprints exceptions by class and top stack frames, so that the <code>Logger</code> only writes the full stack
+ * trace of an error the first time it occurs within a time window and counts the repeated occurrences.
+ */
+class ErrorDeduplicator {
+
+    private static final int FRAMES_IN_FINGERPRINT = 5;
+    private static final int MAX_TRACKED_FINGERPRINTS = 1000;
+
+    private final ConcurrentHashMap<String, TrackedError> trackedErrors = new ConcurrentHashMap<>();
+    private volatile long windowMillis;
+
+    /**
+     * Creates a new <code>ErrorDeduplicator</code>.
+     * @param windowMillis The time window in which repeated errors are only counted, 0 to write every error in full.
+     */
+    ErrorDeduplicator(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Calculates the fingerprint of an exception from its class and top stack frames.
+     * @param exception The exception to fingerprint.
+     * @return The fingerprint as a hexadecimal string.
+     */
+    static String fingerprintOf(Exception exception) {
+        StringBuilder identity = new StringBuilder(exception.getClass().getName());
+        StackTraceElement[] stackTrace = exception.getStackTrace();
+        for (int i = 0; i < Math.min(FRAMES_IN_FINGERPRINT, stackTrace.length); i++)
+            identity.append('|').append(stackTrace[i].getClassName()).append('.')
+                    .append(stackTrace[i].getMethodName()).append(':').append(stackTrace[i].getLineNumber());
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < identity.length(); i++) {
+            hash ^= identity.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return String.format("%016x", hash);
+    }
+
+    /**
+     * Registers an occurrence of the supplied exception.
+     * @param exception The exception that occurred.
+     * @param fingerprint The fingerprint of the exception.
+     * @return <code>true</code> if the full stack trace should be written, <code>false</code> if the occurrence was
+     * only counted.
+     */
+    boolean registerOccurrence(Exception exception, String fingerprint) {
+        long now = System.currentTimeMillis();
+        TrackedError trackedError = trackedErrors.get(fingerprint);
+        if (trackedError == null) {
+            if (trackedErrors.size() >= MAX_TRACKED_FINGERPRINTS)
+                return true;
+            trackedError = trackedErrors.computeIfAbsent(fingerprint, key -> new TrackedError(key, exception));
+        }
+        return trackedError.registerOccurrence(exception, now, windowMillis);
+    }
+
+    /**
+     * Resets the counters of occurrences that were not written to the log.
+     * @return One log message for every fingerprint with occurrences that were only counted since the last call.
+     */
+    List<String> drainSuppressedCounts() {
+        List<String> messages = new ArrayList<>();
+        for (TrackedError trackedError : trackedErrors.values()) {
+            long suppressed = trackedError.suppressedOccurrences.getAndSet(0);
+            if (suppressed > 0)
+                messages.add("Error " + trackedError.fingerprint + " (" + trackedError.exceptionClass + " at " +
+                        trackedError.topFrame + ") occurred " + suppressed + " more times without being logged in full.");
+        }
+        return messages;
+    }
+
+    /**
+     * Summarizes the most frequent errors.
+     * @param limit The maximum number of fingerprints to include.
+     * @return The fingerprints with the highest number of occurrences, most frequent first.
+     */
+    List<ErrorFingerprintDTO> topFingerprints(int limit) {
+        return trackedErrors.values().stream()
+                .map(TrackedError::toDTO)
+                .sorted(Comparator.comparingLong(ErrorFingerprintDTO::getCount).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private static class TrackedError {
+        private final String fingerprint;
+        private final String exceptionClass;
+        private final String topFrame;
+        private final LocalDateTime firstSeen = LocalDateTime.now();
+        private final AtomicLong occurrences = new AtomicLong();
+        private final AtomicLong suppressedOccurrences = new AtomicLong();
+        private final AtomicLong windowStart = new AtomicLong(Long.MIN_VALUE);
+        private volatile String lastMessage;
+        private volatile LocalDateTime lastSeen;
+
+        TrackedError(String fingerprint, Exception exception) {
+            this.fingerprint = fingerprint;
+            this.exceptionClass = exception.getClass().getName();
+            StackTraceElement[] stackTrace = exception.getStackTrace();
+            this.topFrame = stackTrace.length > 0 ? stackTrace[0].toString() : "unknown";
+        }
+
+        boolean registerOccurrence(Exception exception, long now, long windowMillis) {
+            occurrences.incrementAndGet();
+            lastMessage = exception.getMessage();
+            lastSeen = LocalDateTime.now();
+            if (windowMillis <= 0)
+                return true;
+            long start = windowStart.get();
+            if ((start == Long.MIN_VALUE || now - start >= windowMillis) && windowStart.compareAndSet(start, now))
+                return true;
+            suppressedOccurrences.incrementAndGet();
+            return false;
+        }
+
+        ErrorFingerprintDTO toDTO() {
+            return new ErrorFingerprintDTO(fingerprint, exceptionClass, topFrame, lastMessage, occurrences.get(),
+                    firstSeen, lastSeen);
+        }
+    }
+}
@@ -12,5 +12,7 @@ public enum ErrorType {
     USERNAME_ALREADY_EXISTS,
     SERVER_INTERNAL,
     AUTHENTICATION_FAIL,
+    SERVER_OVERLOADED,
+    TOO_MANY_LOGIN_ATTEMPTS,
 
 }
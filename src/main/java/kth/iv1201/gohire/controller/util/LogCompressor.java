@@ -0,0 +1,193 @@
+package kth.iv1201.gohire.controller.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compresses closed log segments on a low-priority background thread and enforces the retention of every log
+ * artifact: compressed text segments, and the binary segments and indexes of the structured event log of earlier days.
+ * Artifacts older than the maximum age are deleted, and the oldest ones are deleted when all logs together use more
+ * disk than allowed. The binary segment and indexes of one day are always deleted together. Structured segments stay
+ * uncompressed, since they are queried through memory mappings.
+ */
+class LogCompressor {
+
+    static final String COMPRESSED_SUFFIX = ".gz";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final Pattern LOG_ARTIFACT = Pattern.compile("(\\d{4}-\\d{2}-\\d{2})_.*log.*");
+    private static final List<String> STRUCTURED_SUFFIXES = List.of(".bin", ".tidx", ".aidx");
+
+    private final Path directory;
+    private final ExecutorService executor;
+    private volatile long maxTotalBytes;
+    private volatile int maxAgeDays;
+
+    /**
+     * Creates a new <code>LogCompressor</code>.
+     * @param directory The directory containing the log files.
+     * @param maxTotalBytes The maximum disk usage of all log files, 0 for no limit.
+     */
+    LogCompressor(Path directory, long maxTotalBytes) {
+        this.directory = directory;
+        this.maxTotalBytes = maxTotalBytes;
+        this.executor = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "gohire-log-compressor");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    void setMaxTotalBytes(long maxTotalBytes) {
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    void setMaxAgeDays(int maxAgeDays) {
+        this.maxAgeDays = maxAgeDays;
+    }
+
+    /**
+     * Queues a retention check, for logs that roll over without handing a segment to compress. Returns immediately.
+     */
+    void enforceRetentionInBackground() {
+        executor.execute(this::enforceRetention);
+    }
+
+    /**
+     * Queues a closed segment for compression. Returns immediately.
+     * @param segment The closed log segment.
+     */
+    void compressInBackground(Path segment) {
+        executor.execute(() -> {
+            compress(segment);
+            enforceRetention();
+        });
+    }
+
+    private void compress(Path segment) {
+        Path compressed = Path.of(segment + COMPRESSED_SUFFIX);
+        Path temporary = Path.of(compressed + TEMPORARY_SUFFIX);
+        try (InputStream in = Files.newInputStream(segment);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary))) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            System.out.println(new LoggerException("Logger failed to compress " + segment + ". Caused by: \n" + e));
+            return;
+        }
+        try {
+            Files.move(temporary, compressed, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(segment);
+        } catch (IOException e) {
+            System.out.println(new LoggerException("Logger failed to replace " + segment + ". Caused by: \n" + e));
+        }
+    }
+
+    private void enforceRetention() {
+        long limit = maxTotalBytes;
+        int maxAge = maxAgeDays;
+        if (limit <= 0 && maxAge <= 0)
+            return;
+        LocalDate today = LocalDate.now();
+        Map<String, RetentionUnit> removable = new HashMap<>();
+        long totalBytes = 0;
+        try (DirectoryStream<Path> logFiles = Files.newDirectoryStream(directory)) {
+            for (Path logFile : logFiles) {
+                String name = logFile.getFileName().toString();
+                Matcher artifact = LOG_ARTIFACT.matcher(name);
+                if (!artifact.matches())
+                    continue;
+                long size = Files.size(logFile);
+                totalBytes += size;
+                LocalDate day = LocalDate.parse(artifact.group(1));
+                String unit;
+                if (name.endsWith(COMPRESSED_SUFFIX))
+                    unit = name;
+                else if (isStructured(name) && day.isBefore(today))
+                    unit = name.substring(0, name.lastIndexOf('.'));
+                else
+                    continue;
+                removable.computeIfAbsent(unit, key -> new RetentionUnit(day)).add(logFile, size);
+            }
+            List<RetentionUnit> oldestFirst = new ArrayList<>(removable.values());
+            oldestFirst.sort(Comparator.comparing(RetentionUnit::day).thenComparingLong(RetentionUnit::lastModified));
+            LocalDate oldestKept = maxAge > 0 ? today.minusDays(maxAge) : LocalDate.MIN;
+            for (RetentionUnit oldest : oldestFirst) {
+                boolean expired = oldest.day().isBefore(oldestKept);
+                if (!expired && (limit <= 0 || totalBytes <= limit))
+                    break;
+                totalBytes -= oldest.delete();
+            }
+        } catch (IOException e) {
+            System.out.println(new LoggerException("Logger failed to enforce log retention. Caused by: \n" + e));
+        }
+    }
+
+    private static boolean isStructured(String name) {
+        for (String suffix : STRUCTURED_SUFFIXES)
+            if (name.endsWith(suffix))
+                return true;
+        return false;
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Files deleted together by the retention, either one compressed segment or the structured segment and indexes of
+     * one day.
+     */
+    private static class RetentionUnit {
+        private final LocalDate day;
+        private final List<Path> files = new ArrayList<>();
+        private long bytes;
+        private long lastModified;
+
+        RetentionUnit(LocalDate day) {
+            this.day = day;
+        }
+
+        LocalDate day() {
+            return day;
+        }
+
+        long lastModified() {
+            return lastModified;
+        }
+
+        void add(Path file, long size) {
+            files.add(file);
+            bytes += size;
+            lastModified = Math.max(lastModified, LogCompressor.lastModified(file));
+        }
+
+        long delete() throws IOException {
+            for (Path file : files)
+                Files.deleteIfExists(file);
+            return bytes;
+        }
+    }
+}
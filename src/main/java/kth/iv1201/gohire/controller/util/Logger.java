@@ -1,10 +1,19 @@
 package kth.iv1201.gohire.controller.util;
 
-import java.io.FileWriter;
+import kth.iv1201.gohire.DTO.ErrorFingerprintDTO;
+import kth.iv1201.gohire.DTO.LogEventDTO;
+
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Utility class containing static methods to write to error and event logs.
@@ -13,19 +22,34 @@ public class Logger {
 
     private final static String ERROR_LOG_NAME = "errorlog.txt";
     private final static String EVENT_LOG_NAME = "eventlog.txt";
+    private final static Path LOG_DIRECTORY = Path.of(".");
+    private final static long DEFAULT_MAX_SEGMENT_BYTES = 10 * 1024 * 1024;
+    private final static long DEFAULT_MAX_TOTAL_BYTES = 500 * 1024 * 1024;
+
+    private static final LogCompressor logCompressor = new LogCompressor(LOG_DIRECTORY, DEFAULT_MAX_TOTAL_BYTES);
+    private static final ConcurrentHashMap<String, RollingLogFile> logFiles = new ConcurrentHashMap<>();
+    private static volatile long maxSegmentBytes = DEFAULT_MAX_SEGMENT_BYTES;
+    private static final StructuredEventLog structuredEventLog = new StructuredEventLog(LOG_DIRECTORY, logCompressor);
+    private static final List<Consumer<LogEventDTO>> eventListeners = new CopyOnWriteArrayList<>();
+    private static final ErrorDeduplicator errorDeduplicator = new ErrorDeduplicator(0);
+    private static final AtomicLong droppedEntries = new AtomicLong();
+    private static volatile AsyncLogWriter asyncLogWriter;
 
     /**
-     * Logs the supplied exception to the error log, prepending the current time.
+     * Logs the supplied exception to the error log, prepending the current time. If an error with the same
+     * fingerprint has already been logged within the deduplication window, it is only counted.
      * @param exceptionToLog The error to write to the log.
      * @throws LoggerException if there is a problem with logging an event.
      */
     public static void logError(Exception exceptionToLog) throws LoggerException {
-        FileWriter exceptionLogger = makeWriter(ERROR_LOG_NAME);
-        StringBuilder message = new StringBuilder("\n\n" + exceptionToLog.getClass() + ": " + exceptionToLog.getMessage() + "\n");
+        String fingerprint = ErrorDeduplicator.fingerprintOf(exceptionToLog);
+        if (!errorDeduplicator.registerOccurrence(exceptionToLog, fingerprint))
+            return;
+        StringBuilder message = new StringBuilder("\n\n[" + fingerprint + "] " + exceptionToLog.getClass() + ": " + exceptionToLog.getMessage() + "\n");
         StackTraceElement[] stackTrace = exceptionToLog.getStackTrace();
         for (StackTraceElement element : stackTrace)
             message.append(element.toString()).append("\n");
-        makeLogEntry(exceptionLogger, message.toString());
+        makeLogEntry(ERROR_LOG_NAME, message.toString(), null);
     }
 
     /**
@@ -34,25 +58,164 @@ public class Logger {
      * @throws LoggerException if there is a problem with logging an event.
      */
     public static void logEvent(String message) throws LoggerException {
-        FileWriter eventLogger = makeWriter(EVENT_LOG_NAME);
-        makeLogEntry(eventLogger, message);
+        makeLogEntry(EVENT_LOG_NAME, message, null);
+    }
+
+    /**
+     * Logs an event with the supplied message to the event log and stores it as a record in the structured event
+     * log, where it can be found with <code>queryEvents</code>. The event is also passed to every registered event
+     * listener.
+     * @param message The message to write to the log.
+     * @param event The structured form of the event.
+     * @throws LoggerException if there is a problem with logging an event.
+     */
+    public static void logEvent(String message, LogEventDTO event) throws LoggerException {
+        for (Consumer<LogEventDTO> listener : eventListeners)
+            listener.accept(event);
+        makeLogEntry(EVENT_LOG_NAME, message, event);
+    }
+
+    /**
+     * Registers a listener receiving every structured event passed to <code>logEvent</code>. Listeners are called on
+     * the logging thread and must not block.
+     * @param listener The listener to register.
+     */
+    public static void addEventListener(Consumer<LogEventDTO> listener) {
+        eventListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener registered with <code>addEventListener</code>.
+     * @param listener The listener to remove.
+     */
+    public static void removeEventListener(Consumer<LogEventDTO> listener) {
+        eventListeners.remove(listener);
     }
 
-    private static FileWriter makeWriter(String logName) throws LoggerException {
+    /**
+     * Finds the events in the structured event log within a time range.
+     * @param actor The username of the user performing the actions, or <code>null</code> for all users.
+     * @param from The start of the time range, inclusive.
+     * @param to The end of the time range, inclusive.
+     * @param consumer Receives every matching event, in the order they were logged.
+     * @throws LoggerException if the structured event log could not be read.
+     */
+    public static void queryEvents(String actor, Instant from, Instant to, Consumer<LogEventDTO> consumer)
+            throws LoggerException {
         try {
-            String date = LocalDate.now().toString();
-            return new FileWriter(date + "_" + logName, true);
+            structuredEventLog.query(actor, from, to, consumer);
         } catch (IOException e) {
-            throw new LoggerException("Logger failed to write to log. Caused by: \n" + Arrays.toString(e.getStackTrace()));
+            throw new LoggerException("Logger failed to read event log. Caused by: \n" + e);
         }
     }
 
-    private static void makeLogEntry(FileWriter fileWriter, String message) throws LoggerException {
-        String time = LocalDateTime.now().toString();
+    /**
+     * Configures when the logs roll over to a new segment, and how long and how much disk old segments are kept.
+     * @param maxSegmentBytes The size at which a log segment is closed and compressed, 0 to only roll over daily.
+     * @param maxTotalBytes The maximum disk usage of all logs, 0 for no limit.
+     * @param maxAgeDays The number of days old segments of every log are kept, 0 for no limit.
+     */
+    public static void configureRolling(long maxSegmentBytes, long maxTotalBytes, int maxAgeDays) {
+        Logger.maxSegmentBytes = maxSegmentBytes;
+        for (RollingLogFile logFile : logFiles.values())
+            logFile.setMaxSegmentBytes(maxSegmentBytes);
+        logCompressor.setMaxTotalBytes(maxTotalBytes);
+        logCompressor.setMaxAgeDays(maxAgeDays);
+    }
+
+    /**
+     * Closes the open log files. They are reopened when the next entry is logged.
+     */
+    public static void closeLogFiles() {
+        for (RollingLogFile logFile : logFiles.values())
+            logFile.close();
+        structuredEventLog.close();
+    }
+
+    /**
+     * Sets the time window in which an error is only written in full the first time it occurs.
+     * @param windowMillis The length of the window, 0 to write every error in full.
+     */
+    public static void setErrorDeduplicationWindow(long windowMillis) {
+        errorDeduplicator.setWindowMillis(windowMillis);
+    }
+
+    /**
+     * Writes the number of errors that were only counted since the last call to the error log.
+     * @throws LoggerException if there is a problem with logging the counts.
+     */
+    public static void flushErrorCounts() throws LoggerException {
+        for (String message : errorDeduplicator.drainSuppressedCounts())
+            makeLogEntry(ERROR_LOG_NAME, message, null);
+    }
+
+    /**
+     * Summarizes the most frequent errors logged since the application started.
+     * @param limit The maximum number of errors to include.
+     * @return The most frequent errors, most frequent first.
+     */
+    public static List<ErrorFingerprintDTO> fetchTopErrors(int limit) {
+        return errorDeduplicator.topFingerprints(limit);
+    }
+
+    /**
+     * Switches the <code>Logger</code> to asynchronous mode, in which entries are queued by the calling thread and
+     * written in batches by a background thread. Does nothing if asynchronous mode is already on.
+     * @param queueCapacity The maximum number of entries waiting to be written.
+     * @param batchSize The maximum number of entries written in one batch.
+     * @param flushIntervalMillis The longest time an entry waits in the queue when traffic is low.
+     * @param overflowPolicy What to do with new entries when the queue is full.
+     * @param sampleRate With <code>OverflowPolicy.SAMPLE</code>, one in this many overflowing entries is kept.
+     */
+    public static synchronized void startAsyncMode(int queueCapacity, int batchSize, long flushIntervalMillis,
+                                                   OverflowPolicy overflowPolicy, int sampleRate) {
+        if (asyncLogWriter == null)
+            asyncLogWriter = new AsyncLogWriter(Logger::logFile, structuredEventLog, queueCapacity, batchSize,
+                    flushIntervalMillis, overflowPolicy, sampleRate, droppedEntries);
+    }
+
+    /**
+     * Writes all queued entries and switches the <code>Logger</code> back to writing on the calling thread.
+     */
+    public static synchronized void stopAsyncMode() {
+        AsyncLogWriter writer = asyncLogWriter;
+        asyncLogWriter = null;
+        if (writer != null)
+            writer.stop();
+    }
+
+    /**
+     * @return The number of entries waiting to be written, always 0 when not in asynchronous mode.
+     */
+    public static int getQueuedEntries() {
+        AsyncLogWriter writer = asyncLogWriter;
+        return writer == null ? 0 : writer.getQueuedEntries();
+    }
+
+    /**
+     * @return The total number of entries dropped in asynchronous mode since the application started, because the queue
+     * was full or the write failed.
+     */
+    public static long getDroppedEntries() {
+        return droppedEntries.get();
+    }
+
+    private static RollingLogFile logFile(String logName) {
+        return logFiles.computeIfAbsent(logName,
+                name -> new RollingLogFile(LOG_DIRECTORY, name, logCompressor, maxSegmentBytes));
+    }
+
+    private static void makeLogEntry(String logName, String message, LogEventDTO event) throws LoggerException {
+        LocalDateTime time = LocalDateTime.now();
         message = time + ": " + message + "\n";
+        LocalDate date = time.toLocalDate();
+        AsyncLogWriter writer = asyncLogWriter;
+        if (writer != null && writer.submit(logName, date, message, event))
+            return;
         try {
-            fileWriter.append(message);
-            fileWriter.close();
+            logFile(logName).append(date, message);
+            if (event != null)
+                structuredEventLog.append(List.of(event));
         } catch (IOException e) {
             throw new LoggerException("Logger failed connect to log file. Caused by: \n" + Arrays.toString(e.getStackTrace()));
         }
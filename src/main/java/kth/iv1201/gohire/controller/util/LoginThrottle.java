@@ -0,0 +1,109 @@
+package kth.iv1201.gohire.controller.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kth.iv1201.gohire.controller.exception.LoginThrottledException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits login attempts per client IP address and per username with token buckets. Each bucket is a single
+ * <code>AtomicLong</code> updated with compare-and-set, so concurrent attempts never wait for a lock. Buckets are kept
+ * in size-bounded caches and evicted once they have been idle long enough to be full again.
+ */
+@Component
+public class LoginThrottle {
+
+    private final Cache<String, TokenBucket> bucketsPerAddress;
+    private final Cache<String, TokenBucket> bucketsPerUsername;
+    private final long addressCapacity;
+    private final long addressRefillNanos;
+    private final long usernameCapacity;
+    private final long usernameRefillNanos;
+
+    /**
+     * Creates a new <code>LoginThrottle</code>.
+     * @param addressAttemptsPerMinute The number of attempts per minute allowed from one IP address, also its burst size.
+     * @param usernameAttemptsPerMinute The number of attempts per minute allowed for one username, also its burst size.
+     * @param maximumBuckets The maximum number of buckets kept per kind.
+     * @throws IllegalArgumentException If any of the values is not positive, so that a misconfiguration fails the
+     *                                  start of the application instead of every login.
+     */
+    public LoginThrottle(@Value("${gohire.security.login-throttle.address-attempts-per-minute:30}") long addressAttemptsPerMinute,
+                         @Value("${gohire.security.login-throttle.username-attempts-per-minute:10}") long usernameAttemptsPerMinute,
+                         @Value("${gohire.security.login-throttle.maximum-buckets:100000}") long maximumBuckets) {
+        requirePositive("address-attempts-per-minute", addressAttemptsPerMinute);
+        requirePositive("username-attempts-per-minute", usernameAttemptsPerMinute);
+        requirePositive("maximum-buckets", maximumBuckets);
+        this.addressCapacity = addressAttemptsPerMinute;
+        this.addressRefillNanos = TimeUnit.MINUTES.toNanos(1) / addressAttemptsPerMinute;
+        this.usernameCapacity = usernameAttemptsPerMinute;
+        this.usernameRefillNanos = TimeUnit.MINUTES.toNanos(1) / usernameAttemptsPerMinute;
+        Duration idleUntilFull = Duration.ofMinutes(1);
+        this.bucketsPerAddress = Caffeine.newBuilder().maximumSize(maximumBuckets).expireAfterAccess(idleUntilFull).build();
+        this.bucketsPerUsername = Caffeine.newBuilder().maximumSize(maximumBuckets).expireAfterAccess(idleUntilFull).build();
+    }
+
+    /**
+     * Takes a token from the buckets of the client address and the username.
+     * @param username The username of the login attempt.
+     * @param address The IP address of the client.
+     * @throws LoginThrottledException if either bucket is empty.
+     */
+    public void checkLoginAllowed(String username, String address) throws LoginThrottledException {
+        long now = System.nanoTime();
+        TokenBucket addressBucket = bucketsPerAddress.get(address, key -> new TokenBucket(addressCapacity, addressRefillNanos, now));
+        long addressWait = addressBucket.tryTake(now);
+        if (addressWait > 0)
+            throw new LoginThrottledException("Too many login attempts from this address.", toRetryAfterSeconds(addressWait));
+        TokenBucket usernameBucket = bucketsPerUsername.get(username, key -> new TokenBucket(usernameCapacity, usernameRefillNanos, now));
+        long usernameWait = usernameBucket.tryTake(now);
+        if (usernameWait > 0)
+            throw new LoginThrottledException("Too many login attempts for this user.", toRetryAfterSeconds(usernameWait));
+    }
+
+    private static void requirePositive(String property, long value) {
+        if (value <= 0)
+            throw new IllegalArgumentException("gohire.security.login-throttle." + property + " must be positive, was " +
+                    value + ".");
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    /**
+     * Token bucket stored as the time at which it would be full again if no more tokens were taken, as in the generic
+     * cell rate algorithm.
+     */
+    private static class TokenBucket {
+        private final long refillNanos;
+        private final long burstNanos;
+        private final AtomicLong fullAt;
+
+        TokenBucket(long capacity, long refillNanos, long now) {
+            this.refillNanos = refillNanos;
+            this.burstNanos = refillNanos * (capacity - 1);
+            this.fullAt = new AtomicLong(now);
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise the nanoseconds until the next token is available.
+         */
+        long tryTake(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + refillNanos;
+                long wait = next - now - refillNanos - burstNanos;
+                if (wait > 0)
+                    return wait;
+                if (fullAt.compareAndSet(current, next))
+                    return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package kth.iv1201.gohire.controller.util;
+
+/**
+ * ENUM representing what the asynchronous <code>Logger</code> does with an entry when its queue is full.
+ */
+public enum OverflowPolicy {
+    BLOCK,
+    DROP,
+    SAMPLE,
+
+}
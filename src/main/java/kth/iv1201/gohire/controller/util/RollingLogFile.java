@@ -0,0 +1,142 @@
+package kth.iv1201.gohire.controller.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * A log that is kept open for appending and rolls over to a new segment every day and whenever the current segment
+ * grows beyond its size limit. The active segment is named <code>&lt;date&gt;_&lt;log name&gt;</code>, closed
+ * segments get a sequence number and are handed to the <code>LogCompressor</code>.
+ */
+class RollingLogFile {
+
+    private final Path directory;
+    private final String logName;
+    private final LogCompressor compressor;
+    private volatile long maxSegmentBytes;
+    private LocalDate date;
+    private FileChannel channel;
+    private long segmentBytes;
+    private int lastSegmentNumber;
+
+    /**
+     * Creates a new <code>RollingLogFile</code>. No file is opened until the first append.
+     * @param directory The directory containing the log files.
+     * @param logName The name of the log, such as <code>eventlog.txt</code>.
+     * @param compressor The <code>LogCompressor</code> closed segments are handed to.
+     * @param maxSegmentBytes The size at which a segment is closed, 0 to only roll over daily.
+     */
+    RollingLogFile(Path directory, String logName, LogCompressor compressor, long maxSegmentBytes) {
+        this.directory = directory;
+        this.logName = logName;
+        this.compressor = compressor;
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    void setMaxSegmentBytes(long maxSegmentBytes) {
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    /**
+     * Appends text to the segment of the supplied date, rolling over first if needed. Text belonging to a day that
+     * has already been rolled over is appended to the current segment.
+     * @param entryDate The date the text belongs to.
+     * @param text The text to append.
+     * @throws IOException if the text could not be written.
+     */
+    synchronized void append(LocalDate entryDate, String text) throws IOException {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(text);
+        LocalDate segmentDate = date != null && entryDate.isBefore(date) ? date : entryDate;
+        if (channel == null || !segmentDate.equals(date))
+            openSegment(segmentDate);
+        else if (maxSegmentBytes > 0 && segmentBytes > 0 && segmentBytes + buffer.remaining() > maxSegmentBytes)
+            rollOver();
+        while (buffer.hasRemaining())
+            segmentBytes += channel.write(buffer);
+    }
+
+    /**
+     * Closes the active segment. It is reopened by the next append.
+     */
+    synchronized void close() {
+        if (channel == null)
+            return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println(new LoggerException("Logger failed to close log file. Caused by: \n" + e));
+        }
+        channel = null;
+    }
+
+    private void openSegment(LocalDate segmentDate) throws IOException {
+        close();
+        if (date == null)
+            compressSegmentsOfEarlierDays(segmentDate);
+        else if (!date.equals(segmentDate) && Files.exists(activeSegment(date)))
+            compressor.compressInBackground(activeSegment(date));
+        date = segmentDate;
+        lastSegmentNumber = findLastSegmentNumber();
+        channel = FileChannel.open(activeSegment(date), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        segmentBytes = channel.size();
+    }
+
+    private void rollOver() throws IOException {
+        close();
+        Path closedSegment = numberedSegment(++lastSegmentNumber);
+        Files.move(activeSegment(date), closedSegment, StandardCopyOption.ATOMIC_MOVE);
+        compressor.compressInBackground(closedSegment);
+        channel = FileChannel.open(activeSegment(date), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        segmentBytes = 0;
+    }
+
+    private void compressSegmentsOfEarlierDays(LocalDate segmentDate) throws IOException {
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, "*_" + baseName() + "*" + extension())) {
+            for (Path segment : segments) {
+                if (segment.getFileName().toString().compareTo(segmentDate.toString()) < 0)
+                    compressor.compressInBackground(segment);
+            }
+        }
+    }
+
+    private Path activeSegment(LocalDate segmentDate) {
+        return directory.resolve(segmentDate + "_" + logName);
+    }
+
+    private Path numberedSegment(int number) {
+        return directory.resolve(date + "_" + baseName() + "." + number + extension());
+    }
+
+    private int findLastSegmentNumber() throws IOException {
+        int last = 0;
+        String prefix = date + "_" + baseName() + ".";
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path segment : segments) {
+                String number = segment.getFileName().toString().substring(prefix.length()).split("\\.")[0];
+                if (number.chars().allMatch(Character::isDigit) && !number.isEmpty())
+                    last = Math.max(last, Integer.parseInt(number));
+            }
+        }
+        return last;
+    }
+
+    private String baseName() {
+        int dot = logName.lastIndexOf('.');
+        return dot < 0 ? logName : logName.substring(0, dot);
+    }
+
+    private String extension() {
+        int dot = logName.lastIndexOf('.');
+        return dot < 0 ? "" : logName.substring(dot);
+    }
+}
@@ -0,0 +1,11 @@
+package kth.iv1201.gohire.controller.util;
+
+/**
+ * ENUM representing where the authentication of a logged-in user is kept between requests.
+ */
+public enum SecurityMode {
+    SESSION,
+    STATELESS,
+    JDBC,
+
+}
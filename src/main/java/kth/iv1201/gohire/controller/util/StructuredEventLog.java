@@ -0,0 +1,375 @@
+package kth.iv1201.gohire.controller.util;
+
+import kth.iv1201.gohire.DTO.EventType;
+import kth.iv1201.gohire.DTO.LogEventDTO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Event log storing <code>LogEventDTO</code>s as compact binary records in daily segments. Next to each segment a
+ * sparse time index and an actor index are kept, and queries read the files through memory mappings instead of
+ * loading them into the heap. Every event is written to the segment of its own day, also when it arrives after the
+ * log has moved on to a later day.
+ * <p>
+ * A record consists of its length, the timestamp in epoch milliseconds, the event type, the subject id and the
+ * length-prefixed UTF-8 actor and detail, all lengths being ints. Every <code>TIME_INDEX_INTERVAL</code>th record gets
+ * a time index entry of timestamp and offset, and every record gets an actor index entry of actor hash and offset.
+ * The actor index starts with the number of entries sorted by hash and offset, which are found by binary search,
+ * followed by the entries appended since, which are merged into the sorted part when they grow to a quarter of it and
+ * when the segment is closed.
+ */
+class StructuredEventLog {
+
+    private static final String SEGMENT_SUFFIX = "_eventlog.bin";
+    private static final String TIME_INDEX_SUFFIX = "_eventlog.tidx";
+    private static final String ACTOR_INDEX_SUFFIX = "_eventlog.aidx";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int TIME_INDEX_INTERVAL = 64;
+    private static final int TIME_INDEX_ENTRY_BYTES = Long.BYTES + Long.BYTES;
+    private static final int ACTOR_INDEX_HEADER_BYTES = Long.BYTES;
+    private static final int ACTOR_INDEX_ENTRY_BYTES = Integer.BYTES + Long.BYTES;
+    private static final int MIN_UNSORTED_ACTOR_ENTRIES = 4096;
+    private static final int NO_SUBJECT = -1;
+    private static final long OUT_OF_ORDER_TOLERANCE_MILLIS = 5000;
+    private static final EventType[] EVENT_TYPES = EventType.values();
+
+    private final Path directory;
+    private final LogCompressor compressor;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private DaySegment current;
+
+    /**
+     * Creates a new <code>StructuredEventLog</code>. No file is opened until the first append.
+     * @param directory The directory containing the log files.
+     * @param compressor The <code>LogCompressor</code> enforcing the retention of old segments when the day changes.
+     */
+    StructuredEventLog(Path directory, LogCompressor compressor) {
+        this.directory = directory;
+        this.compressor = compressor;
+    }
+
+    /**
+     * Appends events to the segments of their dates, together with their index entries. Events of days before the
+     * open segment are appended to the segment of their day, which is opened for the purpose and closed again.
+     * @param events The events to append.
+     * @throws IOException if the events could not be written.
+     */
+    synchronized void append(List<LogEventDTO> events) throws IOException {
+        Map<LocalDate, DaySegment> lateSegments = new TreeMap<>();
+        try {
+            for (LogEventDTO event : events) {
+                LocalDate eventDate = LocalDate.ofInstant(event.getTimestamp(), zone);
+                if (current != null && eventDate.isBefore(current.date)) {
+                    DaySegment late = lateSegments.get(eventDate);
+                    if (late == null) {
+                        late = new DaySegment(directory, eventDate);
+                        lateSegments.put(eventDate, late);
+                    }
+                    late.add(event);
+                    continue;
+                }
+                if (current == null || !eventDate.equals(current.date)) {
+                    close();
+                    current = new DaySegment(directory, eventDate);
+                    compressor.enforceRetentionInBackground();
+                }
+                current.add(event);
+            }
+            if (current != null)
+                current.flush();
+        } finally {
+            for (DaySegment late : lateSegments.values())
+                late.close();
+        }
+    }
+
+    /**
+     * Closes the open segment and indexes, merging the appended actor index entries into the sorted ones. They are
+     * reopened by the next append.
+     */
+    synchronized void close() {
+        if (current == null)
+            return;
+        try {
+            current.close();
+        } catch (IOException e) {
+            System.out.println(new LoggerException("Logger failed to close event log. Caused by: \n" + e));
+        }
+        current = null;
+    }
+
+    /**
+     * Finds the events in a time range, optionally only those of one actor, in the order they were written.
+     * @param actor The username of the actor, or <code>null</code> for all actors.
+     * @param from The start of the time range, inclusive.
+     * @param to The end of the time range, inclusive.
+     * @param consumer Receives every matching event.
+     * @throws IOException if a segment could not be read.
+     */
+    void query(String actor, Instant from, Instant to, Consumer<LogEventDTO> consumer) throws IOException {
+        LocalDate lastDate = LocalDate.ofInstant(to, zone);
+        for (LocalDate day = LocalDate.ofInstant(from, zone); !day.isAfter(lastDate); day = day.plusDays(1)) {
+            Path segmentPath = directory.resolve(day + SEGMENT_SUFFIX);
+            if (!Files.exists(segmentPath))
+                continue;
+            if (actor == null)
+                scanByTime(day, from.toEpochMilli(), to.toEpochMilli(), consumer);
+            else
+                scanByActor(day, actor, from.toEpochMilli(), to.toEpochMilli(), consumer);
+        }
+    }
+
+    private void scanByTime(LocalDate day, long from, long to, Consumer<LogEventDTO> consumer) throws IOException {
+        long startOffset = 0;
+        ByteBuffer timeEntries = map(directory.resolve(day + TIME_INDEX_SUFFIX));
+        int low = 0;
+        int high = timeEntries.limit() / TIME_INDEX_ENTRY_BYTES - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (timeEntries.getLong(middle * TIME_INDEX_ENTRY_BYTES) < from - OUT_OF_ORDER_TOLERANCE_MILLIS) {
+                startOffset = timeEntries.getLong(middle * TIME_INDEX_ENTRY_BYTES + Long.BYTES);
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        ByteBuffer records = map(directory.resolve(day + SEGMENT_SUFFIX));
+        int offset = (int) startOffset;
+        while (isCompleteRecord(records, offset)) {
+            LogEventDTO event = decode(records, offset);
+            long timestamp = event.getTimestamp().toEpochMilli();
+            if (timestamp > to + OUT_OF_ORDER_TOLERANCE_MILLIS)
+                break;
+            if (timestamp >= from && timestamp <= to)
+                consumer.accept(event);
+            offset += Integer.BYTES + records.getInt(offset);
+        }
+    }
+
+    private void scanByActor(LocalDate day, String actor, long from, long to, Consumer<LogEventDTO> consumer)
+            throws IOException {
+        ByteBuffer actorEntries = map(directory.resolve(day + ACTOR_INDEX_SUFFIX));
+        if (actorEntries.limit() < ACTOR_INDEX_HEADER_BYTES)
+            return;
+        ByteBuffer records = map(directory.resolve(day + SEGMENT_SUFFIX));
+        int hash = actorHash(actor);
+        int entries = (actorEntries.limit() - ACTOR_INDEX_HEADER_BYTES) / ACTOR_INDEX_ENTRY_BYTES;
+        int sorted = (int) Math.min(actorEntries.getLong(0), entries);
+        int low = 0;
+        int high = sorted;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (actorEntries.getInt(entryPosition(middle)) < hash)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        for (int entry = low; entry < sorted && actorEntries.getInt(entryPosition(entry)) == hash; entry++)
+            acceptIfMatching(records, actorEntries.getLong(entryPosition(entry) + Integer.BYTES), actor, from, to,
+                    consumer);
+        for (int entry = sorted; entry < entries; entry++)
+            if (actorEntries.getInt(entryPosition(entry)) == hash)
+                acceptIfMatching(records, actorEntries.getLong(entryPosition(entry) + Integer.BYTES), actor, from, to,
+                        consumer);
+    }
+
+    private static void acceptIfMatching(ByteBuffer records, long offset, String actor, long from, long to,
+                                         Consumer<LogEventDTO> consumer) {
+        if (!isCompleteRecord(records, (int) offset))
+            return;
+        LogEventDTO event = decode(records, (int) offset);
+        long timestamp = event.getTimestamp().toEpochMilli();
+        if (actor.equals(event.getActor()) && timestamp >= from && timestamp <= to)
+            consumer.accept(event);
+    }
+
+    private static int entryPosition(int entry) {
+        return ACTOR_INDEX_HEADER_BYTES + entry * ACTOR_INDEX_ENTRY_BYTES;
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        if (!Files.exists(path))
+            return ByteBuffer.allocate(0);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), Integer.MAX_VALUE));
+        }
+    }
+
+    private static boolean isCompleteRecord(ByteBuffer records, int offset) {
+        return offset >= 0 && offset + Integer.BYTES <= records.limit() &&
+                offset + Integer.BYTES + (long) records.getInt(offset) <= records.limit();
+    }
+
+    private static LogEventDTO decode(ByteBuffer records, int offset) {
+        int position = offset + Integer.BYTES;
+        long timestamp = records.getLong(position);
+        EventType type = EVENT_TYPES[records.get(position + Long.BYTES)];
+        int subjectId = records.getInt(position + Long.BYTES + 1);
+        position += Long.BYTES + 1 + Integer.BYTES;
+        String actor = stringAt(records, position);
+        position += Integer.BYTES + records.getInt(position);
+        String detail = stringAt(records, position);
+        return new LogEventDTO(type, actor, subjectId == NO_SUBJECT ? null : subjectId, detail,
+                Instant.ofEpochMilli(timestamp));
+    }
+
+    private static String stringAt(ByteBuffer records, int position) {
+        int length = records.getInt(position);
+        if (length == 0)
+            return null;
+        byte[] bytes = new byte[length];
+        records.get(position + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int actorHash(String actor) {
+        return actor == null ? 0 : actor.hashCode();
+    }
+
+    /**
+     * The open segment and indexes of one day, with the records and index entries not yet written.
+     */
+    private static final class DaySegment {
+        private final LocalDate date;
+        private final Path actorIndexPath;
+        private final FileChannel segment;
+        private final FileChannel timeIndex;
+        private FileChannel actorIndex;
+        private ByteBuffer records = ByteBuffer.allocate(1024);
+        private ByteBuffer timeEntries = ByteBuffer.allocate(64);
+        private ByteBuffer actorEntries = ByteBuffer.allocate(256);
+        private long segmentBytes;
+        private long recordsInSegment;
+        private long sortedActorEntries;
+
+        DaySegment(Path directory, LocalDate date) throws IOException {
+            this.date = date;
+            this.actorIndexPath = directory.resolve(date + ACTOR_INDEX_SUFFIX);
+            this.segment = openForAppend(directory.resolve(date + SEGMENT_SUFFIX));
+            this.timeIndex = openForAppend(directory.resolve(date + TIME_INDEX_SUFFIX));
+            this.actorIndex = openForAppend(actorIndexPath);
+            if (actorIndex.size() < ACTOR_INDEX_HEADER_BYTES) {
+                actorIndex.truncate(0).position(0);
+                write(actorIndex, ByteBuffer.allocate(ACTOR_INDEX_HEADER_BYTES).putLong(0));
+            }
+            ByteBuffer header = ByteBuffer.allocate(ACTOR_INDEX_HEADER_BYTES);
+            actorIndex.read(header, 0);
+            this.sortedActorEntries = header.getLong(0);
+            this.segmentBytes = segment.size();
+            this.recordsInSegment = (actorIndex.size() - ACTOR_INDEX_HEADER_BYTES) / ACTOR_INDEX_ENTRY_BYTES;
+        }
+
+        void add(LogEventDTO event) {
+            byte[] actor = bytesOf(event.getActor());
+            byte[] detail = bytesOf(event.getDetail());
+            int recordLength = Long.BYTES + 1 + Integer.BYTES + Integer.BYTES + actor.length + Integer.BYTES +
+                    detail.length;
+            long offset = segmentBytes + records.position();
+            records = ensureCapacity(records, Integer.BYTES + recordLength);
+            records.putInt(recordLength)
+                    .putLong(event.getTimestamp().toEpochMilli())
+                    .put((byte) event.getType().ordinal())
+                    .putInt(event.getSubjectId() == null ? NO_SUBJECT : event.getSubjectId())
+                    .putInt(actor.length).put(actor)
+                    .putInt(detail.length).put(detail);
+            actorEntries = ensureCapacity(actorEntries, ACTOR_INDEX_ENTRY_BYTES);
+            actorEntries.putInt(actorHash(event.getActor())).putLong(offset);
+            if (recordsInSegment % TIME_INDEX_INTERVAL == 0) {
+                timeEntries = ensureCapacity(timeEntries, TIME_INDEX_ENTRY_BYTES);
+                timeEntries.putLong(event.getTimestamp().toEpochMilli()).putLong(offset);
+            }
+            recordsInSegment++;
+        }
+
+        void flush() throws IOException {
+            if (records.position() == 0)
+                return;
+            segmentBytes += write(segment, records);
+            write(timeIndex, timeEntries);
+            write(actorIndex, actorEntries);
+            long unsorted = recordsInSegment - sortedActorEntries;
+            if (unsorted >= Math.max(MIN_UNSORTED_ACTOR_ENTRIES, sortedActorEntries / 4))
+                sortActorIndex();
+        }
+
+        void close() throws IOException {
+            try {
+                flush();
+                if (recordsInSegment > sortedActorEntries)
+                    sortActorIndex();
+            } finally {
+                segment.close();
+                timeIndex.close();
+                actorIndex.close();
+            }
+        }
+
+        /**
+         * Rewrites the actor index with all entries sorted by hash and offset, replacing the old file atomically so
+         * that running queries keep reading a consistent index.
+         */
+        private void sortActorIndex() throws IOException {
+            int entries = (int) ((actorIndex.size() - ACTOR_INDEX_HEADER_BYTES) / ACTOR_INDEX_ENTRY_BYTES);
+            ByteBuffer index = actorIndex.map(FileChannel.MapMode.READ_ONLY, 0, entryPosition(entries));
+            long[] keys = new long[entries];
+            for (int entry = 0; entry < entries; entry++)
+                keys[entry] = ((long) index.getInt(entryPosition(entry)) << 32) |
+                        index.getLong(entryPosition(entry) + Integer.BYTES);
+            Arrays.sort(keys);
+            ByteBuffer sorted = ByteBuffer.allocate(entryPosition(entries)).putLong(entries);
+            for (long key : keys)
+                sorted.putInt((int) (key >> 32)).putLong(key & 0xFFFFFFFFL);
+            Path temporary = Path.of(actorIndexPath + TEMPORARY_SUFFIX);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                write(channel, sorted);
+            }
+            actorIndex.close();
+            Files.move(temporary, actorIndexPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            actorIndex = openForAppend(actorIndexPath);
+            sortedActorEntries = entries;
+        }
+
+        private static int write(FileChannel channel, ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            int written = 0;
+            while (buffer.hasRemaining())
+                written += channel.write(buffer);
+            buffer.clear();
+            return written;
+        }
+
+        private static FileChannel openForAppend(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return channel.position(channel.size());
+        }
+
+        private static ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) {
+            if (buffer.remaining() >= needed)
+                return buffer;
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+            buffer.flip();
+            return larger.put(buffer);
+        }
+    }
+}
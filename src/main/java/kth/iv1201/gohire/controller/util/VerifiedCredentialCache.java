@@ -0,0 +1,136 @@
+package kth.iv1201.gohire.controller.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import kth.iv1201.gohire.config.JdbcSecurityContextRepository;
+import kth.iv1201.gohire.service.PersonChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * Remembers, per session and for a short time, that a user has confirmed their credentials, so that repeated
+ * confirmations do not need a full authentication. Only a keyed hash of the credentials is kept, under a key that is
+ * generated at startup and never leaves the application. Entries are removed on logout and when the person changes.
+ * In jdbc session mode there is no <code>HttpSession</code>, and confirmations are kept per shared session cookie
+ * instead, on the instance that received them. Requests without a session, as in stateless mode, are never considered
+ * confirmed and do not create a session.
+ */
+@Component
+public class VerifiedCredentialCache {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int KEY_BYTES = 32;
+
+    private final Cache<String, VerifiedCredential> verifiedPerSession;
+    private final SecretKeySpec key;
+
+    /**
+     * Creates a new <code>VerifiedCredentialCache</code>.
+     * @param timeToLiveSeconds How long a confirmation is remembered.
+     * @param maximumSessions The maximum number of sessions remembered at once.
+     */
+    public VerifiedCredentialCache(@Value("${gohire.security.verified-credential-ttl-seconds:300}") long timeToLiveSeconds,
+                                   @Value("${gohire.security.verified-credential-max-sessions:10000}") long maximumSessions) {
+        this.verifiedPerSession = Caffeine.newBuilder()
+                .maximumSize(maximumSessions)
+                .expireAfterWrite(Duration.ofSeconds(timeToLiveSeconds))
+                .build();
+        byte[] keyBytes = new byte[KEY_BYTES];
+        new SecureRandom().nextBytes(keyBytes);
+        this.key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+
+    /**
+     * Checks if the supplied credentials have recently been confirmed in the current session.
+     * @param username The username to check.
+     * @param password The raw password to check.
+     * @return <code>true</code> if the same credentials were confirmed within the time to live.
+     */
+    public boolean isVerified(String username, String password) {
+        String sessionId = currentSessionId();
+        if (sessionId == null)
+            return false;
+        VerifiedCredential verified = verifiedPerSession.getIfPresent(sessionId);
+        return verified != null && verified.username().equals(username) &&
+                MessageDigest.isEqual(verified.hash(), hash(username, password));
+    }
+
+    /**
+     * Remembers that the supplied credentials were confirmed in the current session.
+     * @param username The confirmed username.
+     * @param password The confirmed raw password.
+     */
+    public void markVerified(String username, String password) {
+        String sessionId = currentSessionId();
+        if (sessionId != null)
+            verifiedPerSession.put(sessionId, new VerifiedCredential(username, hash(username, password)));
+    }
+
+    /**
+     * Forgets the confirmation of the current session.
+     */
+    public void invalidateCurrentSession() {
+        String sessionId = currentSessionId();
+        if (sessionId != null)
+            verifiedPerSession.invalidate(sessionId);
+    }
+
+    /**
+     * Forgets every confirmation of a person that has changed, such as after a password change.
+     * @param event The event describing the changed person.
+     */
+    @EventListener
+    public void onPersonChanged(PersonChangedEvent event) {
+        verifiedPerSession.asMap().values().removeIf(verified -> verified.username().equals(event.getUsername()));
+    }
+
+    private String currentSessionId() {
+        RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            HttpSession session = request.getSession(false);
+            return session == null ? sharedSessionId(request) : session.getId();
+        }
+        return attributes.getSessionId();
+    }
+
+    private String sharedSessionId(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null)
+            return null;
+        for (Cookie cookie : cookies) {
+            if (JdbcSecurityContextRepository.COOKIE_NAME.equals(cookie.getName()) && !cookie.getValue().isEmpty())
+                return JdbcSecurityContextRepository.COOKIE_NAME + ":" + cookie.getValue();
+        }
+        return null;
+    }
+
+    private byte[] hash(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available.", e);
+        }
+    }
+
+    private record VerifiedCredential(String username, byte[] hash) {
+    }
+}
@@ -0,0 +1,60 @@
+package kth.iv1201.gohire.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * JPA Entity representing an audited event. Rows are written in batches by the <code>AuditService</code>.
+ */
+@Entity
+@Table(name = "audit_event", indexes = {
+        @Index(name = "audit_event_actor_idx", columnList = "actor, occurred_at"),
+        @Index(name = "audit_event_subject_idx", columnList = "subject_id")
+})
+public class AuditEventEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "audit_event_id")
+    private Long id;
+
+    @Column(length = 64, name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(length = 255)
+    private String actor;
+
+    @Column(name = "subject_id")
+    private Integer subjectId;
+
+    @Column(length = 255)
+    private String detail;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getActor() {
+        return actor;
+    }
+
+    public Integer getSubjectId() {
+        return subjectId;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+}
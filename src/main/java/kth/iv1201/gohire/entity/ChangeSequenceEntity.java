@@ -0,0 +1,36 @@
+package kth.iv1201.gohire.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * JPA Entity representing a named, monotonically increasing change sequence. The row of a sequence is locked while a
+ * change is stamped with its next value, so changes become visible in the order of their sequence values. The rows are
+ * created with the schema, so that concurrent first changes never race to insert them.
+ */
+@Entity
+@Table(name = "change_sequence")
+public class ChangeSequenceEntity {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "last_value", nullable = false)
+    private long value;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public void setValue(long value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,73 @@
+package kth.iv1201.gohire.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * JPA Entity representing a remembered login. The series identifies the login, and only a SHA-256 hash of the current
+ * and the previous token is stored.
+ */
+@Entity
+@Table(name = "persistent_login", indexes = {
+        @Index(name = "persistent_login_username_idx", columnList = "username"),
+        @Index(name = "persistent_login_last_used_idx", columnList = "last_used")
+})
+public class PersistentLoginEntity {
+
+    @Id
+    @Column(length = 64)
+    private String series;
+
+    @Column(length = 255, nullable = false)
+    private String username;
+
+    @Column(name = "token_hash", length = 32, nullable = false)
+    private byte[] tokenHash;
+
+    @Column(name = "previous_token_hash", length = 32)
+    private byte[] previousTokenHash;
+
+    @Column(name = "last_used", nullable = false)
+    private Instant lastUsed;
+
+    public String getSeries() {
+        return series;
+    }
+
+    public void setSeries(String series) {
+        this.series = series;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public byte[] getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(byte[] tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    public byte[] getPreviousTokenHash() {
+        return previousTokenHash;
+    }
+
+    public void setPreviousTokenHash(byte[] previousTokenHash) {
+        this.previousTokenHash = previousTokenHash;
+    }
+
+    public Instant getLastUsed() {
+        return lastUsed;
+    }
+
+    public void setLastUsed(Instant lastUsed) {
+        this.lastUsed = lastUsed;
+    }
+}
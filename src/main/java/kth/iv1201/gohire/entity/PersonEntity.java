@@ -6,7 +6,9 @@ import jakarta.persistence.*;
  * JPA Entity representing a Person.
  */
 @Entity
-@Table(name = "person")
+@Table(name = "person", indexes = {
+        @Index(name = "person_change_seq_idx", columnList = "change_seq")
+})
 public class PersonEntity {
 
     @Id
@@ -40,6 +42,9 @@ public class PersonEntity {
     @JoinColumn(name = "application_status_id", referencedColumnName = "application_status_id")
     private ApplicationStatusEntity applicationStatus;
 
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
     public Integer getId() {
         return id;
     }
@@ -111,4 +116,12 @@ public class PersonEntity {
     public void setApplicationStatus(ApplicationStatusEntity applicationStatus) {
         this.applicationStatus = applicationStatus;
     }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
 }
@@ -0,0 +1,52 @@
+package kth.iv1201.gohire.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * JPA Entity representing a shared login session holding a serialized security context. Rows are read and written by
+ * the <code>SecuritySessionService</code>.
+ */
+@Entity
+@Table(name = "security_session", indexes = {
+        @Index(name = "security_session_last_access_idx", columnList = "last_access")
+})
+public class SecuritySessionEntity {
+
+    @Id
+    @Column(name = "session_id", length = 64)
+    private String sessionId;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(length = 255, nullable = false)
+    private String username;
+
+    @Column(length = 8192, nullable = false)
+    private byte[] context;
+
+    @Column(name = "last_access", nullable = false)
+    private Instant lastAccess;
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public byte[] getContext() {
+        return context;
+    }
+
+    public Instant getLastAccess() {
+        return lastAccess;
+    }
+}
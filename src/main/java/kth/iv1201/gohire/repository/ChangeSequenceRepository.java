@@ -0,0 +1,36 @@
+package kth.iv1201.gohire.repository;
+
+import jakarta.persistence.LockModeType;
+import kth.iv1201.gohire.entity.ChangeSequenceEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository responsible for accessing data related to <code>ChangeSequenceEntity</code>s.
+ */
+@Repository
+@Transactional(propagation = Propagation.MANDATORY)
+public interface ChangeSequenceRepository extends JpaRepository<ChangeSequenceEntity, String> {
+    /**
+     * Fetches a sequence and locks its row until the transaction ends, so that concurrent changes take the next value
+     * one at a time, in the order in which they commit.
+     * @param name The name of the sequence.
+     * @return The sequence, or <code>null</code> if its row has not been created by <code>db/change_sequence.sql</code>.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    ChangeSequenceEntity findByName(String name);
+
+    /**
+     * Fetches the last committed value of a sequence without locking it. The row of the sequence is created with the
+     * value 0 by <code>db/change_sequence.sql</code>, so the value exists before the sequence is first used.
+     * @param name The name of the sequence.
+     * @return The value, 0 if the sequence has never been used.
+     */
+    @Query("SELECT c.value FROM ChangeSequenceEntity c WHERE c.name = :name")
+    long findValueByName(@Param("name") String name);
+}
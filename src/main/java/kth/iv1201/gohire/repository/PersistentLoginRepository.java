@@ -0,0 +1,23 @@
+package kth.iv1201.gohire.repository;
+
+import jakarta.persistence.LockModeType;
+import kth.iv1201.gohire.entity.PersistentLoginEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Repository responsible for accessing data related to <code>PersistentLoginEntity</code>s.
+ */
+@Repository
+@Transactional(propagation = Propagation.MANDATORY)
+public interface PersistentLoginRepository extends JpaRepository<PersistentLoginEntity, String> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    PersistentLoginEntity findBySeries(String series);
+    void deleteByUsername(String username);
+    void deleteByLastUsedBefore(Instant cutoff);
+}
@@ -1,13 +1,20 @@
 package kth.iv1201.gohire.repository;
 
+import jakarta.persistence.QueryHint;
+import kth.iv1201.gohire.DTO.ApplicantDTO;
 import kth.iv1201.gohire.entity.PersonEntity;
-import kth.iv1201.gohire.entity.RoleEntity;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository responsible for accessing data related to <code>PersonEntity</code>s.
@@ -18,5 +25,80 @@ public interface PersonRepository extends JpaRepository<PersonEntity, Integer> {
     PersonEntity findPersonById(Integer id);
     PersonEntity findByUsername(String username);
     boolean existsByUsername(String username);
-    List<PersonEntity> findPersonEntitiesByRoleIs(RoleEntity role);
+
+    /**
+     * Fetches every applicant as an <code>ApplicantDTO</code>, selecting only the four columns it needs in one joined
+     * query. No entities are loaded, so nothing is tracked by the persistence context.
+     * @param roleId The id of the applicant role.
+     * @return All applicants.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT new kth.iv1201.gohire.DTO.ApplicantDTO(p.id, p.name, p.surname, s.status) " +
+            "FROM PersonEntity p JOIN p.applicationStatus s WHERE p.role.id = :roleId")
+    List<ApplicantDTO> findApplicantSummaries(@Param("roleId") int roleId);
+
+    /**
+     * Fetches the applicants with an id greater than <code>afterId</code>, ordered by id.
+     * @param roleId The id of the applicant role.
+     * @param status The application status to filter by, or <code>null</code> for all statuses.
+     * @param afterId The id of the last applicant on the previous page, 0 for the first page.
+     * @param page The maximum number of applicants to fetch, as the size of the first page.
+     * @return The applicants on the page.
+     */
+    @Query("SELECT new kth.iv1201.gohire.DTO.ApplicantDTO(p.id, p.name, p.surname, s.status) " +
+            "FROM PersonEntity p JOIN p.applicationStatus s " +
+            "WHERE p.role.id = :roleId AND (:status IS NULL OR s.status = :status) AND p.id > :afterId " +
+            "ORDER BY p.id")
+    List<ApplicantDTO> findApplicantPageOrderedById(@Param("roleId") int roleId, @Param("status") String status,
+                                                    @Param("afterId") int afterId, Pageable page);
+
+    /**
+     * Fetches the applicants after the given last name, first name and id, ordered by last name, first name and id. The
+     * page is found by one row value comparison on the sort key, which the database can answer with a range scan of an
+     * index on the same key. A missing name is sorted and compared as an empty string, so that applicants without a
+     * name are listed first instead of being skipped.
+     * @param roleId The id of the applicant role.
+     * @param status The application status to filter by, or <code>null</code> for all statuses.
+     * @param afterSurname The last name of the last applicant on the previous page, empty for the first page.
+     * @param afterName The first name of the last applicant on the previous page, empty for the first page.
+     * @param afterId The id of the last applicant on the previous page, 0 for the first page.
+     * @param page The maximum number of applicants to fetch, as the size of the first page.
+     * @return The applicants on the page.
+     */
+    @Query("SELECT new kth.iv1201.gohire.DTO.ApplicantDTO(p.id, p.name, p.surname, s.status) " +
+            "FROM PersonEntity p JOIN p.applicationStatus s " +
+            "WHERE p.role.id = :roleId AND (:status IS NULL OR s.status = :status) " +
+            "AND (COALESCE(p.surname, ''), COALESCE(p.name, ''), p.id) > (:afterSurname, :afterName, :afterId) " +
+            "ORDER BY COALESCE(p.surname, ''), COALESCE(p.name, ''), p.id")
+    List<ApplicantDTO> findApplicantPageOrderedByName(@Param("roleId") int roleId, @Param("status") String status,
+                                                      @Param("afterSurname") String afterSurname,
+                                                      @Param("afterName") String afterName,
+                                                      @Param("afterId") int afterId, Pageable page);
+
+    /**
+     * Streams every applicant ordered by id, reading the rows through a database cursor in chunks of a fixed fetch size.
+     * The stream must be consumed and closed within a transaction.
+     * @param roleId The id of the applicant role.
+     * @return The applicants, read as the stream is consumed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new kth.iv1201.gohire.DTO.ApplicantDTO(p.id, p.name, p.surname, s.status) " +
+            "FROM PersonEntity p JOIN p.applicationStatus s WHERE p.role.id = :roleId ORDER BY p.id")
+    Stream<ApplicantDTO> streamApplicants(@Param("roleId") int roleId);
+
+    /**
+     * Fetches the applicants whose status was changed, or who were created, after a change sequence value, ordered by
+     * change. Only rows stamped after the value are read, through the index on the change sequence.
+     * @param roleId The id of the applicant role.
+     * @param since The change sequence value to fetch the changes after.
+     * @return The changed applicants.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT new kth.iv1201.gohire.DTO.ApplicantDTO(p.id, p.name, p.surname, s.status) " +
+            "FROM PersonEntity p JOIN p.applicationStatus s WHERE p.role.id = :roleId AND p.changeSeq > :since " +
+            "ORDER BY p.changeSeq")
+    List<ApplicantDTO> findApplicantsChangedAfter(@Param("roleId") int roleId, @Param("since") long since);
 }
@@ -0,0 +1,23 @@
+package kth.iv1201.gohire.service;
+
+import kth.iv1201.gohire.DTO.ApplicantDTO;
+
+/**
+ * Application event published by the <code>PersonService</code> when an applicant is created or the status of an
+ * application is changed.
+ */
+public class ApplicantChangedEvent {
+    private final ApplicantDTO applicant;
+
+    /**
+     * Creates a new <code>ApplicantChangedEvent</code>.
+     * @param applicant The created or changed applicant, as it is after the change.
+     */
+    public ApplicantChangedEvent(ApplicantDTO applicant) {
+        this.applicant = applicant;
+    }
+
+    public ApplicantDTO getApplicant() {
+        return applicant;
+    }
+}
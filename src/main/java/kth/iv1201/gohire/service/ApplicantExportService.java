@@ -0,0 +1,132 @@
+package kth.iv1201.gohire.service;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Service Class that exports all applications as CSV, written to a stream as the rows are read. On PostgreSQL the rows
+ * are formatted by the database with <code>COPY ... TO STDOUT</code> and copied straight to the stream. Other databases
+ * read the rows through a cursor and format them the same way, so that the export looks the same on every database.
+ * Neither way loads entities or holds more than one chunk of rows in memory.
+ * <p>
+ * Fields starting with a character that makes a spreadsheet read them as a formula are prefixed with
+ * <code>'</code>, so that a name entered by an applicant can never run as a formula when the export is opened.
+ */
+@Service
+@Transactional(readOnly = true, rollbackFor = Exception.class, propagation = Propagation.REQUIRES_NEW)
+public class ApplicantExportService {
+    private static final int APPLICANT_ROLE_ID = 2;
+    private static final int FETCH_SIZE = 1000;
+    private static final String HEADER = "id,first_name,last_name,status";
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+    private static final String SELECT_APPLICANTS = "SELECT p.person_id, p.name, p.surname, s.status " +
+            "FROM person p JOIN application_status s ON s.application_status_id = p.application_status_id " +
+            "WHERE p.role_id = " + APPLICANT_ROLE_ID + " ORDER BY p.person_id";
+    private static final String COPY_APPLICANTS = "COPY (SELECT p.person_id AS id, " +
+            withoutFormula("p.name") + " AS first_name, " + withoutFormula("p.surname") + " AS last_name, " +
+            withoutFormula("s.status") + " AS status " +
+            "FROM person p JOIN application_status s ON s.application_status_id = p.application_status_id " +
+            "WHERE p.role_id = " + APPLICANT_ROLE_ID + " ORDER BY p.person_id) TO STDOUT WITH (FORMAT csv, HEADER)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates an instance of the <code>ApplicantExportService</code>.
+     * @param jdbcTemplate The <code>JdbcTemplate</code> used to read the applications.
+     */
+    @Autowired
+    public ApplicantExportService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Writes all applications as CSV with a header line, ordered by id. Fields are quoted only when they contain a
+     * comma, a quote or a line break, and an empty name is written as <code>""</code> to tell it apart from a missing one.
+     * @param outputStream The stream the UTF-8 encoded CSV is written to. It is flushed but not closed.
+     * @return The number of exported applications.
+     * @throws IOException If writing to the stream fails.
+     */
+    public long exportApplicantsAsCsv(OutputStream outputStream) throws IOException {
+        try {
+            Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                try {
+                    if (connection.isWrapperFor(PGConnection.class))
+                        return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(COPY_APPLICANTS, outputStream);
+                    return exportThroughCursor(connection, outputStream);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+            return rows == null ? 0 : rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Formats one CSV field the way PostgreSQL <code>COPY</code> does in CSV format, after prefixing a value that would
+     * be read as a formula with <code>'</code> like <code>COPY_APPLICANTS</code> does.
+     * @param value The value of the field.
+     * @return The field, quoted if needed.
+     */
+    static String csvField(String value) {
+        if (value == null)
+            return "";
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0)
+            value = "'" + value;
+        if (!value.isEmpty() && value.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r') &&
+                !value.equals("\\."))
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String withoutFormula(String column) {
+        return "CASE WHEN LEFT(" + column + ", 1) IN ('=', '+', '-', '@', chr(9), chr(13)) THEN '''' || " + column +
+                " ELSE " + column + " END";
+    }
+
+    private long exportThroughCursor(Connection connection, OutputStream outputStream)
+            throws SQLException, IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        long rows = 0;
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_APPLICANTS,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet row = statement.executeQuery()) {
+                writer.write(HEADER);
+                writer.write('\n');
+                while (row.next()) {
+                    writer.write(Integer.toString(row.getInt(1)));
+                    writer.write(',');
+                    writer.write(csvField(row.getString(2)));
+                    writer.write(',');
+                    writer.write(csvField(row.getString(3)));
+                    writer.write(',');
+                    writer.write(csvField(row.getString(4)));
+                    writer.write('\n');
+                    rows++;
+                }
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+}
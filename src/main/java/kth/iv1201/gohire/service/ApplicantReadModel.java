@@ -0,0 +1,208 @@
+package kth.iv1201.gohire.service;
+
+import jakarta.annotation.PostConstruct;
+import kth.iv1201.gohire.DTO.ApplicantDTO;
+import kth.iv1201.gohire.repository.PersonRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory read model of all applicants, ordered by id, serving the applicant list without querying the database.
+ * It is loaded at startup and updated in place when an applicant is created or changed, once the change is committed.
+ * <p>
+ * The applicants are kept in an immutable snapshot that is replaced, never changed, so readers only read a volatile
+ * reference and never wait. Writers copy the snapshot and are serialized. Every update increases the version of the
+ * snapshot. A periodic reconciliation reloads the applicants from the database and replaces the snapshot if it has
+ * drifted, unless an update arrived while reloading.
+ * <p>
+ * Listeners are called after the new snapshot has been published and the writer lock released, so a slow listener
+ * never holds back other writers. Changes are queued for the listeners in the order of the snapshots, and the queue is
+ * drained by one thread at a time, so every listener still sees the changes one at a time and in order, and a change
+ * has reached every listener when <code>onApplicantChanged</code> returns.
+ */
+@Component
+public class ApplicantReadModel {
+    private static final int APPLICANT_ROLE_ID = 2;
+    private static final Comparator<ApplicantDTO> BY_ID = Comparator.comparingInt(ApplicantDTO::getId);
+
+    private final PersonRepository personRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final List<Consumer<ApplicantDTO>> applicantListeners = new CopyOnWriteArrayList<>();
+    private final Queue<ApplicantDTO> pendingNotifications = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock notificationLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(0, List.of());
+    private volatile long loadGeneration;
+    private volatile long driftCorrections;
+
+    /**
+     * Creates a new <code>ApplicantReadModel</code>.
+     * @param personRepository The <code>PersonRepository</code> the applicants are loaded from.
+     * @param transactionManager The transaction manager of the read-only transactions loading the applicants.
+     */
+    public ApplicantReadModel(PersonRepository personRepository, PlatformTransactionManager transactionManager) {
+        this.personRepository = personRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Loads the applicants at startup.
+     */
+    @PostConstruct
+    public void load() {
+        List<ApplicantDTO> applicants = loadApplicants();
+        synchronized (this) {
+            snapshot = new Snapshot(snapshot.version() + 1, applicants);
+            loadGeneration++;
+        }
+    }
+
+    /**
+     * @return All applicants ordered by id, as an unmodifiable list that never changes.
+     */
+    public List<ApplicantDTO> getApplicants() {
+        return snapshot.applicants();
+    }
+
+    /**
+     * @return The version of the applicants, increased by every change.
+     */
+    public long getVersion() {
+        return snapshot.version();
+    }
+
+    /**
+     * @return The number of times the applicants have been loaded from the database, at startup and when replaced by
+     * a reconciliation.
+     */
+    public long getLoadGeneration() {
+        return loadGeneration;
+    }
+
+    /**
+     * @return The number of times a reconciliation found that the applicants had drifted from the database and
+     * replaced them.
+     */
+    public long getDriftCorrections() {
+        return driftCorrections;
+    }
+
+    /**
+     * Adds a listener called with every created or changed applicant, after it has been added to the read model.
+     * Listeners are called one at a time, in the order of the changes.
+     * @param listener The listener to add.
+     */
+    public void addApplicantListener(Consumer<ApplicantDTO> listener) {
+        applicantListeners.add(listener);
+    }
+
+    /**
+     * Returns a tag identifying the current version of the applicants, distinct across restarts of the application.
+     * The tag changes whenever the applicants change, and it is read before the applicants, so applicants read after
+     * the tag are never older than the tag.
+     * @return The version tag, the startup time and the version.
+     */
+    public String getVersionTag() {
+        return epoch + "-" + snapshot.version();
+    }
+
+    /**
+     * Adds or replaces an applicant once the transaction creating or changing it has been committed.
+     * @param event The event describing the created or changed applicant.
+     */
+    @TransactionalEventListener
+    public void onApplicantChanged(ApplicantChangedEvent event) {
+        ApplicantDTO applicant = event.getApplicant();
+        synchronized (this) {
+            List<ApplicantDTO> applicants = new ArrayList<>(snapshot.applicants().size() + 1);
+            applicants.addAll(snapshot.applicants());
+            int index = Collections.binarySearch(applicants, applicant, BY_ID);
+            if (index >= 0)
+                applicants.set(index, applicant);
+            else
+                applicants.add(-index - 1, applicant);
+            snapshot = new Snapshot(snapshot.version() + 1, applicants);
+            pendingNotifications.add(applicant);
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Reloads the applicants from the database and replaces the read model if it has drifted, such as after changes
+     * made outside the application. The reloaded applicants are discarded if the read model changed while reloading,
+     * and the next reconciliation tries again.
+     * @return <code>true</code> if the read model had drifted and was replaced.
+     */
+    @Scheduled(initialDelayString = "${gohire.applicants.reconcile-interval-millis:300000}",
+            fixedDelayString = "${gohire.applicants.reconcile-interval-millis:300000}")
+    public boolean reconcile() {
+        long versionBeforeLoad = snapshot.version();
+        List<ApplicantDTO> applicants = loadApplicants();
+        synchronized (this) {
+            if (snapshot.version() != versionBeforeLoad || sameApplicants(snapshot.applicants(), applicants))
+                return false;
+            snapshot = new Snapshot(snapshot.version() + 1, applicants);
+            loadGeneration++;
+            driftCorrections++;
+            return true;
+        }
+    }
+
+    private void notifyListeners() {
+        notificationLock.lock();
+        try {
+            ApplicantDTO applicant;
+            while ((applicant = pendingNotifications.poll()) != null) {
+                for (Consumer<ApplicantDTO> listener : applicantListeners)
+                    listener.accept(applicant);
+            }
+        } finally {
+            notificationLock.unlock();
+        }
+    }
+
+    private List<ApplicantDTO> loadApplicants() {
+        List<ApplicantDTO> applicants = new ArrayList<>(Objects.requireNonNull(
+                readOnlyTransaction.execute(status -> personRepository.findApplicantSummaries(APPLICANT_ROLE_ID))));
+        applicants.sort(BY_ID);
+        return applicants;
+    }
+
+    private static boolean sameApplicants(List<ApplicantDTO> current, List<ApplicantDTO> loaded) {
+        if (current.size() != loaded.size())
+            return false;
+        for (int i = 0; i < current.size(); i++) {
+            ApplicantDTO applicant = current.get(i);
+            ApplicantDTO loadedApplicant = loaded.get(i);
+            if (applicant.getId() != loadedApplicant.getId() ||
+                    !Objects.equals(applicant.getFirstName(), loadedApplicant.getFirstName()) ||
+                    !Objects.equals(applicant.getLastName(), loadedApplicant.getLastName()) ||
+                    !Objects.equals(applicant.getStatus(), loadedApplicant.getStatus()))
+                return false;
+        }
+        return true;
+    }
+
+    private record Snapshot(long version, List<ApplicantDTO> applicants) {
+        private Snapshot {
+            applicants = Collections.unmodifiableList(applicants);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package kth.iv1201.gohire.service;
+
+import kth.iv1201.gohire.DTO.ApplicantDTO;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory trigram index over the first and last names of all applicants. Names are folded to lower case without
+ * diacritics, so <code>"Ångström"</code> is found by <code>"angstrom"</code>. Every word is indexed with two leading
+ * boundary characters, so that query words of three or more characters are found anywhere in a name, and shorter ones
+ * at the start of a word. The postings of every trigram are sorted arrays of applicant ids.
+ * <p>
+ * The index is built from the <code>ApplicantReadModel</code> at startup, and rebuilt by the next search after the read
+ * model has been reloaded from the database. New applicants are added as the read model receives them. Names of existing
+ * applicants never change, so status changes leave the index as it is. Matches are returned as the current applicants
+ * of the read model.
+ */
+@Component
+public class ApplicantSearchIndex {
+    private static final char BOUNDARY = '\0';
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[\\s\\-]+");
+    private static final Comparator<ApplicantDTO> BY_ID = Comparator.comparingInt(ApplicantDTO::getId);
+    private static final int INITIAL_POSTINGS_CAPACITY = 4;
+
+    private final ApplicantReadModel applicantReadModel;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, Postings> postingsByTrigram = new HashMap<>();
+    private volatile long indexedGeneration = -1;
+
+    /**
+     * Creates a new <code>ApplicantSearchIndex</code>.
+     * @param applicantReadModel The <code>ApplicantReadModel</code> the index is built from and matches are read from.
+     */
+    public ApplicantSearchIndex(ApplicantReadModel applicantReadModel) {
+        this.applicantReadModel = applicantReadModel;
+        applicantReadModel.addApplicantListener(this::add);
+        rebuild();
+    }
+
+    /**
+     * Finds the applicants whose names contain every word of a query, ignoring case and diacritics. Query words shorter
+     * than three characters only match the start of a word in a name.
+     * @param query The words to search for.
+     * @param limit The maximum number of applicants to return.
+     * @return The matching applicants, ordered by id.
+     */
+    public List<ApplicantDTO> search(String query, int limit) {
+        if (applicantReadModel.getLoadGeneration() != indexedGeneration)
+            rebuild();
+        List<String> queryWords = words(query);
+        if (queryWords.isEmpty() || limit <= 0)
+            return List.of();
+        List<ApplicantDTO> applicants = applicantReadModel.getApplicants();
+        List<ApplicantDTO> matches = new ArrayList<>(Math.min(limit, 64));
+        lock.readLock().lock();
+        try {
+            List<Postings> required = new ArrayList<>();
+            for (String queryWord : queryWords) {
+                for (long trigram : queryTrigrams(queryWord)) {
+                    Postings postings = postingsByTrigram.get(trigram);
+                    if (postings == null)
+                        return List.of();
+                    required.add(postings);
+                }
+            }
+            required.sort(Comparator.comparingInt(Postings::size));
+            Postings smallest = required.get(0);
+            int[] positions = new int[required.size()];
+            for (int i = 0; i < smallest.size() && matches.size() < limit; i++) {
+                int id = smallest.ids()[i];
+                if (!containedInAll(required, positions, id))
+                    continue;
+                ApplicantDTO applicant = findApplicant(applicants, id);
+                if (applicant != null && matchesAllWords(applicant, queryWords))
+                    matches.add(applicant);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    /**
+     * Adds an applicant to the index. Adding an applicant that is already in the index changes nothing.
+     * @param applicant The created or changed applicant.
+     */
+    public void add(ApplicantDTO applicant) {
+        lock.writeLock().lock();
+        try {
+            for (long trigram : nameTrigrams(applicant))
+                postingsByTrigram.computeIfAbsent(trigram, key -> new Postings()).add(applicant.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of distinct trigrams in the index.
+     */
+    public int getTrigrams() {
+        lock.readLock().lock();
+        try {
+            return postingsByTrigram.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Folds a text for searching, to lower case without diacritics.
+     * @param text The text to fold.
+     * @return The folded text.
+     */
+    static String fold(String text) {
+        if (isAscii(text))
+            return text.toLowerCase(Locale.ROOT);
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++)
+            if (text.charAt(i) >= 0x80)
+                return false;
+        return true;
+    }
+
+    private void rebuild() {
+        lock.writeLock().lock();
+        try {
+            long generation = applicantReadModel.getLoadGeneration();
+            if (generation == indexedGeneration)
+                return;
+            Map<Long, Postings> rebuilt = new HashMap<>();
+            for (ApplicantDTO applicant : applicantReadModel.getApplicants()) {
+                for (long trigram : nameTrigrams(applicant))
+                    rebuilt.computeIfAbsent(trigram, key -> new Postings()).add(applicant.getId());
+            }
+            postingsByTrigram = rebuilt;
+            indexedGeneration = generation;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long[] nameTrigrams(ApplicantDTO applicant) {
+        List<String> nameWords = words(applicant.getFirstName() + " " + applicant.getLastName());
+        int count = 0;
+        for (String word : nameWords)
+            count += word.length();
+        long[] trigrams = new long[count];
+        count = 0;
+        for (String word : nameWords) {
+            String padded = "" + BOUNDARY + BOUNDARY + word;
+            for (int i = 0; i + 3 <= padded.length(); i++)
+                trigrams[count++] = trigram(padded, i);
+        }
+        return Arrays.stream(trigrams).distinct().toArray();
+    }
+
+    private static long[] queryTrigrams(String queryWord) {
+        if (queryWord.length() < 3) {
+            String padded = (queryWord.length() == 1 ? "" + BOUNDARY + BOUNDARY : "" + BOUNDARY) + queryWord;
+            return new long[] {trigram(padded, 0)};
+        }
+        long[] trigrams = new long[queryWord.length() - 2];
+        for (int i = 0; i < trigrams.length; i++)
+            trigrams[i] = trigram(queryWord, i);
+        return trigrams;
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    private static List<String> words(String text) {
+        if (text == null)
+            return List.of();
+        List<String> words = new ArrayList<>();
+        for (String word : WORD_SEPARATORS.split(fold(text).strip()))
+            if (!word.isEmpty())
+                words.add(word);
+        return words;
+    }
+
+    private static boolean containedInAll(List<Postings> required, int[] positions, int id) {
+        for (int i = 1; i < required.size(); i++) {
+            Postings postings = required.get(i);
+            positions[i] = postings.seek(positions[i], id);
+            if (positions[i] == postings.size() || postings.ids()[positions[i]] != id)
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean matchesAllWords(ApplicantDTO applicant, List<String> queryWords) {
+        List<String> nameWords = words(applicant.getFirstName() + " " + applicant.getLastName());
+        for (String queryWord : queryWords) {
+            boolean found = false;
+            for (String nameWord : nameWords) {
+                if (queryWord.length() < 3 ? nameWord.startsWith(queryWord) : nameWord.contains(queryWord)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found)
+                return false;
+        }
+        return true;
+    }
+
+    private static ApplicantDTO findApplicant(List<ApplicantDTO> applicants, int id) {
+        int index = Collections.binarySearch(applicants, new ApplicantDTO(id, null, null, null), BY_ID);
+        return index >= 0 ? applicants.get(index) : null;
+    }
+
+    private static final class Postings {
+        private int[] ids = new int[INITIAL_POSTINGS_CAPACITY];
+        private int size;
+
+        int[] ids() {
+            return ids;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int index = Arrays.binarySearch(ids, 0, size, id);
+                if (index >= 0)
+                    return;
+                insertAt(-index - 1, id);
+                return;
+            }
+            if (size == ids.length)
+                ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        /**
+         * Finds the first position at or after <code>from</code> holding an id of at least <code>id</code>, galloping
+         * forward so that scanning the postings with increasing ids costs the logarithm of the distance moved.
+         */
+        int seek(int from, int id) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && ids[high] < id) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            if (high >= size)
+                high = size;
+            int index = Arrays.binarySearch(ids, low, high, id);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        private void insertAt(int index, int id) {
+            if (size == ids.length)
+                ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package kth.iv1201.gohire.service;
+
+import kth.iv1201.gohire.DTO.LogEventDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Service Class that persists audited events to the <code>audit_event</code> table.
+ */
+@Service
+@Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRES_NEW)
+public class AuditService {
+    private static final String INSERT_PREFIX =
+            "INSERT INTO audit_event (event_type, actor, subject_id, detail, occurred_at) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 5;
+    private static final int MAX_ROWS_PER_STATEMENT = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates an instance of the <code>AuditService</code>.
+     * @param jdbcTemplate The <code>JdbcTemplate</code> used to insert the events.
+     */
+    @Autowired
+    public AuditService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the supplied events in one transaction, using multi-row inserts of up to
+     * <code>MAX_ROWS_PER_STATEMENT</code> events each.
+     * @param events The events to persist.
+     */
+    public void saveAuditEvents(List<LogEventDTO> events) {
+        for (int start = 0; start < events.size(); start += MAX_ROWS_PER_STATEMENT) {
+            List<LogEventDTO> chunk = events.subList(start, Math.min(events.size(), start + MAX_ROWS_PER_STATEMENT));
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+            Object[] arguments = new Object[chunk.size() * COLUMNS];
+            for (int row = 0; row < chunk.size(); row++) {
+                LogEventDTO event = chunk.get(row);
+                sql.append(row == 0 ? "" : ", ").append(ROW_PLACEHOLDERS);
+                arguments[row * COLUMNS] = event.getType().name();
+                arguments[row * COLUMNS + 1] = event.getActor();
+                arguments[row * COLUMNS + 2] = event.getSubjectId();
+                arguments[row * COLUMNS + 3] = event.getDetail();
+                arguments[row * COLUMNS + 4] = Timestamp.from(event.getTimestamp());
+            }
+            jdbcTemplate.update(sql.toString(), arguments);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package kth.iv1201.gohire.service;
+
+import kth.iv1201.gohire.DTO.PersistentLoginTokenDTO;
+import kth.iv1201.gohire.entity.PersistentLoginEntity;
+import kth.iv1201.gohire.repository.PersistentLoginRepository;
+import kth.iv1201.gohire.service.exception.InvalidPersistentLoginException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Service Class that handles remembered logins. Tokens are random and long, so they are stored as SHA-256 hashes and
+ * compared in constant time instead of being hashed with BCrypt. Each use replaces the token, and a token that is
+ * reused after it was replaced removes every remembered login of the person.
+ */
+@Service
+@Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRES_NEW)
+public class PersistentLoginService {
+    private static final int SERIES_BYTES = 16;
+    private static final int TOKEN_BYTES = 32;
+
+    private final PersistentLoginRepository persistentLoginRepository;
+    private final SecureRandom random = new SecureRandom();
+    private final Duration validity;
+    private final Duration rotationGrace;
+
+    /**
+     * Creates an instance of the <code>PersistentLoginService</code>.
+     * @param persistentLoginRepository The <code>PersistentLoginRepository</code> storing the remembered logins.
+     * @param validitySeconds How long a remembered login stays valid after its last use.
+     * @param rotationGraceSeconds How long the previous token is still accepted, for requests sent before the
+     *                             replaced token reached the browser.
+     */
+    @Autowired
+    public PersistentLoginService(PersistentLoginRepository persistentLoginRepository,
+                                  @Value("${gohire.security.remember-me.validity-seconds:1209600}") long validitySeconds,
+                                  @Value("${gohire.security.remember-me.rotation-grace-seconds:10}") long rotationGraceSeconds) {
+        this.persistentLoginRepository = persistentLoginRepository;
+        this.validity = Duration.ofSeconds(validitySeconds);
+        this.rotationGrace = Duration.ofSeconds(rotationGraceSeconds);
+    }
+
+    /**
+     * Remembers the login of a person under a new series.
+     * @param username The username of the person.
+     * @return The series and raw token to store in the remember-me cookie.
+     */
+    public PersistentLoginTokenDTO createPersistentLogin(String username) {
+        String token = randomString(TOKEN_BYTES);
+        PersistentLoginEntity persistentLogin = new PersistentLoginEntity();
+        persistentLogin.setSeries(randomString(SERIES_BYTES));
+        persistentLogin.setUsername(username);
+        persistentLogin.setTokenHash(hash(token));
+        persistentLogin.setLastUsed(Instant.now());
+        persistentLoginRepository.save(persistentLogin);
+        return new PersistentLoginTokenDTO(persistentLogin.getSeries(), token, username);
+    }
+
+    /**
+     * Checks the token of a remembered login and replaces it with a new one.
+     * @param series The series from the remember-me cookie.
+     * @param token The raw token from the remember-me cookie.
+     * @return The new token, or a <code>null</code> token if the previous token was used within the grace period.
+     * @throws InvalidPersistentLoginException If the series is unknown or expired, or the token does not match.
+     */
+    @Transactional(rollbackFor = Exception.class, noRollbackFor = InvalidPersistentLoginException.class,
+            propagation = Propagation.REQUIRES_NEW)
+    public PersistentLoginTokenDTO rotatePersistentLogin(String series, String token)
+            throws InvalidPersistentLoginException {
+        PersistentLoginEntity persistentLogin = persistentLoginRepository.findBySeries(series);
+        if (persistentLogin == null)
+            throw new InvalidPersistentLoginException("No remembered login with the given series.");
+        Instant now = Instant.now();
+        if (persistentLogin.getLastUsed().plus(validity).isBefore(now)) {
+            persistentLoginRepository.delete(persistentLogin);
+            throw new InvalidPersistentLoginException("The remembered login has expired.");
+        }
+        byte[] tokenHash = hash(token);
+        if (MessageDigest.isEqual(tokenHash, persistentLogin.getTokenHash())) {
+            String newToken = randomString(TOKEN_BYTES);
+            persistentLogin.setPreviousTokenHash(persistentLogin.getTokenHash());
+            persistentLogin.setTokenHash(hash(newToken));
+            persistentLogin.setLastUsed(now);
+            return new PersistentLoginTokenDTO(series, newToken, persistentLogin.getUsername());
+        }
+        if (persistentLogin.getPreviousTokenHash() != null &&
+                MessageDigest.isEqual(tokenHash, persistentLogin.getPreviousTokenHash()) &&
+                persistentLogin.getLastUsed().plus(rotationGrace).isAfter(now))
+            return new PersistentLoginTokenDTO(series, null, persistentLogin.getUsername());
+        persistentLoginRepository.deleteByUsername(persistentLogin.getUsername());
+        throw new InvalidPersistentLoginException("A replaced remember-me token was used, every remembered login of " +
+                "the person was removed.");
+    }
+
+    /**
+     * Forgets a remembered login.
+     * @param series The series of the login.
+     */
+    public void removePersistentLogin(String series) {
+        persistentLoginRepository.deleteById(series);
+    }
+
+    /**
+     * Forgets every remembered login that has not been used within the validity period.
+     */
+    public void removeExpiredPersistentLogins() {
+        persistentLoginRepository.deleteByLastUsedBefore(Instant.now().minus(validity));
+    }
+
+    private String randomString(int bytes) {
+        byte[] randomBytes = new byte[bytes];
+        random.nextBytes(randomBytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+    }
+
+    private static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+}
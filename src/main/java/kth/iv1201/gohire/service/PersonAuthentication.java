@@ -0,0 +1,179 @@
+package kth.iv1201.gohire.service;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact authentication of a logged-in person, kept in sessions instead of the full authentication token. Only the
+ * person id, username and role name are stored. The authorities are shared between all persons with the same role,
+ * and the <code>PersonUserDetails</code> principal is created when asked for.
+ * <p>
+ * Sessions are serialized in a versioned binary format of a format version byte, the person id, and the modified
+ * UTF-8 username and role name, instead of the default Java serialization of the token.
+ */
+public final class PersonAuthentication implements Authentication {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final byte FORMAT_VERSION = 1;
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final Map<String, List<GrantedAuthority>> AUTHORITIES_BY_ROLE = new ConcurrentHashMap<>();
+
+    private final int personId;
+    private final String username;
+    private final String roleName;
+    private volatile boolean authenticated = true;
+
+    /**
+     * Creates a new <code>PersonAuthentication</code>.
+     * @param personId The id of the person.
+     * @param username The person's username.
+     * @param roleName The name of the person's role, such as <code>recruiter</code>.
+     */
+    public PersonAuthentication(int personId, String username, String roleName) {
+        this.personId = personId;
+        this.username = username;
+        this.roleName = roleName.intern();
+    }
+
+    /**
+     * Creates the compact form of an authentication of a person.
+     * @param authentication The authentication to convert.
+     * @return The <code>PersonAuthentication</code>, or <code>null</code> if the principal is not a person.
+     */
+    public static PersonAuthentication of(Authentication authentication) {
+        if (authentication instanceof PersonAuthentication personAuthentication)
+            return personAuthentication;
+        if (authentication != null && authentication.getPrincipal() instanceof PersonUserDetails principal)
+            return new PersonAuthentication(principal.getPersonId(), principal.getUsername(), principal.getRoleName());
+        return null;
+    }
+
+    /**
+     * Writes the authentication in the versioned binary format.
+     * @return The serialized authentication.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Byte.BYTES + Integer.BYTES + 2 * Short.BYTES +
+                username.length() + roleName.length());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(personId);
+            out.writeUTF(username);
+            out.writeUTF(roleName);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize authentication.", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads an authentication written by <code>toBytes</code>.
+     * @param bytes The serialized authentication.
+     * @return The <code>PersonAuthentication</code>.
+     * @throws IllegalArgumentException If the bytes are not a serialized authentication of a known format version.
+     */
+    public static PersonAuthentication fromBytes(byte[] bytes) throws IllegalArgumentException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION)
+                throw new IllegalArgumentException("Unknown authentication format version " + version + ".");
+            return new PersonAuthentication(in.readInt(), in.readUTF(), in.readUTF());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed serialized authentication.", e);
+        }
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return AUTHORITIES_BY_ROLE.computeIfAbsent(roleName,
+                role -> List.of(new SimpleGrantedAuthority(ROLE_PREFIX + role)));
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getDetails() {
+        return null;
+    }
+
+    @Override
+    public PersonUserDetails getPrincipal() {
+        return new PersonUserDetails(personId, username, "", roleName);
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    @Override
+    public void setAuthenticated(boolean isAuthenticated) {
+        this.authenticated = isAuthenticated;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public int getPersonId() {
+        return personId;
+    }
+
+    public String getRoleName() {
+        return roleName;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PersonAuthentication that && personId == that.personId &&
+                authenticated == that.authenticated && username.equals(that.username) && roleName.equals(that.roleName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(personId, username, roleName);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [Username=" + username + ", Role=" + roleName + ", Authenticated=" +
+                authenticated + "]";
+    }
+
+    @Serial
+    private Object writeReplace() {
+        return new SerializedForm(toBytes());
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("PersonAuthentication is serialized through its binary format.");
+    }
+
+    private record SerializedForm(byte[] bytes) implements Serializable {
+        @Serial
+        private Object readResolve() {
+            return fromBytes(bytes);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package kth.iv1201.gohire.service;
+
+/**
+ * Application event published by the <code>PersonService</code> when a person is created or changed.
+ */
+public class PersonChangedEvent {
+    private final String username;
+
+    /**
+     * Creates a new <code>PersonChangedEvent</code>.
+     * @param username The username of the created or changed person.
+     */
+    public PersonChangedEvent(String username) {
+        this.username = username;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+}
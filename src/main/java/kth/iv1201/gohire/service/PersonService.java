@@ -1,26 +1,42 @@
 package kth.iv1201.gohire.service;
 
+import kth.iv1201.gohire.DTO.ApplicantChangesDTO;
 import kth.iv1201.gohire.DTO.ApplicantDTO;
+import kth.iv1201.gohire.DTO.ApplicantPageDTO;
 import kth.iv1201.gohire.DTO.ChangeApplicationStatusRequestDTO;
 import kth.iv1201.gohire.DTO.CreateApplicantRequestDTO;
 import kth.iv1201.gohire.DTO.LoggedInPersonDTO;
+import kth.iv1201.gohire.controller.util.ApplicantSortOrder;
 import kth.iv1201.gohire.entity.ApplicationStatusEntity;
+import kth.iv1201.gohire.entity.ChangeSequenceEntity;
 import kth.iv1201.gohire.entity.PersonEntity;
 import kth.iv1201.gohire.entity.RoleEntity;
 import kth.iv1201.gohire.repository.ApplicationStatusRepository;
+import kth.iv1201.gohire.repository.ChangeSequenceRepository;
 import kth.iv1201.gohire.repository.RoleRepository;
 import kth.iv1201.gohire.repository.PersonRepository;
 import kth.iv1201.gohire.service.exception.ApplicationHandledException;
+import kth.iv1201.gohire.service.exception.InvalidPageCursorException;
 import kth.iv1201.gohire.service.exception.UserCreationFailedException;
 import kth.iv1201.gohire.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.LinkedList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service Class that handles business logic related to persons.
@@ -32,25 +48,43 @@ public class PersonService {
     private final int APPLICATION_STATUS_ACCEPTED = 1;
     private final int APPLICATION_STATUS_REJECTED = 2;
     private final int APPLICATION_STATUS_UNHANDLED = 3;
+    private final int MAX_APPLICANT_PAGE_SIZE = 500;
+    private final int MAX_APPLICANT_SEARCH_RESULTS = 100;
+    private final String PERSON_CHANGE_SEQUENCE = "person";
 
     private final PersonRepository personRepository;
     private final RoleRepository roleRepository;
     private final ApplicationStatusRepository applicationStatusRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ApplicantReadModel applicantReadModel;
+    private final ChangeSequenceRepository changeSequenceRepository;
+    private final ApplicantSearchIndex applicantSearchIndex;
 
     /**
     * Creates an instance of the <code>PersonService</code>.
     * @param personRepository The <code>PersonRepository</code> to use.
     * @param roleRepository The <code>RoleRepository</code> to use.
      * @param passwordEncoder the <code>PasswordEncoder</code> implementation to use for encoding passwords.
+     * @param eventPublisher the <code>ApplicationEventPublisher</code> notified when a person is created or changed.
+     * @param applicantReadModel the <code>ApplicantReadModel</code> serving the list of all applicants.
+     * @param changeSequenceRepository the <code>ChangeSequenceRepository</code> stamping changed applicants.
+     * @param applicantSearchIndex the <code>ApplicantSearchIndex</code> finding applicants by name.
     */
     @Autowired
     public PersonService(PersonRepository personRepository, RoleRepository roleRepository,
-                         ApplicationStatusRepository applicationStatusRepository,PasswordEncoder passwordEncoder) {
+                         ApplicationStatusRepository applicationStatusRepository,PasswordEncoder passwordEncoder,
+                         ApplicationEventPublisher eventPublisher, ApplicantReadModel applicantReadModel,
+                         ChangeSequenceRepository changeSequenceRepository,
+                         ApplicantSearchIndex applicantSearchIndex) {
         this.personRepository = personRepository;
         this.roleRepository = roleRepository;
         this.applicationStatusRepository = applicationStatusRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.applicantReadModel = applicantReadModel;
+        this.changeSequenceRepository = changeSequenceRepository;
+        this.applicantSearchIndex = applicantSearchIndex;
     }
 
     /**
@@ -92,23 +126,107 @@ public class PersonService {
         personEntity.setUsername(createUserRequestDTO.getUsername());
         personEntity.setPassword(encodedPassword);
         personEntity.setApplicationStatus(applicationStatusEntity);
+        personEntity.setChangeSeq(nextChangeSequence());
         personEntity = personRepository.save(personEntity);
+        eventPublisher.publishEvent(new PersonChangedEvent(personEntity.getUsername()));
+        eventPublisher.publishEvent(new ApplicantChangedEvent(new ApplicantDTO(personEntity.getId(),
+                personEntity.getName(), personEntity.getSurname(), applicationStatusEntity.getStatus())));
         return new LoggedInPersonDTO(personEntity.getId(), personEntity.getUsername(), personEntity.getRole().getName());
     }
 
     /**
-     * Fetches all applicants from the database.
-     * @return A list of all applicants.
+     * Fetches all applicants from the <code>ApplicantReadModel</code>, without querying the database or starting a
+     * transaction. Applicants created or changed by this application are listed as soon as the change is committed.
+     * @return An unmodifiable list of all applicants, ordered by id.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<ApplicantDTO> fetchApplicants() {
-        RoleEntity roleEntity = roleRepository.findRoleById(APPLICANT_ROLE_ID);
-        List<PersonEntity> persons = personRepository.findPersonEntitiesByRoleIs(roleEntity);
-        List<ApplicantDTO> applicants = new LinkedList<>();
-        for(PersonEntity person : persons) {
-            applicants.add(new ApplicantDTO(person.getId(), person.getName(), person.getSurname(),
-                    person.getApplicationStatus().getStatus()));
+        return applicantReadModel.getApplicants();
+    }
+
+    /**
+     * Searches for applicants by name in the <code>ApplicantSearchIndex</code>, without querying the database or
+     * starting a transaction. Case and diacritics are ignored.
+     * @param query The words to search for. Words of three or more characters are found anywhere in a name, shorter
+     *              words at the start of a word.
+     * @param limit The maximum number of applicants to return, limited to between 1 and 100.
+     * @return The applicants whose names contain every word of the query, ordered by id.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ApplicantDTO> searchApplicants(String query, int limit) {
+        return applicantSearchIndex.search(query, Math.max(1, Math.min(limit, MAX_APPLICANT_SEARCH_RESULTS)));
+    }
+
+    /**
+     * Fetches a tag identifying the current version of the list of all applicants, without querying the database. The
+     * tag changes whenever an applicant is created or an application status is changed.
+     * @return The version tag of the list returned by <code>fetchApplicants</code>.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String fetchApplicantsVersion() {
+        return applicantReadModel.getVersionTag();
+    }
+
+    /**
+     * Fetches the applicants created or whose application status was changed after a change sequence value. The
+     * returned high-water mark is the last committed value of the sequence when the changes were fetched, and every
+     * change up to it is included, since changes are committed in sequence order. Changes after the mark may also be
+     * included, and are then returned again when asking for the changes after the mark.
+     * @param since The high-water mark returned with the previous changes, or <code>null</code> to only fetch the
+     *              current high-water mark.
+     * @return The changed applicants, ordered by change, and the high-water mark to ask for changes after next.
+     */
+    @Transactional(readOnly = true, rollbackFor = Exception.class, propagation = Propagation.REQUIRES_NEW)
+    public ApplicantChangesDTO fetchApplicantChanges(Long since) {
+        long highWaterMark = changeSequenceRepository.findValueByName(PERSON_CHANGE_SEQUENCE);
+        if (since == null)
+            return new ApplicantChangesDTO(List.of(), highWaterMark);
+        return new ApplicantChangesDTO(personRepository.findApplicantsChangedAfter(APPLICANT_ROLE_ID, since),
+                highWaterMark);
+    }
+
+    /**
+     * Streams every applicant to a consumer as the rows are read from a database cursor, so that memory use does not
+     * grow with the number of applicants. The applicants are read as DTOs, so no entities accumulate in the
+     * persistence context while streaming.
+     * @param consumer Receives every applicant, ordered by id.
+     */
+    @Transactional(readOnly = true, rollbackFor = Exception.class, propagation = Propagation.REQUIRES_NEW)
+    public void streamApplicants(Consumer<ApplicantDTO> consumer) {
+        try (Stream<ApplicantDTO> applicants = personRepository.streamApplicants(APPLICANT_ROLE_ID)) {
+            applicants.forEach(consumer);
+        }
+    }
+
+    /**
+     * Fetches one page of applicants. Pages are found by a keyset cursor holding the sort key of the last applicant on
+     * the previous page, so only the rows on the page are read, however far into the list the page is. The order is
+     * stable, ties on names are broken by id.
+     * @param sortOrder The order to list the applicants in.
+     * @param status The application status to filter by, or <code>null</code> for all statuses.
+     * @param pageSize The maximum number of applicants on the page, limited to between 1 and 500.
+     * @param cursor The cursor of the page, as returned with the previous page, or <code>null</code> for the first page.
+     * @return The page of applicants and the cursor of the next page.
+     * @throws InvalidPageCursorException If the cursor is malformed or was returned for another sort order.
+     */
+    @Transactional(readOnly = true, rollbackFor = Exception.class, propagation = Propagation.REQUIRES_NEW)
+    public ApplicantPageDTO fetchApplicantPage(ApplicantSortOrder sortOrder, String status, int pageSize, String cursor)
+            throws InvalidPageCursorException {
+        int size = Math.max(1, Math.min(pageSize, MAX_APPLICANT_PAGE_SIZE));
+        PageRequest pageWithNext = PageRequest.of(0, size + 1);
+        List<ApplicantDTO> applicants;
+        if (sortOrder == ApplicantSortOrder.NAME) {
+            ApplicantDTO after = cursor == null ? new ApplicantDTO(0, "", "", null) : decodeCursor(sortOrder, cursor);
+            applicants = personRepository.findApplicantPageOrderedByName(APPLICANT_ROLE_ID, status,
+                    after.getLastName(), after.getFirstName(), after.getId(), pageWithNext);
+        } else {
+            int afterId = cursor == null ? 0 : decodeCursor(sortOrder, cursor).getId();
+            applicants = personRepository.findApplicantPageOrderedById(APPLICANT_ROLE_ID, status, afterId, pageWithNext);
         }
-        return applicants;
+        if (applicants.size() <= size)
+            return new ApplicantPageDTO(applicants, size, null);
+        applicants = applicants.subList(0, size);
+        return new ApplicantPageDTO(applicants, size, encodeCursor(sortOrder, applicants.get(size - 1)));
     }
 
     /**
@@ -126,10 +244,54 @@ public class PersonService {
             else
                 applicationStatus = APPLICATION_STATUS_REJECTED;
             applicant.setApplicationStatus(applicationStatusRepository.findById(applicationStatus));
+            applicant.setChangeSeq(nextChangeSequence());
             applicant = personRepository.save(applicant);
-            return new ApplicantDTO(applicant.getId(), applicant.getName(), applicant.getSurname(), request.getNewStatus());
+            eventPublisher.publishEvent(new PersonChangedEvent(applicant.getUsername()));
+            ApplicantDTO changedApplicant = new ApplicantDTO(applicant.getId(), applicant.getName(),
+                    applicant.getSurname(), request.getNewStatus());
+            eventPublisher.publishEvent(new ApplicantChangedEvent(changedApplicant));
+            return changedApplicant;
         }
         else
             throw new ApplicationHandledException("The application has already been handled.");
     }
+
+    private long nextChangeSequence() {
+        ChangeSequenceEntity sequence = changeSequenceRepository.findByName(PERSON_CHANGE_SEQUENCE);
+        if (sequence == null)
+            throw new IllegalStateException("The change sequence '" + PERSON_CHANGE_SEQUENCE + "' does not exist, " +
+                    "it is created by db/change_sequence.sql.");
+        sequence.setValue(sequence.getValue() + 1);
+        changeSequenceRepository.save(sequence);
+        return sequence.getValue();
+    }
+
+    private String encodeCursor(ApplicantSortOrder sortOrder, ApplicantDTO last) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(sortOrder.ordinal());
+            out.writeInt(last.getId());
+            if (sortOrder == ApplicantSortOrder.NAME) {
+                out.writeUTF(Objects.requireNonNullElse(last.getLastName(), ""));
+                out.writeUTF(Objects.requireNonNullElse(last.getFirstName(), ""));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode page cursor.", e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    private ApplicantDTO decodeCursor(ApplicantSortOrder sortOrder, String cursor) throws InvalidPageCursorException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            if (in.readByte() != sortOrder.ordinal())
+                throw new InvalidPageCursorException("The page cursor belongs to another sort order.");
+            int id = in.readInt();
+            if (sortOrder != ApplicantSortOrder.NAME)
+                return new ApplicantDTO(id, null, null, null);
+            String lastName = in.readUTF();
+            return new ApplicantDTO(id, in.readUTF(), lastName, null);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidPageCursorException("The page cursor is malformed.");
+        }
+    }
 }
@@ -0,0 +1,38 @@
+package kth.iv1201.gohire.service;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+
+/**
+ * Authenticated principal of a person, carrying the person's id and role name so that they do not have to be fetched
+ * again after authentication. Equality is based on the username, as for <code>User</code>.
+ */
+public class PersonUserDetails extends User {
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final Integer personId;
+    private final String roleName;
+
+    /**
+     * Creates a new <code>PersonUserDetails</code>.
+     * @param personId The id of the person.
+     * @param username The person's username.
+     * @param password The person's encoded password.
+     * @param roleName The name of the person's role, such as <code>recruiter</code>.
+     */
+    public PersonUserDetails(Integer personId, String username, String password, String roleName) {
+        super(username, password, List.of(new SimpleGrantedAuthority(ROLE_PREFIX + roleName)));
+        this.personId = personId;
+        this.roleName = roleName;
+    }
+
+    public Integer getPersonId() {
+        return personId;
+    }
+
+    public String getRoleName() {
+        return roleName;
+    }
+}
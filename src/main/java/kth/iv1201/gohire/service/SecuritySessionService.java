@@ -0,0 +1,149 @@
+package kth.iv1201.gohire.service;
+
+import kth.iv1201.gohire.DTO.SecuritySessionDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service Class that stores shared login sessions in the <code>security_session</code> table with plain JDBC batches.
+ */
+@Service
+@Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRES_NEW)
+public class SecuritySessionService {
+    private static final String SELECT_SESSION =
+            "SELECT version, username, context, last_access FROM security_session WHERE session_id = ?";
+    private static final String SELECT_VERSION =
+            "SELECT version, last_access FROM security_session WHERE session_id = ?";
+    private static final String UPDATE_SESSION =
+            "UPDATE security_session SET version = ?, username = ?, context = ?, last_access = ? WHERE session_id = ?";
+    private static final String INSERT_SESSION =
+            "INSERT INTO security_session (session_id, version, username, context, last_access) VALUES (?, ?, ?, ?, ?)";
+    private static final String TOUCH_SESSION = "UPDATE security_session SET last_access = ? WHERE session_id = ?";
+    private static final String DELETE_SESSION = "DELETE FROM security_session WHERE session_id = ?";
+    private static final String DELETE_SESSION_IF_EXPIRED =
+            "DELETE FROM security_session WHERE session_id = ? AND last_access < ?";
+    private static final String DELETE_EXPIRED = "DELETE FROM security_session WHERE session_id IN " +
+            "(SELECT session_id FROM security_session WHERE last_access < ? LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates an instance of the <code>SecuritySessionService</code>.
+     * @param jdbcTemplate The <code>JdbcTemplate</code> used to access the sessions.
+     */
+    @Autowired
+    public SecuritySessionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Fetches a session.
+     * @param sessionId The id of the session.
+     * @return The session, or <code>null</code> if it does not exist.
+     */
+    public SecuritySessionDTO fetchSession(String sessionId) {
+        List<SecuritySessionDTO> sessions = jdbcTemplate.query(SELECT_SESSION, (row, rowNumber) ->
+                new SecuritySessionDTO(sessionId, row.getLong(1), row.getString(2), row.getBytes(3),
+                        row.getTimestamp(4).toInstant()), sessionId);
+        return sessions.isEmpty() ? null : sessions.get(0);
+    }
+
+    /**
+     * Fetches only the version and last access of a session, to check if a cached copy is still current without
+     * reading the context.
+     * @param sessionId The id of the session.
+     * @return The session without its username and context, or <code>null</code> if it does not exist.
+     */
+    public SecuritySessionDTO fetchSessionVersion(String sessionId) {
+        List<SecuritySessionDTO> sessions = jdbcTemplate.query(SELECT_VERSION, (row, rowNumber) ->
+                new SecuritySessionDTO(sessionId, row.getLong(1), null, null, row.getTimestamp(2).toInstant()),
+                sessionId);
+        return sessions.isEmpty() ? null : sessions.get(0);
+    }
+
+    /**
+     * Writes sessions in one transaction, updating existing rows in one batch and inserting the rest in another.
+     * @param sessions The sessions to write.
+     */
+    public void saveSessions(List<SecuritySessionDTO> sessions) {
+        if (sessions.isEmpty())
+            return;
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_SESSION, sessions, sessions.size(), (statement, session) -> {
+            statement.setLong(1, session.getVersion());
+            statement.setString(2, session.getUsername());
+            statement.setBytes(3, session.getContext());
+            statement.setTimestamp(4, Timestamp.from(session.getLastAccess()));
+            statement.setString(5, session.getSessionId());
+        })[0];
+        List<SecuritySessionDTO> missing = new ArrayList<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            if (updated[i] == 0)
+                missing.add(sessions.get(i));
+        }
+        if (missing.isEmpty())
+            return;
+        jdbcTemplate.batchUpdate(INSERT_SESSION, missing, missing.size(), (statement, session) -> {
+            statement.setString(1, session.getSessionId());
+            statement.setLong(2, session.getVersion());
+            statement.setString(3, session.getUsername());
+            statement.setBytes(4, session.getContext());
+            statement.setTimestamp(5, Timestamp.from(session.getLastAccess()));
+        });
+    }
+
+    /**
+     * Records the last access of sessions whose context did not change.
+     * @param lastAccesses The last access time per session id.
+     */
+    public void touchSessions(Map<String, Instant> lastAccesses) {
+        if (lastAccesses.isEmpty())
+            return;
+        List<Map.Entry<String, Instant>> entries = new ArrayList<>(lastAccesses.entrySet());
+        jdbcTemplate.batchUpdate(TOUCH_SESSION, entries, entries.size(), (statement, entry) -> {
+            statement.setTimestamp(1, Timestamp.from(entry.getValue()));
+            statement.setString(2, entry.getKey());
+        });
+    }
+
+    /**
+     * Deletes sessions.
+     * @param sessionIds The ids of the sessions to delete.
+     */
+    public void deleteSessions(Collection<String> sessionIds) {
+        if (sessionIds.isEmpty())
+            return;
+        List<String> ids = new ArrayList<>(sessionIds);
+        jdbcTemplate.batchUpdate(DELETE_SESSION, ids, ids.size(), (statement, id) -> statement.setString(1, id));
+    }
+
+    /**
+     * Deletes a session only if it has not been used since the cutoff according to the database, so that an instance
+     * with an outdated copy of the session does not remove a session that is used through another instance.
+     * @param sessionId The id of the session.
+     * @param cutoff The session is deleted if it was last used before this time.
+     * @return <code>true</code> if the session was deleted.
+     */
+    public boolean deleteSessionIfExpired(String sessionId, Instant cutoff) {
+        return jdbcTemplate.update(DELETE_SESSION_IF_EXPIRED, sessionId, Timestamp.from(cutoff)) > 0;
+    }
+
+    /**
+     * Deletes one chunk of sessions that have not been used since the cutoff, keeping each transaction short.
+     * @param cutoff Sessions last used before this time are deleted.
+     * @param chunkSize The maximum number of sessions to delete.
+     * @return The number of deleted sessions.
+     */
+    public int deleteExpiredSessions(Instant cutoff, int chunkSize) {
+        return jdbcTemplate.update(DELETE_EXPIRED, Timestamp.from(cutoff), chunkSize);
+    }
+}
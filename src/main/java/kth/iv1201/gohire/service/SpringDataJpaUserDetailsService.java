@@ -3,8 +3,9 @@ package kth.iv1201.gohire.service;
 import kth.iv1201.gohire.entity.PersonEntity;
 import kth.iv1201.gohire.repository.PersonRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
@@ -12,27 +13,31 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Used by AuthenticationManager for fetching user information when authenticating.
+ * Used by AuthenticationManager for fetching user information when authenticating, and for storing password hashes
+ * that were upgraded to the current encoding after a successful authentication.
  */
 @Component
 @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRES_NEW)
-public class SpringDataJpaUserDetailsService implements UserDetailsService {
+public class SpringDataJpaUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final PersonRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Creates a new instance.
      * @param repository the personRepository for fetching users.
+     * @param eventPublisher the <code>ApplicationEventPublisher</code> notified when a password hash is upgraded.
      */
     @Autowired
-    public SpringDataJpaUserDetailsService(PersonRepository repository) {
+    public SpringDataJpaUserDetailsService(PersonRepository repository, ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Tells spring how to find a user.
      * @param name name of user.
-     * @return User details.
+     * @return <code>PersonUserDetails</code> of the user.
      * @throws UsernameNotFoundException is thrown when fetching a user that does not exist.
      */
     @Override
@@ -41,9 +46,26 @@ public class SpringDataJpaUserDetailsService implements UserDetailsService {
         if (person == null) {
             throw new UsernameNotFoundException("User not found");
         }
-        return User.withUsername(person.getUsername())
-                .password(person.getPassword())
-                .roles(person.getRole().getName())
-                .build();
+        return new PersonUserDetails(person.getId(), person.getUsername(), person.getPassword(),
+                person.getRole().getName());
     }
-}
\ No newline at end of file
+
+    /**
+     * Stores a password hash upgraded to the current encoding.
+     * @param user the user whose password hash was upgraded.
+     * @param newPassword the upgraded password hash.
+     * @return <code>PersonUserDetails</code> of the user with the upgraded password hash.
+     * @throws UsernameNotFoundException is thrown when the user no longer exists.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) throws UsernameNotFoundException {
+        PersonEntity person = this.repository.findByUsername(user.getUsername());
+        if (person == null) {
+            throw new UsernameNotFoundException("User not found");
+        }
+        person.setPassword(newPassword);
+        this.repository.save(person);
+        eventPublisher.publishEvent(new PersonChangedEvent(person.getUsername()));
+        return new PersonUserDetails(person.getId(), person.getUsername(), newPassword, person.getRole().getName());
+    }
+}
@@ -0,0 +1,13 @@
+package kth.iv1201.gohire.service.exception;
+
+/**
+ * Exception thrown when the cursor of a requested page is malformed or belongs to another sort order.
+ */
+public class InvalidPageCursorException extends Exception {
+
+    /**
+     * Creates an instance of a throwable <code>InvalidPageCursorException</code>.
+     * @param message Exception message.
+     */
+    public InvalidPageCursorException(String message) {super(message);}
+}
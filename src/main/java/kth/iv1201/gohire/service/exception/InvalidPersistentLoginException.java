@@ -0,0 +1,13 @@
+package kth.iv1201.gohire.service.exception;
+
+/**
+ * Exception thrown when a remembered login is unknown, expired or presented with a wrong token.
+ */
+public class InvalidPersistentLoginException extends Exception{
+
+    /**
+     * Creates an instance of a throwable <code>InvalidPersistentLoginException</code>.
+     * @param message Exception message.
+     */
+    public InvalidPersistentLoginException(String message) {super(message);}
+}
@@ -0,0 +1,23 @@
+package kth.iv1201.gohire.service.exception;
+
+/**
+ * Exception thrown when the server rejects work because it is overloaded. Unchecked, since it is thrown from inside
+ * interfaces such as <code>PasswordEncoder</code> that do not declare checked exceptions.
+ */
+public class ServerOverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    /**
+     * Creates an instance of a throwable <code>ServerOverloadedException</code>.
+     * @param message Exception message.
+     * @param retryAfterSeconds The number of seconds after which the client may retry.
+     */
+    public ServerOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
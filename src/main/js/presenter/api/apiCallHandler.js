@@ -1,24 +1,40 @@
 const baseUrl = '/api'
+const authTokenHeader = 'X-Auth-Token'
+const authTokenKey = 'authToken'
+let cachedApplications = null
 
 function sendPostRequest(endpoint, body){
     return fetch(baseUrl + endpoint, {
         method: 'POST',
-        headers: {
-            "Content-type": "application/json; charset=UTF-8"
-        },
+        headers: {...createHeaders(), "Content-type": "application/json; charset=UTF-8"},
         body: JSON.stringify(body)
-    }).then(response => response.json()).then(checkIfServerReturnedError)
+    }).then(storeAuthToken).then(response => response.json()).then(checkIfServerReturnedError)
 }
 
 function sendGetRequest(endpoint) {
     return fetch(baseUrl + endpoint, {
         method: 'GET',
-        headers: {
-            "Content-type": "application/json; charset=UTF-8"
-        }
+        headers: createHeaders()
     }).then(response => response.json()).then(checkIfServerReturnedError)
 }
 
+function createHeaders() {
+    const headers = {
+        "Accept": "application/json"
+    }
+    const authToken = localStorage.getItem(authTokenKey)
+    if(authToken)
+        headers["Authorization"] = "Bearer " + authToken
+    return headers
+}
+
+function storeAuthToken(response) {
+    const authToken = response.headers.get(authTokenHeader)
+    if(authToken)
+        localStorage.setItem(authTokenKey, authToken)
+    return response
+}
+
 function checkIfServerReturnedError(response) {
     if('errorType' in response) {
         throw new Error(response.errorType)
@@ -30,10 +46,11 @@ function checkIfServerReturnedError(response) {
  * Calls the API to authenticate the login credentials.
  * @param username the username.
  * @param password the password.
+ * @param rememberMe whether the login should be remembered after the session ends.
  * @returns {Promise<any>} a promise either resolving to a user object or an error object.
  */
-export function authenticateLogin(username, password){
-    return sendPostRequest('/login', {username, password})
+export function authenticateLogin(username, password, rememberMe){
+    return sendPostRequest('/login', {username, password, rememberMe})
 }
 
 /**
@@ -51,11 +68,97 @@ export function createNewApplicant(firstName, lastName, email, personNumber, use
 }
 
 /**
- * Calls the API to fetch all applications.
+ * Calls the API to fetch all applications. The last fetched list is kept with its ETag and reused when the server
+ * answers that the list has not been modified since.
  * @returns {Promise<any>} a promise either resolving to an object containing a list of applicants or an error object.
  */
 export function fetchListOfApplications() {
-    return sendGetRequest('/applications')
+    const headers = createHeaders()
+    if(cachedApplications)
+        headers["If-None-Match"] = cachedApplications.eTag
+    return fetch(baseUrl + '/applications', {
+        method: 'GET',
+        headers: headers,
+        cache: 'no-store'
+    }).then(response => {
+        if(response.status === 304 && cachedApplications)
+            return cachedApplications.applications
+        const eTag = response.headers.get('ETag')
+        return response.json().then(checkIfServerReturnedError).then(applications => {
+            cachedApplications = eTag ? {eTag, applications} : null
+            return applications
+        })
+    })
+}
+
+/**
+ * Calls the API to search for applications by the applicant's name, ignoring case and diacritics.
+ * @param query the words to search for.
+ * @returns {Promise<any>} a promise either resolving to a list of matching applicants or an error object.
+ */
+export function searchApplications(query) {
+    return sendGetRequest('/applications/search?q=' + encodeURIComponent(query))
+}
+
+/**
+ * Calls the API to fetch the applications created or changed after a high-water mark.
+ * @param since the high-water mark returned with the previous changes, or undefined to only fetch the current mark.
+ * @returns {Promise<any>} a promise either resolving to an object containing the changed applicants and the new
+ * high-water mark or an error object.
+ */
+export function fetchApplicationChanges(since) {
+    return sendGetRequest('/applications/changes' + (since === undefined ? '' : '?since=' + since))
+}
+
+/**
+ * Subscribes to created applicants and changed application statuses, pushed by the server as they are committed. The
+ * subscription reconnects when the stream ends, and <code>onConnect</code> is called on every reconnect so that the
+ * caller can fetch the changes it may have missed. It ends if the server refuses it, such as after logout.
+ * @param onApplicant called with every created or changed applicant.
+ * @param onConnect called when the subscription reconnects.
+ * @returns {function(): void} a function ending the subscription.
+ */
+export function subscribeToApplicationChanges(onApplicant, onConnect) {
+    const controller = new AbortController()
+    const reconnectDelayMilliseconds = 5000
+
+    function readEvents(reader, decoder, received) {
+        return reader.read().then(({done, value}) => {
+            if(done)
+                return
+            const events = (received + decoder.decode(value, {stream: true})).split('\n\n')
+            events.slice(0, -1).forEach(event => {
+                const data = event.split('\n').filter(line => line.startsWith('data:'))
+                    .map(line => line.substring('data:'.length)).join('\n')
+                if(data)
+                    onApplicant(JSON.parse(data))
+            })
+            return readEvents(reader, decoder, events[events.length - 1])
+        })
+    }
+
+    function connect(isReconnect) {
+        fetch(baseUrl + '/applications/events', {
+            method: 'GET',
+            headers: {...createHeaders(), "Accept": "text/event-stream"},
+            cache: 'no-store',
+            signal: controller.signal
+        }).then(response => {
+            if(!response.ok) {
+                controller.abort()
+                return
+            }
+            if(isReconnect)
+                onConnect()
+            return readEvents(response.body.getReader(), new TextDecoder(), '')
+        }).catch(() => {}).then(() => {
+            if(!controller.signal.aborted)
+                setTimeout(() => connect(true), reconnectDelayMilliseconds)
+        })
+    }
+
+    connect(false)
+    return () => controller.abort()
 }
 
 /**
@@ -71,10 +174,16 @@ export function changeApplicationStatus(id, newStatus, username, password) {
 }
 
 /**
- * Calls the API to logout user.
+ * Calls the API to logout user. The auth token and the cached applications are forgotten before the request is sent,
+ * so that nothing of the session is left in the browser even if the request fails or never completes.
  * @returns {Promise<any>} a promise resolving to a successful login message or an error object.
  */
-
 export function logout(){
-    return sendGetRequest('/logout')
+    const headers = createHeaders()
+    localStorage.removeItem(authTokenKey)
+    cachedApplications = null
+    return fetch(baseUrl + '/logout', {
+        method: 'GET',
+        headers: headers
+    }).then(response => response.json()).then(checkIfServerReturnedError)
 }
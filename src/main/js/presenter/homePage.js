@@ -1,12 +1,18 @@
-import React, {useState} from "react";
+import React, {useEffect, useRef, useState} from "react";
 import {HomePageApplicantView} from "../view/homePageApplicantView";
 import {HomePageRecruiterView} from "../view/homePageRecruiterView";
-import {changeApplicationStatus, fetchListOfApplications} from "./api/apiCallHandler";
+import {
+    changeApplicationStatus,
+    fetchApplicationChanges,
+    fetchListOfApplications,
+    searchApplications,
+    subscribeToApplicationChanges
+} from "./api/apiCallHandler";
 import {
     APPLICATION_ALREADY_HANDLED,
     INSUFFICIENT_CREDENTIALS, LOGIN_FAIL,
     PAGE_DOES_NOT_EXIST,
-    SERVER_INTERNAL, AUTHENTICATION_FAIL,
+    SERVER_INTERNAL, AUTHENTICATION_FAIL, SERVER_OVERLOADED,
     USER_INPUT_ERROR,
 } from "./api/errorMessages";
 import {UserNoticeView} from "../view/userNoticeView";
@@ -27,9 +33,13 @@ export function HomePage(props){
     const [applications, setApplications] = useState(null)
     const [errorMessage, setErrorMessage] = useState("")
     const [showSingleApplicant, setShowSingleApplicant] = useState(null)
+    const [searchResults, setSearchResults] = useState(null)
+    const highWaterMark = useRef(undefined)
+    const latestSearch = useRef("")
 
     const POSSIBLE_FETCH_APPLICATION_ERRORS = [LOGIN_FAIL, APPLICATION_ALREADY_HANDLED,
-        PAGE_DOES_NOT_EXIST, SERVER_INTERNAL, INSUFFICIENT_CREDENTIALS, USER_INPUT_ERROR, AUTHENTICATION_FAIL]
+        PAGE_DOES_NOT_EXIST, SERVER_INTERNAL, INSUFFICIENT_CREDENTIALS, USER_INPUT_ERROR, AUTHENTICATION_FAIL,
+        SERVER_OVERLOADED]
 
 
     function resolveApiErrors(error) {
@@ -40,9 +50,59 @@ export function HomePage(props){
     }
 
     function showApplications() {
-        fetchListOfApplications().then(setApplications).catch(resolveApiErrors)
+        if(applications !== null && highWaterMark.current !== undefined) {
+            fetchMissedChanges()
+            return
+        }
+        fetchApplicationChanges()
+            .then(changes => highWaterMark.current = changes.highWaterMark)
+            .then(fetchListOfApplications)
+            .then(setApplications)
+            .catch(resolveApiErrors)
+    }
+
+    function findApplications(query) {
+        latestSearch.current = query
+        if(!query.trim()) {
+            setSearchResults(null)
+            return
+        }
+        searchApplications(query).then(foundApplications => {
+            if(latestSearch.current === query)
+                setSearchResults(foundApplications)
+        }).catch(resolveApiErrors)
     }
 
+    function mergeChangedApplications(changedApplications) {
+        const changedById = new Map(changedApplications.map(application => [application.id, application]))
+        setSearchResults(currentResults => currentResults && currentResults.map(application =>
+            changedById.has(application.id) ? changedById.get(application.id) : application))
+        setApplications(currentApplications => {
+            const changedById = new Map(changedApplications.map(application => [application.id, application]))
+            const mergedApplications = currentApplications.map(application => {
+                const changedApplication = changedById.get(application.id)
+                changedById.delete(application.id)
+                return changedApplication ? changedApplication : application
+            })
+            return [...mergedApplications, ...changedById.values()]
+        })
+    }
+
+    function fetchMissedChanges() {
+        fetchApplicationChanges(highWaterMark.current).then(changes => {
+            highWaterMark.current = changes.highWaterMark
+            mergeChangedApplications(changes.applicants)
+        }).catch(resolveApiErrors)
+    }
+
+    const applicationsShown = applications !== null
+    useEffect(() => {
+        if(props.user.role !== 'recruiter' || !applicationsShown)
+            return
+        return subscribeToApplicationChanges(changedApplication => mergeChangedApplications([changedApplication]),
+            fetchMissedChanges)
+    }, [props.user.role, applicationsShown])
+
     function handleApplication(applicant) {
         setShowSingleApplicant(applicant)
     }
@@ -55,6 +115,8 @@ export function HomePage(props){
         function updateApplications(changedApplication) {
             setErrorMessage("")
             setShowSingleApplicant(null)
+            setSearchResults(currentResults => currentResults && currentResults.map(application =>
+                application.id === changedApplication.id ? changedApplication : application))
             return applications.map(application => {
                 if (application.id === changedApplication.id)
                     return changedApplication
@@ -75,7 +137,9 @@ export function HomePage(props){
         {props.user.role === 'applicant' && <HomePageApplicantView user={props.user} t={t}/>}
         {props.user.role === 'recruiter' && <HomePageRecruiterView user={props.user}
                                                                    applications={applications}
+                                                                   searchResults={searchResults}
                                                                    onShowApplications={showApplications}
+                                                                   onSearchApplications={findApplications}
                                                                    onHandleApplication={handleApplication}
                                                                    t={t}/>}
 
@@ -14,12 +14,15 @@ export const translations = {
             "no-access-rights": "You do not have access rights to this.",
             "credentials-do-not-match": "Username and password do not match.",
             "something-went-wrong": "Something went wrong, please try again later.",
+            "server-overloaded": "The server is busy right now, please try again in a moment.",
+            "too-many-login-attempts": "Too many login attempts, please wait a minute and try again.",
             "wrong-input": "Please follow the form's required input examples.",
             "username-exists": "The suggested username already exists.",
             "page-does-not-exist": "The requested page or resource does not exist or is unavailable.",
             "login": "Login",
             "username": "Username",
             "password": "Password",
+            "remember-me": "Remember me",
             "submit": "Submit",
             "first-name": "First name",
             "last-name": "Last name",
@@ -36,6 +39,7 @@ export const translations = {
             "recruiter": "Recruiter",
             "applicant": "Applicant",
             "display-applications": "Display applications",
+            "search-applications": "Search applicants by name",
             "applications": "Applications",
             "status": "Status",
             "accepted": "Accepted",
@@ -56,12 +60,15 @@ export const translations = {
             "no-access-rights": "Du har inte behörighet att göra detta.",
             "credentials-do-not-match": "Användarnamn och lösenord matchar inte.",
             "something-went-wrong": "Något gick fel, försök igen senare.",
+            "server-overloaded": "Servern är upptagen just nu, försök igen om en stund.",
+            "too-many-login-attempts": "För många inloggningsförsök, vänta en minut och försök igen.",
             "wrong-input": "Följ formulärets input-exempel.",
             "username-exists": "Användarnamnet existerar redan.",
             "page-does-not-exist": "Den efterfrågade sidan eller resursen finns inte, eller är otillgänglig.",
             "login": "Logga in",
             "username": "Användarnamn",
             "password": "Lösenord",
+            "remember-me": "Kom ihåg mig",
             "submit": "Skicka",
             "first-name": "Förnamn",
             "last-name": "Efternamn",
@@ -78,6 +85,7 @@ export const translations = {
             "recruiter": "Rekryterare",
             "applicant": "Ansökande",
             "display-applications": "Visa ansökande",
+            "search-applications": "Sök ansökande efter namn",
             "applications": "Ansökningar",
             "status": "Status",
             "accepted": "Accepterad",
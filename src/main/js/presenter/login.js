@@ -5,6 +5,8 @@ import {CreateNewApplicantView} from "../view/createNewApplicantView";
 import {
     LOGIN_FAIL,
     SERVER_INTERNAL,
+    SERVER_OVERLOADED,
+    TOO_MANY_LOGIN_ATTEMPTS,
     USER_INPUT_ERROR,
     USERNAME_ALREADY_EXISTS
 } from "./api/errorMessages";
@@ -23,7 +25,8 @@ export function Login(props){
     const [newUserIsCreated, setNewUserIsCreated] = useState(false)
     const [displayMessage, setDisplayMessage] = useState("")
 
-    const POSSIBLE_LOGIN_ERRORS = [LOGIN_FAIL, USER_INPUT_ERROR, USERNAME_ALREADY_EXISTS, SERVER_INTERNAL]
+    const POSSIBLE_LOGIN_ERRORS = [LOGIN_FAIL, USER_INPUT_ERROR, USERNAME_ALREADY_EXISTS, SERVER_INTERNAL,
+        SERVER_OVERLOADED, TOO_MANY_LOGIN_ATTEMPTS]
 
     function catchPromiseError(error) {
         function checkErrorType(possibleError) {
@@ -32,8 +35,8 @@ export function Login(props){
         setDisplayMessage(POSSIBLE_LOGIN_ERRORS.find(checkErrorType).message)
     }
 
-    function login(username, password) {
-        authenticateLogin(username, password).then(user => props.onLoggedIn(user))
+    function login(username, password, rememberMe) {
+        authenticateLogin(username, password, rememberMe).then(user => props.onLoggedIn(user))
             .catch(catchPromiseError)
     }
 
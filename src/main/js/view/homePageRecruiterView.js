@@ -6,7 +6,9 @@ import {ApplicationListView} from "./applicationListView";
  * @param props - props.
  * @param {Object} props.user - the current logged-in user.
  * @param {Array} props.applications - list of application objects.
+ * @param {Array} props.searchResults - list of application objects matching the search, or null when not searching.
  * @param {function} props.onShowApplications - called when user clicks the showApplications button.
+ * @param {function} props.onSearchApplications - called with the search text when the user types in the search field.
  * @param {function} props.onHandleApplication - Passed to each ApplicationListingView.
  * @param {Function} props.t - translation function for internationalization.
  * @returns {JSX.Element} the rendered recruiter home page.
@@ -15,8 +17,10 @@ export function HomePageRecruiterView(props) {
     return (
         <div>
             <h1 id="caption">{props.t('recruiter')}</h1>
-            {props.applications && (
-                <ApplicationListView applications={props.applications}
+            <p><input id={"searchApplications"} type="search" placeholder={props.t('search-applications')}
+                      onChange={event => props.onSearchApplications(event.target.value)}/></p>
+            {(props.searchResults || props.applications) && (
+                <ApplicationListView applications={props.searchResults || props.applications}
                                      onHandleApplication={props.onHandleApplication}
                                      t={props.t}/>
             )}
@@ -14,7 +14,8 @@ export function LoginView(props) {
         event.preventDefault()
         let username = document.getElementById("login-form-username").value
         let password = document.getElementById("login-form-password").value
-        props.onLogin(username, password)
+        let rememberMe = document.getElementById("login-form-remember-me").checked
+        props.onLogin(username, password, rememberMe)
     }
 
     return (
@@ -25,6 +26,8 @@ export function LoginView(props) {
                 <input id="login-form-username" type="text"/><br/>
                 <label>{props.t('password')}</label>
                 <input id="login-form-password" type="password"/><br/>
+                <input id="login-form-remember-me" type="checkbox"/>
+                <label htmlFor="login-form-remember-me">{props.t('remember-me')}</label><br/>
                 <input id="login-button" type="submit" value={props.t('submit')}/>
             </form>
         </div>
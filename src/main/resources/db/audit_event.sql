@@ -0,0 +1,12 @@
+-- Table the buffered audit events are written to, see AuditEventEntity and AuditService.
+CREATE TABLE IF NOT EXISTS audit_event (
+    audit_event_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_type VARCHAR(64) NOT NULL,
+    actor VARCHAR(255),
+    subject_id INTEGER,
+    detail VARCHAR(255),
+    occurred_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS audit_event_actor_idx ON audit_event (actor, occurred_at);
+CREATE INDEX IF NOT EXISTS audit_event_subject_idx ON audit_event (subject_id);
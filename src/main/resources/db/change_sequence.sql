@@ -0,0 +1,12 @@
+-- Change sequence stamping created and changed applicants, see ChangeSequenceEntity and PersonService. The row of the
+-- sequence is created here, so that concurrent first changes only ever lock and update it.
+CREATE TABLE IF NOT EXISTS change_sequence (
+    name VARCHAR(64) PRIMARY KEY,
+    last_value BIGINT NOT NULL
+);
+
+INSERT INTO change_sequence (name, last_value) VALUES ('person', 0) ON CONFLICT (name) DO NOTHING;
+
+ALTER TABLE person ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+
+CREATE INDEX IF NOT EXISTS person_change_seq_idx ON person (change_seq);
@@ -0,0 +1,11 @@
+-- Table the remembered logins are kept in, see PersistentLoginEntity and PersistentLoginService.
+CREATE TABLE IF NOT EXISTS persistent_login (
+    series VARCHAR(64) PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    token_hash BYTEA NOT NULL,
+    previous_token_hash BYTEA,
+    last_used TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS persistent_login_username_idx ON persistent_login (username);
+CREATE INDEX IF NOT EXISTS persistent_login_last_used_idx ON persistent_login (last_used);
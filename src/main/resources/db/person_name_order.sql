@@ -0,0 +1,3 @@
+-- Index on the sort key of applicant pages by name, see PersonRepository.findApplicantPageOrderedByName. Missing
+-- names are indexed as empty strings, as the query compares and sorts them.
+CREATE INDEX IF NOT EXISTS person_name_order_idx ON person ((COALESCE(surname, '')), (COALESCE(name, '')), person_id);
@@ -0,0 +1,11 @@
+-- Table the shared login sessions are kept in when gohire.security.mode=jdbc, see SecuritySessionEntity and
+-- JdbcSecurityContextRepository.
+CREATE TABLE IF NOT EXISTS security_session (
+    session_id VARCHAR(64) PRIMARY KEY,
+    version BIGINT NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    context BYTEA NOT NULL,
+    last_access TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS security_session_last_access_idx ON security_session (last_access);
@@ -1,6 +1,7 @@
 package kth.iv1201.gohire.acceptance;
 
 import kth.iv1201.gohire.acceptance.util.WebdriverConfigurer;
+import kth.iv1201.gohire.service.ApplicantReadModel;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,6 +12,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.ActiveProfiles;
@@ -35,6 +37,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 public class ListAllApplicationsTest {
     @LocalServerPort
     private int port;
+    @Autowired
+    private ApplicantReadModel applicantReadModel;
     private static LinkedList<Class<? extends WebDriver>> availableBrowserWebDrivers;
     private String startingPointURL;
     private static final int IMPLICIT_WAIT_SECONDS = WebdriverConfigurer.IMPLICIT_WAIT_SECONDS;
@@ -47,6 +51,7 @@ public class ListAllApplicationsTest {
     @BeforeEach
     void setUp() {
         startingPointURL = "http://localhost:" + port + "/login";
+        applicantReadModel.reconcile();
     }
 
     @AfterAll
@@ -2,6 +2,7 @@ package kth.iv1201.gohire.acceptance;
 
 import io.github.bonigarcia.wdm.WebDriverManager;
 import kth.iv1201.gohire.acceptance.util.WebdriverConfigurer;
+import kth.iv1201.gohire.service.ApplicantReadModel;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +15,7 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.safari.SafariDriver;
 import org.openqa.selenium.support.ui.Select;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.ActiveProfiles;
@@ -37,6 +39,8 @@ import static org.junit.jupiter.api.Assertions.*;
 public class ShowApplicationTest {
     @LocalServerPort
     private int port;
+    @Autowired
+    private ApplicantReadModel applicantReadModel;
     private static LinkedList<Class<? extends WebDriver>> availableBrowserWebDrivers;
     private String startingPointURL;
     private static final int IMPLICIT_WAIT_SECONDS = WebdriverConfigurer.IMPLICIT_WAIT_SECONDS;
@@ -50,6 +54,7 @@ public class ShowApplicationTest {
     @BeforeEach
     void setUp() {
         startingPointURL = "http://localhost:" + port + "/login";
+        applicantReadModel.reconcile();
     }
 
     @AfterAll
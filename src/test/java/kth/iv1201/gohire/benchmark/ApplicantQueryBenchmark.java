@@ -0,0 +1,96 @@
+package kth.iv1201.gohire.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import kth.iv1201.gohire.DTO.ApplicantDTO;
+import kth.iv1201.gohire.entity.PersonEntity;
+import kth.iv1201.gohire.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the heap allocated when listing applicants through full <code>PersonEntity</code>s, as
+ * <code>PersonService.fetchApplicants</code> used to, with the projection query that now loads the
+ * <code>ApplicantReadModel</code>. Run with
+ * <code>-Dgohire.benchmark=true -Dtest=ApplicantQueryBenchmark</code>.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "gohire.benchmark", matches = "true")
+@Sql(scripts = "classpath:acceptance-test-data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class ApplicantQueryBenchmark {
+    private static final int APPLICANTS = 20000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Autowired
+    PersonRepository personRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @BeforeAll
+    void insertApplicants() {
+        jdbcTemplate.batchUpdate("INSERT INTO person (name, surname, pnr, email, password, username, role_id, " +
+                        "application_status_id) VALUES (?, ?, '19909090-9090', 'email@kth.se', 'benchmarkPassword', ?, 2, ?)",
+                IntStream.range(0, APPLICANTS).mapToObj(i -> new Object[] {"benchmark" + i, "applicant" + i,
+                        "benchmarkApplicant" + i, i % 3 + 1}).toList());
+    }
+
+    @Test
+    void testIfProjectionAllocatesLessThanEntityLoading() {
+        long entityBytes = allocatedBytesPerRound(this::fetchApplicantsThroughEntities);
+        long projectionBytes = allocatedBytesPerRound(this::fetchApplicantsThroughProjection);
+        System.out.printf("Listing %d applicants allocated %,d bytes through entities and %,d bytes through the " +
+                "projection (%.1fx less).%n", APPLICANTS, entityBytes, projectionBytes, (double) entityBytes / projectionBytes);
+        assertTrue(projectionBytes < entityBytes, "The projection did not allocate less than loading entities");
+    }
+
+    private List<ApplicantDTO> fetchApplicantsThroughEntities() {
+        return transactionTemplate.execute(status -> {
+            List<PersonEntity> persons = entityManager.createQuery(
+                    "SELECT p FROM PersonEntity p WHERE p.role.id = 2", PersonEntity.class).getResultList();
+            List<ApplicantDTO> applicants = new LinkedList<>();
+            for (PersonEntity person : persons)
+                applicants.add(new ApplicantDTO(person.getId(), person.getName(), person.getSurname(),
+                        person.getApplicationStatus().getStatus()));
+            return applicants;
+        });
+    }
+
+    private List<ApplicantDTO> fetchApplicantsThroughProjection() {
+        return transactionTemplate.execute(status -> personRepository.findApplicantSummaries(2));
+    }
+
+    private static long allocatedBytesPerRound(Supplier<List<ApplicantDTO>> fetch) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        List<ApplicantDTO> result = new ArrayList<>();
+        for (int round = 0; round < WARMUP_ROUNDS; round++)
+            result = fetch.get();
+        assertEquals(APPLICANTS + 3, result.size(), "Benchmark listed the wrong number of applicants");
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int round = 0; round < MEASURED_ROUNDS; round++)
+            fetch.get();
+        return (threads.getCurrentThreadAllocatedBytes() - before) / MEASURED_ROUNDS;
+    }
+}
@@ -0,0 +1,82 @@
+package kth.iv1201.gohire.benchmark;
+
+import kth.iv1201.gohire.DTO.ApplicantDTO;
+import kth.iv1201.gohire.repository.PersonRepository;
+import kth.iv1201.gohire.service.ApplicantReadModel;
+import kth.iv1201.gohire.service.ApplicantSearchIndex;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the latency of searches in the <code>ApplicantSearchIndex</code> over 500 000 applicants with generated
+ * names. Run with <code>-Dgohire.benchmark=true -Dtest=ApplicantSearchBenchmark</code>.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "gohire.benchmark", matches = "true")
+class ApplicantSearchBenchmark {
+    private static final int APPLICANTS = 500000;
+    private static final int WARMUP_ROUNDS = 20000;
+    private static final int MEASURED_ROUNDS = 2000;
+    private static final long MAXIMUM_P99_NANOS = 5_000_000;
+    private static final String[] FIRST_NAMES = {"Anna", "Åsa", "Björn", "Erik", "Johan", "Karin", "Lars", "Maria",
+            "Märta", "Nils", "Oskar", "Sofia", "Zoë", "Ingrid", "Göran", "Henrik"};
+    private static final String[] LAST_NAME_PARTS = {"and", "berg", "dahl", "ek", "gren", "holm", "lind", "lund",
+            "ström", "kvist", "sjö", "ny", "ås", "fors", "hag", "vall"};
+    private static final String[] QUERIES = {"anna", "a", "er", "lindberg", "ström", "strom", "asa holm", "zoe",
+            "gren", "kar lun", "björn sjö", "ingrid", "qqq"};
+
+    private ApplicantSearchIndex applicantSearchIndex;
+
+    @BeforeAll
+    void buildIndex() {
+        Random random = new Random(42);
+        List<ApplicantDTO> applicants = new ArrayList<>(APPLICANTS);
+        for (int id = 1; id <= APPLICANTS; id++) {
+            String lastName = LAST_NAME_PARTS[random.nextInt(LAST_NAME_PARTS.length)] +
+                    LAST_NAME_PARTS[random.nextInt(LAST_NAME_PARTS.length)] + random.nextInt(1000);
+            applicants.add(new ApplicantDTO(id, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    Character.toUpperCase(lastName.charAt(0)) + lastName.substring(1), "unhandled"));
+        }
+        PersonRepository personRepository = mock(PersonRepository.class);
+        when(personRepository.findApplicantSummaries(2)).thenReturn(applicants);
+        ApplicantReadModel applicantReadModel = new ApplicantReadModel(personRepository,
+                mock(PlatformTransactionManager.class));
+        applicantReadModel.load();
+        long start = System.nanoTime();
+        applicantSearchIndex = new ApplicantSearchIndex(applicantReadModel);
+        System.out.printf("Indexed %d applicants in %d ms, %d trigrams.%n", APPLICANTS,
+                (System.nanoTime() - start) / 1_000_000, applicantSearchIndex.getTrigrams());
+    }
+
+    @Test
+    void testIfSearchesStayWithinAFewMilliseconds() {
+        assertFalse(applicantSearchIndex.search("lindberg", 20).isEmpty(), "Benchmark search found nothing");
+        for (int round = 0; round < WARMUP_ROUNDS; round++)
+            applicantSearchIndex.search(QUERIES[round % QUERIES.length], 20);
+        long[] nanos = new long[MEASURED_ROUNDS];
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            applicantSearchIndex.search(QUERIES[round % QUERIES.length], 20);
+            nanos[round] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long median = nanos[MEASURED_ROUNDS / 2];
+        long p99 = nanos[MEASURED_ROUNDS * 99 / 100];
+        System.out.printf("Searching %d applicants took %.3f ms median, %.3f ms p99, %.3f ms max.%n", APPLICANTS,
+                median / 1e6, p99 / 1e6, nanos[MEASURED_ROUNDS - 1] / 1e6);
+        assertTrue(p99 < MAXIMUM_P99_NANOS, "99th percentile search latency exceeded 5 ms");
+    }
+}
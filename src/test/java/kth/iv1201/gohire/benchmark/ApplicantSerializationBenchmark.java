@@ -0,0 +1,94 @@
+package kth.iv1201.gohire.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import kth.iv1201.gohire.DTO.ApplicantDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the payload size and the serialization CPU time of the applicant list as JSON, Smile and CBOR, with and
+ * without gzip, at 10 000, 100 000 and 1 000 000 applicants. Run with
+ * <code>-Dgohire.benchmark=true -Dtest=ApplicantSerializationBenchmark</code>.
+ */
+@EnabledIfSystemProperty(named = "gohire.benchmark", matches = "true")
+class ApplicantSerializationBenchmark {
+    private static final int[] APPLICANTS = {10000, 100000, 1000000};
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final String[] FIRST_NAMES = {"Anna", "Åsa", "Björn", "Erik", "Johan", "Karin", "Lars", "Maria"};
+    private static final String[] LAST_NAMES = {"Andersson", "Berg", "Dahl", "Ek", "Lindström", "Lund", "Sjöberg"};
+    private static final String[] STATUSES = {"unhandled", "accepted", "rejected"};
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Test
+    void testIfBinaryFormatsAreSmallerThanJson() throws IOException {
+        for (int applicantCount : APPLICANTS) {
+            List<ApplicantDTO> applicants = generateApplicants(applicantCount);
+            long jsonBytes = measure("JSON", new ObjectMapper(new JsonFactory()), applicants);
+            long smileBytes = measure("Smile", new ObjectMapper(new SmileFactory()), applicants);
+            long cborBytes = measure("CBOR", new ObjectMapper(new CBORFactory()), applicants);
+            assertTrue(smileBytes < jsonBytes, "Smile was not smaller than JSON");
+            assertTrue(cborBytes < jsonBytes, "CBOR was not smaller than JSON");
+        }
+    }
+
+    private long measure(String format, ObjectMapper objectMapper, List<ApplicantDTO> applicants) throws IOException {
+        for (int round = 0; round < WARMUP_ROUNDS; round++)
+            objectMapper.writeValue(new CountingOutputStream(), applicants);
+        long[] cpuNanos = new long[MEASURED_ROUNDS];
+        CountingOutputStream plain = null;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            plain = new CountingOutputStream();
+            long start = threads.getCurrentThreadCpuTime();
+            objectMapper.writeValue(plain, applicants);
+            cpuNanos[round] = threads.getCurrentThreadCpuTime() - start;
+        }
+        Arrays.sort(cpuNanos);
+        CountingOutputStream gzipped = new CountingOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(gzipped, 64 * 1024)) {
+            objectMapper.writeValue(gzip, applicants);
+        }
+        System.out.printf("%8d applicants as %-5s %,12d bytes, %,11d gzipped, %8.2f ms CPU median%n",
+                applicants.size(), format, plain.count, gzipped.count, cpuNanos[MEASURED_ROUNDS / 2] / 1e6);
+        return plain.count;
+    }
+
+    private static List<ApplicantDTO> generateApplicants(int applicantCount) {
+        Random random = new Random(42);
+        List<ApplicantDTO> applicants = new ArrayList<>(applicantCount);
+        for (int id = 1; id <= applicantCount; id++)
+            applicants.add(new ApplicantDTO(id, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)], STATUSES[random.nextInt(STATUSES.length)]));
+        return applicants;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
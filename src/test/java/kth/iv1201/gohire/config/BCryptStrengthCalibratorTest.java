@@ -0,0 +1,30 @@
+package kth.iv1201.gohire.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BCryptStrengthCalibratorTest {
+
+    @Test
+    void testIfMinimumStrengthIsUsedWhenTargetCanNotBeMet() {
+        BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(0, 10, 16);
+        assertEquals(10, calibrator.calibrate(), "Calibration picked a strength below the minimum.");
+    }
+
+    @Test
+    void testIfMaximumStrengthIsNotExceeded() {
+        BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(Long.MAX_VALUE, 4, 12);
+        assertEquals(12, calibrator.calibrate(), "Calibration picked a strength above the maximum.");
+    }
+
+    @Test
+    void testIfCalibratedStrengthFitsTarget() {
+        BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(200, 4, 20);
+        int strength = calibrator.calibrate();
+        assertTrue(strength > 4 && strength < 20, "Calibration did not pick a strength between the limits: " + strength);
+        assertTrue(calibrator.getEstimatedMillis() <= 200, "Calibrated strength is estimated to exceed the target.");
+    }
+}
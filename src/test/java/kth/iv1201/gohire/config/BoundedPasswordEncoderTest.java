@@ -0,0 +1,74 @@
+package kth.iv1201.gohire.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kth.iv1201.gohire.service.exception.ServerOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BoundedPasswordEncoderTest {
+
+    CountDownLatch release;
+    SimpleMeterRegistry meterRegistry;
+    BoundedPasswordEncoder passwordEncoder;
+    ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        release = new CountDownLatch(1);
+        meterRegistry = new SimpleMeterRegistry();
+        PasswordEncoder blockingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "encoded" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals(encode(rawPassword));
+            }
+        };
+        passwordEncoder = new BoundedPasswordEncoder(blockingEncoder, 1, 1, 2, meterRegistry);
+        callers = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        passwordEncoder.shutdown();
+    }
+
+    @Test
+    void testIfPasswordOperationIsRejectedWhenQueueIsFull() throws InterruptedException {
+        callers.submit(() -> passwordEncoder.encode("first"));
+        callers.submit(() -> passwordEncoder.encode("second"));
+        Thread.sleep(200);
+        ServerOverloadedException exception = assertThrowsExactly(ServerOverloadedException.class,
+                () -> passwordEncoder.encode("third"), "Password operation was not rejected when the queue was full.");
+        assertEquals(2, exception.getRetryAfterSeconds(), "Rejection did not carry the configured retry delay.");
+    }
+
+    @Test
+    void testIfPasswordOperationsAreTimed() {
+        release.countDown();
+        assertTrue(passwordEncoder.matches("password", "encodedpassword"), "Delegate result was not returned.");
+        assertEquals(1, meterRegistry.get("gohire.password.hash").timer().count(), "Hash time was not recorded.");
+        assertEquals(1, meterRegistry.get("gohire.password.queue.wait").timer().count(), "Queue wait was not recorded.");
+    }
+}
@@ -0,0 +1,52 @@
+package kth.iv1201.gohire.config;
+
+import kth.iv1201.gohire.service.PersonChangedEvent;
+import kth.iv1201.gohire.service.PersonUserDetails;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class CaffeineUserCacheTest {
+
+    CaffeineUserCache userCache;
+    PersonUserDetails user;
+
+    @BeforeEach
+    void setUp() {
+        userCache = new CaffeineUserCache(100, Duration.ofMinutes(10));
+        user = new PersonUserDetails(1, "exampleUsername", "encodedPassword", "recruiter");
+    }
+
+    @Test
+    void testIfErasingCredentialsOfCachedUserDoesNotAffectCache() {
+        userCache.putUserInCache(user);
+        user.eraseCredentials();
+        PersonUserDetails cached = (PersonUserDetails) userCache.getUserFromCache("exampleUsername");
+        cached.eraseCredentials();
+        PersonUserDetails cachedAgain = (PersonUserDetails) userCache.getUserFromCache("exampleUsername");
+        assertEquals("encodedPassword", cachedAgain.getPassword(), "Erasing credentials erased the cached password.");
+        assertEquals(1, cachedAgain.getPersonId(), "Cached user lost its person id.");
+        assertEquals("recruiter", cachedAgain.getRoleName(), "Cached user lost its role name.");
+    }
+
+    @Test
+    void testIfChangedPersonIsRemovedFromCache() {
+        userCache.putUserInCache(user);
+        userCache.onPersonChanged(new PersonChangedEvent("exampleUsername"));
+        assertNull(userCache.getUserFromCache("exampleUsername"), "Changed person is still cached.");
+    }
+
+    @Test
+    void testIfHitsAndMissesAreRecorded() {
+        userCache.getUserFromCache("exampleUsername");
+        userCache.putUserInCache(user);
+        userCache.getUserFromCache("exampleUsername");
+        assertEquals(1, userCache.getCache().stats().hitCount(), "Cache hit was not recorded.");
+        assertEquals(1, userCache.getCache().stats().missCount(), "Cache miss was not recorded.");
+    }
+}
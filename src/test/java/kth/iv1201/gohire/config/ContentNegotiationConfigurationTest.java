@@ -0,0 +1,70 @@
+package kth.iv1201.gohire.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import kth.iv1201.gohire.service.ApplicantReadModel;
+import kth.iv1201.gohire.service.SpringDataJpaUserDetailsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Sql(scripts = "classpath:acceptance-test-data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class ContentNegotiationConfigurationTest {
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ApplicantReadModel applicantReadModel;
+    @MockBean
+    SpringDataJpaUserDetailsService userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        applicantReadModel.reconcile();
+    }
+
+    @Test
+    @WithMockUser(roles = "recruiter")
+    void testIfApplicationsAreWrittenAsCborWhenAccepted() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/applications")
+                .header(HttpHeaders.ACCEPT, "application/cbor")).andReturn().getResponse();
+        assertEquals("application/cbor", response.getContentType(), "Applications were not written as CBOR");
+        JsonNode applicants = new ObjectMapper(new CBORFactory()).readTree(response.getContentAsByteArray());
+        assertEquals(3, applicants.size(), "CBOR did not contain every applicant");
+        assertTrue(applicants.get(0).has("firstName"), "CBOR applicant did not have the JSON field names");
+    }
+
+    @Test
+    @WithMockUser(roles = "recruiter")
+    void testIfApplicationsAreWrittenAsSmileWhenAccepted() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/applications")
+                .header(HttpHeaders.ACCEPT, "application/x-jackson-smile")).andReturn().getResponse();
+        assertEquals("application/x-jackson-smile", response.getContentType(), "Applications were not written as Smile");
+        JsonNode applicants = new ObjectMapper(new SmileFactory()).readTree(response.getContentAsByteArray());
+        assertEquals(3, applicants.size(), "Smile did not contain every applicant");
+    }
+
+    @Test
+    @WithMockUser(roles = "recruiter")
+    void testIfApplicationsAreWrittenAsJsonWhenAnyFormatIsAccepted() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/applications")
+                .header(HttpHeaders.ACCEPT, MediaType.ALL_VALUE)).andReturn().getResponse();
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getContentType(),
+                "Applications were not written as JSON to a client accepting any format");
+    }
+}
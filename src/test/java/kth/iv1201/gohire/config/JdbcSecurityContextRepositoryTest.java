@@ -0,0 +1,173 @@
+package kth.iv1201.gohire.config;
+
+import jakarta.servlet.http.Cookie;
+import kth.iv1201.gohire.service.PersonAuthentication;
+import kth.iv1201.gohire.service.PersonUserDetails;
+import kth.iv1201.gohire.service.SecuritySessionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class JdbcSecurityContextRepositoryTest {
+    @Autowired
+    SecuritySessionService securitySessionService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    SessionStatistics sessionStatistics;
+    JdbcSecurityContextRepository instance;
+    JdbcSecurityContextRepository otherInstance;
+    Authentication authentication;
+
+    @BeforeEach
+    void setUp() {
+        instance = createRepository();
+        otherInstance = createRepository();
+        PersonUserDetails principal = new PersonUserDetails(7, "sharedRecruiter", "", "recruiter");
+        authentication = UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+    }
+
+    @Test
+    void testIfSessionIsSharedBetweenInstances() {
+        Cookie cookie = login(instance);
+        SecurityContext loaded = load(otherInstance, cookie);
+        assertNotNull(loaded.getAuthentication(), "Session saved by one instance was not found by another");
+        assertEquals("sharedRecruiter", loaded.getAuthentication().getName(), "Shared session returned the wrong user");
+        assertEquals(7, ((PersonUserDetails) loaded.getAuthentication().getPrincipal()).getPersonId(),
+                "Shared session returned the wrong person id");
+        assertTrue(loaded.getAuthentication().getAuthorities().stream()
+                        .anyMatch(authority -> authority.getAuthority().equals("ROLE_recruiter")),
+                "Shared session lost the role of the user");
+    }
+
+    @Test
+    void testIfSessionIdChangesOnLogin() {
+        Cookie first = login(instance);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(first);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new PersonAuthentication(8, "otherRecruiter", "recruiter"));
+        instance.saveContext(context, request, response);
+        Cookie second = sessionCookie(response);
+        assertNotEquals(first.getValue(), second.getValue(), "Session id was kept when another user logged in");
+        assertNull(load(instance, first).getAuthentication(), "Previous session id was still accepted");
+    }
+
+    @Test
+    void testIfLogoutOnOneInstanceIsSeenByAnother() {
+        Cookie cookie = login(instance);
+        assertNotNull(load(otherInstance, cookie).getAuthentication(), "Shared session was not loaded");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(cookie);
+        instance.saveContext(SecurityContextHolder.createEmptyContext(), request, new MockHttpServletResponse());
+        assertNull(load(otherInstance, cookie).getAuthentication(), "Cached session was used after logout elsewhere");
+        assertEquals(0, instance.getPendingWrites(), "Logout was left for a later write");
+    }
+
+    @Test
+    void testIfExpiredSessionsAreRemoved() {
+        Cookie cookie = login(instance);
+        jdbcTemplate.update("UPDATE security_session SET last_access = DATEADD('HOUR', -1, last_access) " +
+                "WHERE session_id = ?", cookie.getValue());
+        instance.removeExpiredSessions();
+        assertNull(securitySessionService.fetchSession(cookie.getValue()), "Expired session was not removed");
+    }
+
+    @Test
+    void testIfSessionUsedThroughAnotherInstanceIsNotExpired() throws InterruptedException {
+        JdbcSecurityContextRepository revalidating = createRepository(Duration.ofMillis(500), Duration.ZERO);
+        JdbcSecurityContextRepository cached = createRepository(Duration.ofMillis(500), Duration.ofHours(1));
+        Cookie cookie = login(instance);
+        assertNotNull(load(revalidating, cookie).getAuthentication(), "Shared session was not loaded");
+        assertNotNull(load(cached, cookie).getAuthentication(), "Shared session was not loaded");
+        Thread.sleep(300);
+        assertNotNull(load(revalidating, cookie).getAuthentication(), "Shared session was not kept in the near-cache");
+        assertNotNull(load(cached, cookie).getAuthentication(), "Shared session was not kept in the near-cache");
+        Thread.sleep(300);
+        jdbcTemplate.update("UPDATE security_session SET last_access = ? WHERE session_id = ?",
+                Timestamp.from(Instant.now()), cookie.getValue());
+        assertNotNull(load(revalidating, cookie).getAuthentication(),
+                "Revalidated session ignored the last access of another instance");
+        assertNotNull(load(cached, cookie).getAuthentication(),
+                "Cached session ignored the last access of another instance");
+        assertNotNull(securitySessionService.fetchSession(cookie.getValue()),
+                "Session used through another instance was deleted");
+    }
+
+    @Test
+    void testIfSessionUnusedEverywhereIsExpired() throws InterruptedException {
+        JdbcSecurityContextRepository cached = createRepository(Duration.ofMillis(500), Duration.ofHours(1));
+        Cookie cookie = login(instance);
+        assertNotNull(load(cached, cookie).getAuthentication(), "Shared session was not loaded");
+        Thread.sleep(300);
+        assertNotNull(load(cached, cookie).getAuthentication(), "Shared session was not kept in the near-cache");
+        Thread.sleep(300);
+        assertNull(load(cached, cookie).getAuthentication(), "Expired session was accepted");
+        assertNull(securitySessionService.fetchSession(cookie.getValue()), "Expired session was not deleted");
+    }
+
+    @Test
+    void testIfSessionInUnknownFormatIsTreatedAsMissing() {
+        Cookie cookie = login(instance);
+        jdbcTemplate.update("UPDATE security_session SET context = ? WHERE session_id = ?", new byte[] {(byte) 0xAC, 0},
+                cookie.getValue());
+        assertNull(load(otherInstance, cookie).getAuthentication(), "Session in an unknown format was accepted");
+    }
+
+    @Test
+    void testIfContextIsOnlyGeneratedWithoutValidSession() {
+        Cookie cookie = login(instance);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(cookie);
+        assertFalse(instance.loadDeferredContext(request).isGenerated(), "Context of a valid session was generated");
+        assertTrue(instance.loadDeferredContext(new MockHttpServletRequest()).isGenerated(),
+                "Context without a session was not generated");
+    }
+
+    private JdbcSecurityContextRepository createRepository() {
+        return createRepository(Duration.ofMinutes(30), Duration.ZERO);
+    }
+
+    private JdbcSecurityContextRepository createRepository(Duration timeout, Duration revalidateAfter) {
+        return new JdbcSecurityContextRepository(securitySessionService, sessionStatistics, timeout,
+                revalidateAfter, Duration.ofMinutes(1), 100, 2, 1);
+    }
+
+    private Cookie login(JdbcSecurityContextRepository repository) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        repository.saveContext(context, new MockHttpServletRequest(), response);
+        return sessionCookie(response);
+    }
+
+    private static SecurityContext load(JdbcSecurityContextRepository repository, Cookie cookie) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(cookie);
+        return repository.loadDeferredContext(request).get();
+    }
+
+    private static Cookie sessionCookie(MockHttpServletResponse response) {
+        String header = response.getHeader(HttpHeaders.SET_COOKIE);
+        assertNotNull(header, "No session cookie was set");
+        String value = header.substring(header.indexOf('=') + 1, header.indexOf(';'));
+        return new Cookie(JdbcSecurityContextRepository.COOKIE_NAME, value);
+    }
+}
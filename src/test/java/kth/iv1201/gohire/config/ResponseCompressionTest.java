@@ -0,0 +1,132 @@
+package kth.iv1201.gohire.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import kth.iv1201.gohire.service.ApplicantReadModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = "classpath:acceptance-test-data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+@Sql(statements = "INSERT INTO person (name, surname, username, role_id, application_status_id) " +
+        "SELECT 'bulkApplicant' || X, 'bulkSurname' || X, 'bulkApplicant' || X, 2, 3 FROM SYSTEM_RANGE(1, 200)",
+        executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+@Sql(statements = "DELETE FROM person WHERE username LIKE 'bulkApplicant%'",
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_CLASS)
+class ResponseCompressionTest {
+    private static final Map<String, JsonFactory> FORMATS = Map.of(
+            "application/json", new JsonFactory(),
+            "application/cbor", new CBORFactory(),
+            "application/x-jackson-smile", new SmileFactory());
+
+    @LocalServerPort
+    int port;
+    @Autowired
+    ApplicantReadModel applicantReadModel;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private String sessionCookie;
+
+    @BeforeEach
+    void setUp() throws IOException, InterruptedException {
+        applicantReadModel.reconcile();
+        HttpResponse<Void> login = httpClient.send(HttpRequest.newBuilder(uri("/api/login"))
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"validRecruiterUser\",\"password\":\"validRecruiterPassword\"}"))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        sessionCookie = login.headers().firstValue(HttpHeaders.SET_COOKIE).orElseThrow().split(";")[0];
+    }
+
+    @Test
+    void testIfLargeApplicationListIsGzippedWithWeakETag() throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = fetchApplications("application/json", null);
+        assertEquals(200, response.statusCode(), "Applications were not fetched");
+        assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null),
+                "Large application list was not gzipped");
+        assertTrue(response.headers().firstValue(HttpHeaders.ETAG).orElseThrow().startsWith("W/"),
+                "ETag of the application list was not weak");
+        assertTrue(response.headers().allValues(HttpHeaders.VARY).stream()
+                        .flatMap(vary -> Arrays.stream(vary.split(",")))
+                        .anyMatch(header -> header.strip().equalsIgnoreCase(HttpHeaders.ACCEPT)),
+                "Application list did not vary with Accept");
+        try (InputStream body = new GZIPInputStream(response.body())) {
+            assertEquals(203, new ObjectMapper().readTree(body).size(), "Gzipped list did not contain every applicant");
+        }
+    }
+
+    @Test
+    void testIfApplicationsAreGzippedInEveryFormat() throws IOException, InterruptedException {
+        for (Map.Entry<String, JsonFactory> format : FORMATS.entrySet()) {
+            HttpResponse<InputStream> response = fetchApplications(format.getKey(), null);
+            assertEquals(format.getKey(), response.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElse(null),
+                    "Applications were not written as " + format.getKey());
+            assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null),
+                    "Applications as " + format.getKey() + " were not gzipped");
+            try (InputStream body = new GZIPInputStream(response.body())) {
+                JsonNode applicants = new ObjectMapper(format.getValue()).readTree(body);
+                assertEquals(203, applicants.size(), "Gzipped " + format.getKey() + " did not contain every applicant");
+            }
+        }
+    }
+
+    @Test
+    void testIfEveryFormatHasItsOwnValidator() throws IOException, InterruptedException {
+        Set<String> eTags = new HashSet<>();
+        for (String format : FORMATS.keySet()) {
+            HttpResponse<InputStream> response = fetchApplications(format, null);
+            response.body().close();
+            eTags.add(response.headers().firstValue(HttpHeaders.ETAG).orElseThrow());
+        }
+        assertEquals(FORMATS.size(), eTags.size(), "Formats of the same list shared an ETag");
+    }
+
+    @Test
+    void testIfGzippedApplicationsAreRevalidatedByTheirWeakETag() throws IOException, InterruptedException {
+        HttpResponse<InputStream> fetched = fetchApplications("application/cbor", null);
+        fetched.body().close();
+        String eTag = fetched.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        HttpResponse<InputStream> revalidated = fetchApplications("application/cbor", eTag);
+        revalidated.body().close();
+        assertEquals(304, revalidated.statusCode(), "Unchanged applications were not answered 304");
+        HttpResponse<InputStream> otherFormat = fetchApplications("application/json", eTag);
+        otherFormat.body().close();
+        assertEquals(200, otherFormat.statusCode(), "ETag of one format validated another format");
+    }
+
+    private HttpResponse<InputStream> fetchApplications(String accept, String ifNoneMatch)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri("/api/applications"))
+                .header(HttpHeaders.ACCEPT, accept)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.COOKIE, sessionCookie);
+        if (ifNoneMatch != null)
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -3,8 +3,12 @@ package kth.iv1201.gohire.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import kth.iv1201.gohire.DTO.CreateApplicantRequestDTO;
 import kth.iv1201.gohire.DTO.LoginRequestDTO;
+import kth.iv1201.gohire.DTO.PersistentLoginTokenDTO;
 import kth.iv1201.gohire.controller.PersonController;
+import kth.iv1201.gohire.service.PersistentLoginService;
+import kth.iv1201.gohire.service.PersonAuthentication;
 import kth.iv1201.gohire.service.PersonService;
+import jakarta.servlet.http.Cookie;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,9 +17,16 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -37,10 +48,12 @@ class SecurityConfigurationTest {
     private MockMvc mockMvc;
     @Autowired
     ObjectMapper objectMapper;
+    @Autowired
+    PersistentLoginService persistentLoginService;
 
     @BeforeEach
     void setUp() {
-        mockLoginRequestDTO = new LoginRequestDTO("exampleUsername", "examplePassword");
+        mockLoginRequestDTO = new LoginRequestDTO("exampleUsername", "examplePassword", false);
         mockCreateApplicantRequestDTO = new CreateApplicantRequestDTO("exampleFirstName", "exampleLastName", "example@example.com", "00123456-7890", "exampleUsername", "examplePassword");
     }
 
@@ -80,4 +93,21 @@ class SecurityConfigurationTest {
         }, "Non-logged in user could not access HTML.");
     }
 
-}
\ No newline at end of file
+    @Test
+    @Sql(scripts = "classpath:acceptance-test-data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void testIfRememberedLoginIsKeptAsPersonAuthentication() throws Exception {
+        PersistentLoginTokenDTO persistentLogin = persistentLoginService.createPersistentLogin("validRecruiterUser");
+        String cookie = Base64.getEncoder().withoutPadding().encodeToString(
+                (persistentLogin.getSeries() + ":" + persistentLogin.getToken()).getBytes(StandardCharsets.UTF_8));
+        MockHttpSession session = (MockHttpSession) mockMvc.perform(get("/api/applications")
+                        .cookie(new Cookie("remember-me", cookie)))
+                .andExpect(status().isOk())
+                .andReturn().getRequest().getSession();
+        SecurityContext context = (SecurityContext) session.getAttribute(
+                HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        assertNotNull(context, "Remembered login was not kept in the session");
+        PersonAuthentication authentication = assertInstanceOf(PersonAuthentication.class, context.getAuthentication(),
+                "Remembered login was not kept as a PersonAuthentication");
+        assertEquals("validRecruiterUser", authentication.getName(), "Remembered login was kept for the wrong user");
+    }
+}
@@ -2,15 +2,18 @@ package kth.iv1201.gohire.controller;
 
 import kth.iv1201.gohire.DTO.ErrorDTO;
 import kth.iv1201.gohire.controller.exception.AuthenticationForLoggedInUserFailed;
+import kth.iv1201.gohire.controller.exception.LoginThrottledException;
 import kth.iv1201.gohire.controller.util.ErrorType;
 import kth.iv1201.gohire.controller.util.LoggerException;
 import kth.iv1201.gohire.service.exception.ApplicationHandledException;
+import kth.iv1201.gohire.service.exception.ServerOverloadedException;
 import kth.iv1201.gohire.service.exception.UserCreationFailedException;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -116,4 +119,25 @@ public class ErrorHandlerTest {
         ResponseEntity<ErrorDTO> error = errorHandler.handleException(new AuthenticationForLoggedInUserFailed("error message"));
         assertEquals(HttpStatus.UNAUTHORIZED, error.getStatusCode(), "Method didn't return correct Status Code");
     }
+
+    @Test
+    void testIfHandleServerOverloadedExceptionReturnsValidErrorType() throws LoggerException {
+        ResponseEntity<ErrorDTO> error = errorHandler.handleException(new ServerOverloadedException("THIS IS A TEST", 2));
+        assertEquals(ErrorType.SERVER_OVERLOADED, Objects.requireNonNull(error.getBody()).getErrorType(), "Method didn't return correct ErrorType");
+    }
+
+    @Test
+    void testIfHandleServerOverloadedExceptionReturnsRightStatusCodeAndRetryAfter() throws LoggerException {
+        ResponseEntity<ErrorDTO> error = errorHandler.handleException(new ServerOverloadedException("THIS IS A TEST", 2));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, error.getStatusCode(), "Method didn't return correct Status Code");
+        assertEquals("2", error.getHeaders().getFirst(HttpHeaders.RETRY_AFTER), "Method didn't return correct Retry-After");
+    }
+
+    @Test
+    void testIfHandleLoginThrottledExceptionReturnsRightStatusCodeAndRetryAfter() throws LoggerException {
+        ResponseEntity<ErrorDTO> error = errorHandler.handleException(new LoginThrottledException("THIS IS A TEST", 6));
+        assertEquals(ErrorType.TOO_MANY_LOGIN_ATTEMPTS, Objects.requireNonNull(error.getBody()).getErrorType(), "Method didn't return correct ErrorType");
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, error.getStatusCode(), "Method didn't return correct Status Code");
+        assertEquals("6", error.getHeaders().getFirst(HttpHeaders.RETRY_AFTER), "Method didn't return correct Retry-After");
+    }
 }
@@ -1,10 +1,18 @@
 package kth.iv1201.gohire.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpSession;
 import kth.iv1201.gohire.DTO.*;
 import kth.iv1201.gohire.controller.exception.AuthenticationForLoggedInUserFailed;
+import kth.iv1201.gohire.controller.exception.LoginThrottledException;
+import kth.iv1201.gohire.controller.util.ApplicantEventBroadcaster;
+import kth.iv1201.gohire.controller.util.AuthenticationTokens;
 import kth.iv1201.gohire.controller.util.LoggerException;
+import kth.iv1201.gohire.controller.util.LoginThrottle;
+import kth.iv1201.gohire.controller.util.VerifiedCredentialCache;
+import kth.iv1201.gohire.service.ApplicantExportService;
 import kth.iv1201.gohire.service.PersonService;
+import kth.iv1201.gohire.service.PersonUserDetails;
 import kth.iv1201.gohire.service.exception.ApplicationHandledException;
 import kth.iv1201.gohire.service.exception.UserCreationFailedException;
 import kth.iv1201.gohire.service.exception.UserNotFoundException;
@@ -14,28 +22,48 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.web.authentication.rememberme.AbstractRememberMeServices;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
@@ -48,6 +76,22 @@ class PersonControllerTest {
     HttpSession session;
     @Mock
     AuthenticationManager authenticationManager;
+    @Mock
+    VerifiedCredentialCache verifiedCredentialCache;
+    @Mock
+    LoginThrottle loginThrottle;
+    @Mock
+    AbstractRememberMeServices rememberMeServices;
+    @Mock
+    AuthenticationTokens authenticationTokens;
+    @Mock
+    SecurityContextRepository securityContextRepository;
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper();
+    @Mock
+    ApplicantEventBroadcaster applicantEventBroadcaster;
+    @Mock
+    ApplicantExportService applicantExportService;
     @InjectMocks
     PersonController personController;
     LoginRequestDTO mockLoginRequestDTO;
@@ -59,11 +103,13 @@ class PersonControllerTest {
     ApplicantDTO mockAcceptedApplicantDTO;
     LinkedList<ApplicantDTO> mockListOfApplicants;
     String filePathEventLog;
+    MockHttpServletRequest request;
+    MockHttpServletResponse response;
 
     @BeforeEach
     void setUp() {
         Mockito.reset(personService);
-        mockLoginRequestDTO = new LoginRequestDTO("exampleUsername", "examplePassword");
+        mockLoginRequestDTO = new LoginRequestDTO("exampleUsername", "examplePassword", false);
         mockLoggedInPersonDTO = new LoggedInPersonDTO(0, "exampleUsername", "recruiter");
         mockCreateApplicantRequestDTO = new CreateApplicantRequestDTO("exampleFirstName", "exampleLastName", "example@example.com", "123456-7890", "exampleUsername", "examplePassword");
         mockAuthenticatedSuccessfulResponse = UsernamePasswordAuthenticationToken.authenticated("exampleUsername2", "examplePassword2", null);
@@ -75,6 +121,9 @@ class PersonControllerTest {
         String date = LocalDate.now().toString();
         filePathEventLog = date + "_" + "eventlog.txt";
         session = new MockHttpSession();
+        request = new MockHttpServletRequest();
+        request.setSession(session);
+        response = new MockHttpServletResponse();
     }
 
     @AfterEach
@@ -87,22 +136,73 @@ class PersonControllerTest {
     }
 
     @Test
-    void testIfUserReturnedWhenLoginCorrect() throws LoggerException, UserNotFoundException {
+    void testIfUserReturnedWhenLoginCorrect() throws LoggerException, UserNotFoundException, LoginThrottledException {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(mockAuthenticatedSuccessfulResponse);
         when(personService.fetchLoggedInPersonByUsername(mockLoginRequestDTO.getUsername()))
                 .thenReturn(mockLoggedInPersonDTO);
-        LoggedInPersonDTO returnedLoggedInPersonDTO = personController.login(mockLoginRequestDTO, session);
+        LoggedInPersonDTO returnedLoggedInPersonDTO = personController.login(mockLoginRequestDTO, request, response);
         assertEquals(mockLoggedInPersonDTO, returnedLoggedInPersonDTO,
                 "Returned LoggedInPersonDTO from PersonController does not equal returned" +
                         "LoggedInPersonDTO from PersonService.");
     }
 
+    @Test
+    void testIfLoginIsOnlyRememberedWhenRequested() throws LoggerException, UserNotFoundException,
+            LoginThrottledException {
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(mockAuthenticatedSuccessfulResponse);
+        when(personService.fetchLoggedInPersonByUsername(any())).thenReturn(mockLoggedInPersonDTO);
+        personController.login(mockLoginRequestDTO, request, response);
+        verify(rememberMeServices, never()).loginSuccess(any(), any(), any());
+        LoginRequestDTO rememberedLoginRequestDTO = new LoginRequestDTO("exampleUsername", "examplePassword", true);
+        personController.login(rememberedLoginRequestDTO, request, response);
+        verify(rememberMeServices).loginSuccess(request, response, mockAuthenticatedSuccessfulResponse);
+    }
+
+    @Test
+    void testIfLoggedInUserIsSavedInSecurityContextRepository() throws LoggerException, UserNotFoundException,
+            LoginThrottledException {
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(mockAuthenticatedSuccessfulResponse);
+        when(personService.fetchLoggedInPersonByUsername(any())).thenReturn(mockLoggedInPersonDTO);
+        personController.login(mockLoginRequestDTO, request, response);
+        verify(securityContextRepository).saveContext(
+                argThat(context -> context.getAuthentication() == mockAuthenticatedSuccessfulResponse), eq(request),
+                eq(response));
+    }
+
+    @Test
+    void testIfStatelessLoginReturnsTokenWithoutSession() throws LoggerException, UserNotFoundException,
+            LoginThrottledException {
+        MockHttpServletRequest requestWithoutSession = new MockHttpServletRequest();
+        when(authenticationTokens.isEnabled()).thenReturn(true);
+        when(authenticationTokens.issue(mockLoggedInPersonDTO)).thenReturn("signedToken");
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(mockAuthenticatedSuccessfulResponse);
+        when(personService.fetchLoggedInPersonByUsername(mockLoginRequestDTO.getUsername()))
+                .thenReturn(mockLoggedInPersonDTO);
+        personController.login(mockLoginRequestDTO, requestWithoutSession, response);
+        assertEquals("signedToken", response.getHeader(PersonController.AUTH_TOKEN_HEADER),
+                "Token was not returned in stateless mode");
+        assertNull(requestWithoutSession.getSession(false), "Session was created in stateless mode");
+    }
+
+    @Test
+    void testIfThrottledLoginIsRejectedWithoutAuthenticating() throws LoginThrottledException {
+        request.setRemoteAddr("10.0.0.1");
+        Mockito.doThrow(new LoginThrottledException("Too many login attempts", 5))
+                .when(loginThrottle).checkLoginAllowed(mockLoginRequestDTO.getUsername(), "10.0.0.1");
+        assertThrowsExactly(LoginThrottledException.class, () -> personController.login(mockLoginRequestDTO, request, response),
+                "No LoginThrottledException was thrown when the login was throttled.");
+        verify(authenticationManager, never()).authenticate(any());
+    }
+
     @Test
     void testIfLoginFailedExceptionIsThrownWhenCredentialsPresentButIncorrect() {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(mockAuthenticatedFailedResponse);
-        assertThrowsExactly(BadCredentialsException.class, () -> personController.login(mockLoginRequestDTO, session),
+        assertThrowsExactly(BadCredentialsException.class, () -> personController.login(mockLoginRequestDTO, request, response),
                 "No LoginFailedException was thrown when credentials were incorrect.");
     }
 
@@ -123,9 +223,70 @@ class PersonControllerTest {
 
     @Test
     void testIfFetchApplicantsReturnsListOfApplicants() {
+        when(personService.fetchApplicantsVersion()).thenReturn("version-1");
+        request.setMethod("GET");
         when(personService.fetchApplicants()).thenReturn(mockListOfApplicants);
-        List<ApplicantDTO> applicants = personController.fetchApplicants();
+        List<ApplicantDTO> applicants = personController.fetchApplicants(new ServletWebRequest(request, response), response);
         assertEquals(LinkedList.class, applicants.getClass(), "");
+        assertEquals("W/\"version-1-json\"", response.getHeader(HttpHeaders.ETAG),
+                "Version and format of the list were not sent as a weak ETag");
+        assertEquals(HttpHeaders.ACCEPT, response.getHeader(HttpHeaders.VARY), "Response did not vary with Accept");
+    }
+
+    @Test
+    void testIfUnchangedApplicantsAreNotModifiedWithoutFetching() {
+        when(personService.fetchApplicantsVersion()).thenReturn("version-1");
+        request.setMethod("GET");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"version-1-json\"");
+        List<ApplicantDTO> applicants = personController.fetchApplicants(new ServletWebRequest(request, response), response);
+        assertNull(applicants, "A body was returned for an unchanged list");
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus(), "Unchanged list was not answered 304");
+        verify(personService, never()).fetchApplicants();
+    }
+
+    @Test
+    void testIfStreamedApplicantsAreWrittenOnePerLine() throws IOException {
+        Mockito.doAnswer(invocation -> {
+            Consumer<ApplicantDTO> consumer = invocation.getArgument(0);
+            consumer.accept(new ApplicantDTO(1, "firstApplicant", "lastName", "unhandled"));
+            consumer.accept(new ApplicantDTO(2, "secondApplicant", "lastName", "accepted"));
+            return null;
+        }).when(personService).streamApplicants(any());
+        ResponseEntity<StreamingResponseBody> streamed = personController.streamApplicants();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        streamed.getBody().writeTo(body);
+        String[] lines = body.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length, "Streamed applicants were not written one per line");
+        assertTrue(lines[1].contains("\"firstName\":\"secondApplicant\""), "Streamed applicant was not written as JSON");
+        assertEquals("application/x-ndjson", streamed.getHeaders().getContentType().toString(),
+                "Streamed applicants did not have the NDJSON content type");
+    }
+
+    @Test
+    void testIfExportIsGzippedWhenClientAcceptsGzip() throws IOException {
+        Mockito.doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(0);
+            outputStream.write("id,first_name,last_name,status\n".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        }).when(applicantExportService).exportApplicantsAsCsv(any());
+        ResponseEntity<StreamingResponseBody> exported = personController.exportApplicants("deflate, gzip;q=0.8");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        exported.getBody().writeTo(body);
+        assertEquals("gzip", exported.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING),
+                "Export was not marked as gzipped");
+        try (GZIPInputStream unzipped = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            assertEquals("id,first_name,last_name,status\n", new String(unzipped.readAllBytes(), StandardCharsets.UTF_8),
+                    "Gzipped export did not contain the CSV");
+        }
+    }
+
+    @Test
+    void testIfExportIsNotGzippedWhenClientRefusesGzip() {
+        ResponseEntity<StreamingResponseBody> exported = personController.exportApplicants("gzip;q=0, identity");
+        assertNull(exported.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING),
+                "Export was gzipped although the client refused gzip");
+        assertEquals("text/csv;charset=UTF-8", exported.getHeaders().getContentType().toString(),
+                "Export did not have the CSV content type");
     }
 
     @Test
@@ -180,17 +341,81 @@ class PersonControllerTest {
                         "credentials for other account.");
     }
 
+    @Test
+    @WithMockUser(username="exampleUsername", roles={"recruiter"})
+    void testIfRecentlyVerifiedCredentialsAreNotAuthenticatedAgain() throws ApplicationHandledException, LoggerException, AuthenticationForLoggedInUserFailed {
+        when(verifiedCredentialCache.isVerified("exampleUsername", "examplePassword")).thenReturn(true);
+        when(personService.changeApplicantStatus(mockChangeApplicationStatusRequestDTO))
+                .thenReturn(mockAcceptedApplicantDTO);
+        personController.changeApplicationStatus(mockChangeApplicationStatusRequestDTO);
+        verify(authenticationManager, never()).authenticate(any());
+    }
+
+    @Test
+    @WithMockUser(username="exampleUsername", roles={"recruiter"})
+    void testIfSuccessfulCredentialConfirmationIsRemembered() throws ApplicationHandledException, LoggerException, AuthenticationForLoggedInUserFailed {
+        Authentication currentAuthentication = SecurityContextHolder.getContext().getAuthentication();
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(currentAuthentication);
+        when(personService.changeApplicantStatus(mockChangeApplicationStatusRequestDTO))
+                .thenReturn(mockAcceptedApplicantDTO);
+        personController.changeApplicationStatus(mockChangeApplicationStatusRequestDTO);
+        verify(verifiedCredentialCache).markVerified("exampleUsername", "examplePassword");
+    }
+
+    @Test
+    void testIfLoginIsBuiltFromPrincipalWithoutFetchingPerson() throws LoggerException, UserNotFoundException,
+            LoginThrottledException {
+        PersonUserDetails principal = new PersonUserDetails(5, "exampleUsername", "encodedPassword", "recruiter");
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+        LoggedInPersonDTO returnedLoggedInPersonDTO = personController.login(mockLoginRequestDTO, request, response);
+        assertEquals(5, returnedLoggedInPersonDTO.getId(), "Returned id does not match the principal.");
+        assertEquals("exampleUsername", returnedLoggedInPersonDTO.getUsername(), "Returned username does not match the principal.");
+        assertEquals("recruiter", returnedLoggedInPersonDTO.getRole(), "Returned role does not match the principal.");
+        verify(personService, never()).fetchLoggedInPersonByUsername(any());
+    }
+
+    @Test
+    void testIfLoggedInPersonIsFetchedFromPrincipal() {
+        PersonUserDetails principal = new PersonUserDetails(5, "exampleUsername", "encodedPassword", "applicant");
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+        try {
+            LoggedInPersonDTO loggedInPerson = personController.fetchLoggedInPerson();
+            assertEquals(5, loggedInPerson.getId(), "Returned id does not match the principal.");
+            assertEquals("applicant", loggedInPerson.getRole(), "Returned role does not match the principal.");
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    void testIfFetchingLoggedInPersonWithoutLoginThrows() {
+        SecurityContextHolder.clearContext();
+        assertThrowsExactly(InsufficientAuthenticationException.class, () -> personController.fetchLoggedInPerson(),
+                "Fetching the logged in person without a logged in user did not throw.");
+    }
+
     @Test
     @WithMockUser(username="exampleUsername")
     void testIfAuthenticationIsInvalidatedWhenPerformingLogout() throws LoggerException {
         Authentication currentAuthentication = SecurityContextHolder.getContext().getAuthentication();
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(currentAuthentication);
-        personController.performLogout(session);
+        personController.performLogout(request, response);
         assertFalse(currentAuthentication.isAuthenticated(), "Authentication is not invalidated " +
                 "after logging out.");
     }
 
+    @Test
+    @WithMockUser(username="exampleUsername")
+    void testIfRememberedLoginIsForgottenWhenPerformingLogout() throws LoggerException {
+        Authentication currentAuthentication = SecurityContextHolder.getContext().getAuthentication();
+        personController.performLogout(request, response);
+        verify(rememberMeServices).logout(request, response, currentAuthentication);
+    }
+
     @Test
     @WithMockUser(username="exampleUsername")
     void testIfCorrectResponseEntityIsReturnedAfterSuccessfulLogout() throws LoggerException {
@@ -200,7 +425,7 @@ class PersonControllerTest {
         Map<String, String> responseMap = new HashMap<>();
         responseMap.put("message", "Logout successful");
         ResponseEntity<Map<String, String>> expectedResponse = ResponseEntity.ok().body(responseMap);
-        assertEquals(personController.performLogout(session), expectedResponse, "Incorrect response entity " +
+        assertEquals(personController.performLogout(request, response), expectedResponse, "Incorrect response entity " +
                 "returned after logging in.");
     }
     @Test
@@ -209,7 +434,7 @@ class PersonControllerTest {
         Authentication currentAuthentication = SecurityContextHolder.getContext().getAuthentication();
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(currentAuthentication);
-        personController.performLogout(session);
+        personController.performLogout(request, response);
         assertThrowsExactly(IllegalStateException.class,
         () -> session.getCreationTime(), "session was not invalidated after logout");
     }
@@ -240,12 +465,13 @@ class PersonControllerTest {
     }
 
     @Test
-    void testIfSuccessfulLoginIsLoggedCorrectly() throws UserNotFoundException, LoggerException, IOException {
+    void testIfSuccessfulLoginIsLoggedCorrectly() throws UserNotFoundException, LoggerException, IOException,
+            LoginThrottledException {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(mockAuthenticatedSuccessfulResponse);
         when(personService.fetchLoggedInPersonByUsername(mockLoginRequestDTO.getUsername()))
                 .thenReturn(mockLoggedInPersonDTO);
-        personController.login(mockLoginRequestDTO, session);
+        personController.login(mockLoginRequestDTO, request, response);
         String messageThatShouldBeLogged = "New applicant registered: " + mockLoginRequestDTO.getUsername();
         boolean match = checkIfCorrectEventMessageWasLogged(messageThatShouldBeLogged);
         assertTrue(match, "Expected event message not written to eventlog");
@@ -258,7 +484,7 @@ class PersonControllerTest {
         Authentication currentAuthentication = SecurityContextHolder.getContext().getAuthentication();
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(currentAuthentication);
-        personController.performLogout(session);
+        personController.performLogout(request, response);
         String messageThatShouldBeLogged = "User logged out: " + currentAuthentication.getName();
         boolean match = checkIfCorrectEventMessageWasLogged(messageThatShouldBeLogged);
         assertTrue(match, "Expected event message not written to eventlog");
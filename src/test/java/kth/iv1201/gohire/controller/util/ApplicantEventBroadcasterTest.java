@@ -0,0 +1,110 @@
+package kth.iv1201.gohire.controller.util;
+
+import kth.iv1201.gohire.DTO.ApplicantDTO;
+import kth.iv1201.gohire.service.ApplicantChangedEvent;
+import kth.iv1201.gohire.service.SpringDataJpaUserDetailsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ApplicantEventBroadcasterTest {
+    private static final long DELIVERY_TIMEOUT_MILLIS = 5000;
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ApplicantEventBroadcaster applicantEventBroadcaster;
+    @MockBean
+    SpringDataJpaUserDetailsService userDetailsService;
+
+    @Test
+    @WithMockUser(roles = "recruiter")
+    void testIfChangedApplicantIsPushedToSubscribedRecruiter() throws Exception {
+        MvcResult subscription = mockMvc.perform(get("/api/applications/events")).andReturn();
+        assertTrue(subscription.getRequest().isAsyncStarted(), "Subscription did not start an event stream");
+        applicantEventBroadcaster.onApplicantChanged(new ApplicantChangedEvent(
+                new ApplicantDTO(7, "ApplicantFirstName", "ApplicantLastName", "accepted")));
+        long deadline = System.currentTimeMillis() + DELIVERY_TIMEOUT_MILLIS;
+        String body;
+        while (!(body = subscription.getResponse().getContentAsString()).contains("\"id\":7") &&
+                System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertTrue(body.contains("event:applicant"), "Pushed event was not named applicant");
+        assertTrue(body.contains("\"status\":\"accepted\""), "Changed applicant was not pushed as JSON");
+    }
+
+    @Test
+    @WithMockUser(roles = "applicant")
+    void testIfApplicantCanNotSubscribe() throws Exception {
+        MvcResult subscription = mockMvc.perform(get("/api/applications/events")).andReturn();
+        assertFalse(subscription.getRequest().isAsyncStarted(), "An applicant was subscribed to applicant changes");
+    }
+
+    @Test
+    void testIfSubscriberWithFullBufferIsDisconnected() {
+        ApplicantEventBroadcaster broadcaster = new ApplicantEventBroadcaster(2, 60000, 60000, 60000);
+        broadcaster.stop();
+        broadcaster.subscribe();
+        ApplicantChangedEvent event = new ApplicantChangedEvent(
+                new ApplicantDTO(1, "ApplicantFirstName", "ApplicantLastName", "unhandled"));
+        broadcaster.onApplicantChanged(event);
+        broadcaster.onApplicantChanged(event);
+        assertEquals(1, broadcaster.getSubscribers(), "Subscriber was disconnected before its buffer was full");
+        broadcaster.onApplicantChanged(event);
+        assertEquals(0, broadcaster.getSubscribers(), "Subscriber with a full buffer was not disconnected");
+        assertEquals(1, broadcaster.getDroppedSubscribers(), "Disconnected subscriber was not counted");
+    }
+
+    @Test
+    void testIfStalledSubscriberDoesNotHoldBackOthers() throws InterruptedException {
+        ApplicantEventBroadcaster broadcaster = new ApplicantEventBroadcaster(2, 60000, 60000, 200);
+        CountDownLatch stalledWrite = new CountDownLatch(1);
+        AtomicInteger delivered = new AtomicInteger();
+        broadcaster.subscribe(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                try {
+                    stalledWrite.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        broadcaster.subscribe(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                delivered.incrementAndGet();
+            }
+        });
+        try {
+            for (int i = 0; i < 6; i++) {
+                broadcaster.onApplicantChanged(new ApplicantChangedEvent(
+                        new ApplicantDTO(i, "ApplicantFirstName", "ApplicantLastName", "unhandled")));
+                Thread.sleep(100);
+            }
+            long deadline = System.currentTimeMillis() + DELIVERY_TIMEOUT_MILLIS;
+            while (delivered.get() < 6 && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertEquals(6, delivered.get(), "Healthy subscriber was held back by a stalled subscriber");
+            assertEquals(1, broadcaster.getSubscribers(), "Stalled subscriber was not disconnected");
+            assertEquals(1, broadcaster.getDroppedSubscribers(), "Healthy subscriber was disconnected");
+        } finally {
+            stalledWrite.countDown();
+            broadcaster.stop();
+        }
+    }
+}
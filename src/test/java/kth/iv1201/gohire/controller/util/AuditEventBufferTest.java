@@ -0,0 +1,150 @@
+package kth.iv1201.gohire.controller.util;
+
+import kth.iv1201.gohire.DTO.EventType;
+import kth.iv1201.gohire.DTO.LogEventDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class AuditEventBufferTest {
+    @TempDir
+    Path spillDirectory;
+    private AuditEventBuffer buffer;
+    private Path spillFile;
+
+    @BeforeEach
+    void setUp() {
+        spillFile = spillDirectory.resolve("audit-spill.bin");
+        buffer = new AuditEventBuffer(2, spillFile);
+    }
+
+    @Test
+    void testIfEventsAreDrainedInOrder() {
+        LogEventDTO first = new LogEventDTO(EventType.LOGIN, "first", 1, null);
+        LogEventDTO second = new LogEventDTO(EventType.LOGOUT, "second", null, null);
+        buffer.offer(first);
+        buffer.offer(second);
+        assertEquals(List.of(first, second), buffer.drain(10), "Buffered events were not drained in order");
+        assertEquals(0, buffer.getBufferedEvents(), "Drained events are still buffered");
+    }
+
+    @Test
+    void testIfEventsAreSpilledWhenBufferIsFull() {
+        for (int i = 0; i < 5; i++)
+            buffer.offer(new LogEventDTO(EventType.LOGIN, "user" + i, i, null));
+        assertEquals(3, buffer.getBufferedEvents(), "Buffer and overflow hold more events than their capacity");
+        assertEquals(2, buffer.getSpilledEvents(), "Full overflow list was not spilled");
+        assertTrue(Files.exists(spillFile), "Spill file was not written");
+        buffer.spillOverflow();
+        assertEquals(2, buffer.getBufferedEvents(), "Overflow list was kept after it was spilled");
+        assertEquals(3, buffer.getSpilledEvents(), "Overflowing events were not spilled");
+    }
+
+    @Test
+    void testIfOverflowIsSpilledInOneBatch() {
+        for (int i = 0; i < 3; i++)
+            buffer.offer(new LogEventDTO(EventType.LOGIN, "user" + i, i, null));
+        assertFalse(Files.exists(spillFile), "Overflow was spilled before the overflow list was full");
+        buffer.offer(new LogEventDTO(EventType.LOGIN, "user3", 3, null));
+        List<LogEventDTO> spilled = buffer.readSpilled(10);
+        assertEquals(List.of("user2", "user3"), spilled.stream().map(LogEventDTO::getActor).toList(),
+                "Overflow was not spilled together and in order");
+    }
+
+    @Test
+    void testIfSpilledEventsAreReadBackAndRemoved() {
+        Instant timestamp = Instant.ofEpochMilli(1700000000000L);
+        buffer.spill(List.of(new LogEventDTO(EventType.APPLICATION_STATUS_CHANGED, "recruiter", 7, "accepted", timestamp),
+                new LogEventDTO(EventType.LOGOUT, "recruiter", null, null, timestamp)));
+        List<LogEventDTO> spilled = buffer.readSpilled(10);
+        assertEquals(2, spilled.size(), "Spilled events were not read back");
+        assertEquals(EventType.APPLICATION_STATUS_CHANGED, spilled.get(0).getType(), "Event type was not read back");
+        assertEquals("recruiter", spilled.get(0).getActor(), "Actor was not read back");
+        assertEquals(7, spilled.get(0).getSubjectId(), "Subject id was not read back");
+        assertEquals("accepted", spilled.get(0).getDetail(), "Detail was not read back");
+        assertEquals(timestamp, spilled.get(0).getTimestamp(), "Timestamp was not read back");
+        assertNull(spilled.get(1).getSubjectId(), "Missing subject id was not read back as null");
+        buffer.markSpilledSaved();
+        assertTrue(buffer.readSpilled(10).isEmpty(), "Saved spilled events were handed out twice");
+    }
+
+    @Test
+    void testIfSpilledEventsAreReadInBatches() {
+        for (int i = 0; i < 5; i++)
+            buffer.spill(List.of(new LogEventDTO(EventType.LOGIN, "user" + i, i, null)));
+        for (int first = 0; first < 5; first += 2) {
+            List<LogEventDTO> batch = buffer.readSpilled(2);
+            assertEquals(Math.min(2, 5 - first), batch.size(), "Spilled events were not read in batches");
+            assertEquals("user" + first, batch.get(0).getActor(), "Spilled batches were not read in order");
+            buffer.markSpilledSaved();
+        }
+        assertTrue(buffer.readSpilled(2).isEmpty(), "Spilled events remained after every batch was saved");
+    }
+
+    @Test
+    void testIfCorruptSpillFileIsSetAsideAndReplayContinues() throws IOException {
+        buffer.spill(List.of(new LogEventDTO(EventType.LOGIN, "beforeCorrupt", 1, null)));
+        appendRecord("NOT_AN_EVENT_TYPE".getBytes(StandardCharsets.UTF_8));
+        List<LogEventDTO> beforeCorrupt = buffer.readSpilled(10);
+        assertEquals(1, beforeCorrupt.size(), "Events before the corrupt record were not read");
+        buffer.markSpilledSaved();
+        buffer.spill(List.of(new LogEventDTO(EventType.LOGOUT, "afterCorrupt", 2, null)));
+        List<LogEventDTO> afterCorrupt = buffer.readSpilled(10);
+        assertEquals(1, afterCorrupt.size(), "Replay did not continue after the corrupt record");
+        assertEquals("afterCorrupt", afterCorrupt.get(0).getActor(), "Replay did not continue with the next file");
+        assertTrue(hasCorruptFile(), "Corrupt spill file was not set aside");
+    }
+
+    @Test
+    void testIfMalformedTextInSpillFileIsSetAside() throws IOException {
+        appendRecord(new byte[] {(byte) 0xFF, (byte) 0xFE});
+        assertTrue(buffer.readSpilled(10).isEmpty(), "Malformed spilled event was read");
+        assertTrue(hasCorruptFile(), "Spill file with malformed text was not set aside");
+        assertTrue(buffer.readSpilled(10).isEmpty(), "Malformed spilled event was read again");
+    }
+
+    @Test
+    void testIfUnsavedSpilledBatchIsReadAgain() {
+        for (int i = 0; i < 3; i++)
+            buffer.spill(List.of(new LogEventDTO(EventType.LOGIN, "user" + i, i, null)));
+        buffer.readSpilled(2);
+        buffer.markSpilledSaved();
+        assertEquals("user2", buffer.readSpilled(2).get(0).getActor(), "Saved batch was not skipped");
+        AuditEventBuffer restarted = new AuditEventBuffer(2, spillFile);
+        List<LogEventDTO> again = restarted.readSpilled(2);
+        assertEquals(1, again.size(), "Unsaved spilled batch was not kept");
+        assertEquals("user2", again.get(0).getActor(), "Unsaved spilled batch was not read again");
+    }
+
+    private void appendRecord(byte[] type) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(spillFile,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            out.writeLong(1700000000000L);
+            out.writeShort(type.length);
+            out.write(type);
+            out.writeUTF("actor");
+            out.writeInt(1);
+            out.writeUTF("");
+        }
+    }
+
+    private boolean hasCorruptFile() throws IOException {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            return files.anyMatch(file -> file.getFileName().toString().startsWith("audit-spill.bin.corrupt"));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package kth.iv1201.gohire.controller.util;
+
+import kth.iv1201.gohire.DTO.LoggedInPersonDTO;
+import kth.iv1201.gohire.service.PersonUserDetails;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class AuthenticationTokensTest {
+    private static final String OLD_KEY = "old:b2xkLWtleS1vbGQta2V5LW9sZC1rZXktb2xkLWtleS0=";
+    private static final String NEW_KEY = "new:bmV3LWtleS1uZXcta2V5LW5ldy1rZXktbmV3LWtleS0=";
+    private static final Instant NOW = Instant.parse("2024-03-01T12:00:00Z");
+
+    private final LoggedInPersonDTO person = new LoggedInPersonDTO(7, "recruiter", "recruiter");
+
+    @Test
+    void testIfIssuedTokenIsVerified() {
+        AuthenticationTokens tokens = tokensAt(NOW, OLD_KEY, "old");
+        PersonUserDetails principal = tokens.verify(tokens.issue(person));
+        assertNotNull(principal, "Issued token was not verified");
+        assertEquals(7, principal.getPersonId(), "Token carried the wrong person id");
+        assertEquals("recruiter", principal.getUsername(), "Token carried the wrong username");
+        assertEquals("recruiter", principal.getRoleName(), "Token carried the wrong role");
+    }
+
+    @Test
+    void testIfTamperedTokenIsRejected() {
+        AuthenticationTokens tokens = tokensAt(NOW, OLD_KEY, "old");
+        String token = tokens.issue(person);
+        String tampered = token.substring(0, 4) + (token.charAt(4) == 'A' ? 'B' : 'A') + token.substring(5);
+        assertNull(tokens.verify(tampered), "Tampered token was verified");
+        assertNull(tokens.verify("not a token"), "Malformed token was verified");
+    }
+
+    @Test
+    void testIfExpiredTokenIsRejected() {
+        String token = tokensAt(NOW, OLD_KEY, "old").issue(person);
+        assertNull(tokensAt(NOW.plus(Duration.ofHours(2)), OLD_KEY, "old").verify(token), "Expired token was verified");
+    }
+
+    @Test
+    void testIfTokensOfRotatedKeyAreStillVerified() {
+        String token = tokensAt(NOW, OLD_KEY, "old").issue(person);
+        AuthenticationTokens rotated = tokensAt(NOW, OLD_KEY + "," + NEW_KEY, "new");
+        assertNotNull(rotated.verify(token), "Token signed with the previous key was rejected");
+        assertNull(tokensAt(NOW, NEW_KEY, "new").verify(token), "Token signed with a removed key was verified");
+    }
+
+    private AuthenticationTokens tokensAt(Instant now, String keys, String signingKeyId) {
+        return new AuthenticationTokens(SecurityMode.STATELESS, keys, signingKeyId, Duration.ofHours(1),
+                Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
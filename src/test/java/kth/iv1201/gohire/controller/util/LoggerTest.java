@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -76,4 +77,112 @@ public class LoggerTest {
         reader.close();
     }
 
+    @Test
+    public void testIfRepeatedErrorIsOnlyLoggedInFullOnceWithinWindow() throws IOException {
+        Exception repeatedException = new Exception(message);
+        Logger.setErrorDeduplicationWindow(60000);
+        try {
+            Logger.logError(repeatedException);
+            Logger.logError(repeatedException);
+            Logger.logError(repeatedException);
+            Logger.flushErrorCounts();
+        } catch (LoggerException e) {
+            fail("Failed to write to Errorlog");
+        }
+        BufferedReader reader = new BufferedReader(new FileReader(filePathErrorLog));
+        int fullTraces = 0;
+        boolean countWritten = false;
+        String line;
+        while((line = reader.readLine()) != null){
+            if(line.contains(message))
+                fullTraces++;
+            if(line.contains("occurred 2 more times"))
+                countWritten = true;
+        }
+        reader.close();
+        assertEquals(1, fullTraces, "Repeated error was written in full more than once");
+        assertTrue(countWritten, "Count of repeated errors was not written to Errorlog");
+    }
+
+    @Test
+    public void testIfTopErrorsContainsLoggedError() throws LoggerException {
+        Exception exception = new IllegalStateException(message);
+        Logger.logError(exception);
+        boolean found = Logger.fetchTopErrors(1000).stream()
+                .anyMatch(error -> message.equals(error.getLastMessage()));
+        assertTrue(found, "Logged error was not included in the error summary");
+    }
+
+    @Test
+    public void testIfLogEventInAsyncModeLogsToFileWhenStopped() throws IOException {
+        Logger.startAsyncMode(16, 4, 1000, OverflowPolicy.BLOCK, 1);
+        try {
+            for (int i = 0; i < 40; i++)
+                Logger.logEvent(message + "-" + i);
+        } catch (LoggerException e) {
+            fail("Failed to queue event for eventlog");
+        } finally {
+            Logger.stopAsyncMode();
+        }
+        BufferedReader reader = new BufferedReader(new FileReader(filePathEventLog));
+        int matches = 0;
+        String line;
+        while((line = reader.readLine()) != null){
+            if(line.contains(message + "-")){
+                matches++;
+            }
+        }
+        reader.close();
+        assertEquals(40, matches, "Not all queued event messages were written to eventlog");
+    }
+
+    @Test
+    public void testIfDropOverflowPolicyCountsDroppedEntries() {
+        Logger.startAsyncMode(1, 1000, 60000, OverflowPolicy.DROP, 1);
+        long dropped;
+        try {
+            for (int i = 0; i < 10; i++)
+                Logger.logEvent(message + "-" + i);
+            dropped = Logger.getDroppedEntries();
+        } catch (LoggerException e) {
+            fail("Failed to queue event for eventlog");
+            return;
+        } finally {
+            Logger.stopAsyncMode();
+        }
+        assertTrue(dropped > 0, "Entries beyond the queue capacity were not dropped");
+        assertEquals(dropped, Logger.getDroppedEntries(), "Dropped entries were forgotten when the writer stopped");
+    }
+
+    @Test
+    public void testIfNoEntryIsLostWhenAsyncModeStopsWhileLogging() throws Exception {
+        Logger.startAsyncMode(64, 16, 60000, OverflowPolicy.BLOCK, 1);
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            int producer = t;
+            producers[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 250; i++)
+                        Logger.logEvent(message + "-" + producer + "-" + i);
+                } catch (LoggerException e) {
+                    fail("Failed to log event while async mode was stopping");
+                }
+            });
+            producers[t].start();
+        }
+        Thread.sleep(5);
+        Logger.stopAsyncMode();
+        for (Thread producer : producers)
+            producer.join();
+        BufferedReader reader = new BufferedReader(new FileReader(filePathEventLog));
+        int matches = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.contains(message + "-"))
+                matches++;
+        }
+        reader.close();
+        assertEquals(1000, matches, "Entries logged while async mode was stopping were lost");
+    }
+
 }
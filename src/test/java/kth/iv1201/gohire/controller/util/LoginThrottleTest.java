@@ -0,0 +1,80 @@
+package kth.iv1201.gohire.controller.util;
+
+import kth.iv1201.gohire.controller.exception.LoginThrottledException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class LoginThrottleTest {
+    private LoginThrottle loginThrottle;
+
+    @BeforeEach
+    void setUp() {
+        loginThrottle = new LoginThrottle(5, 3, 100);
+    }
+
+    @Test
+    void testIfAttemptsWithinBurstAreAllowed() {
+        assertDoesNotThrow(() -> {
+            for (int attempt = 0; attempt < 3; attempt++)
+                loginThrottle.checkLoginAllowed("applicant", "127.0.0.1");
+        }, "Attempts within the burst size were throttled");
+    }
+
+    @Test
+    void testIfUsernameIsThrottledAfterBurst() throws LoginThrottledException {
+        for (int attempt = 0; attempt < 3; attempt++)
+            loginThrottle.checkLoginAllowed("applicant", "127.0.0." + attempt);
+        LoginThrottledException exception = assertThrowsExactly(LoginThrottledException.class,
+                () -> loginThrottle.checkLoginAllowed("applicant", "127.0.0.9"), "Username was not throttled");
+        assertTrue(exception.getRetryAfterSeconds() >= 1 && exception.getRetryAfterSeconds() <= 20,
+                "Retry-After was not the time until the next token");
+    }
+
+    @Test
+    void testIfAddressIsThrottledAcrossUsernames() throws LoginThrottledException {
+        for (int attempt = 0; attempt < 5; attempt++)
+            loginThrottle.checkLoginAllowed("applicant" + attempt, "127.0.0.1");
+        assertThrowsExactly(LoginThrottledException.class,
+                () -> loginThrottle.checkLoginAllowed("recruiter", "127.0.0.1"), "Address was not throttled");
+        assertDoesNotThrow(() -> loginThrottle.checkLoginAllowed("recruiter", "127.0.0.2"),
+                "Other address was throttled");
+    }
+
+    @Test
+    void testIfConcurrentAttemptsNeverExceedBurst() throws InterruptedException {
+        LoginThrottle throttle = new LoginThrottle(1000, 50, 100);
+        AtomicInteger allowed = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int thread = 0; thread < threads.length; thread++) {
+            threads[thread] = new Thread(() -> {
+                for (int attempt = 0; attempt < 100; attempt++) {
+                    try {
+                        throttle.checkLoginAllowed("applicant", "127.0.0.1");
+                        allowed.incrementAndGet();
+                    } catch (LoginThrottledException ignored) {
+                    }
+                }
+            });
+            threads[thread].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertTrue(allowed.get() >= 50 && allowed.get() <= 52, "Concurrent attempts were not limited to the burst size");
+    }
+
+    @Test
+    void testIfNonPositiveLimitsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LoginThrottle(0, 3, 100),
+                "Zero attempts per address was accepted");
+        assertThrows(IllegalArgumentException.class, () -> new LoginThrottle(5, -1, 100),
+                "Negative attempts per username was accepted");
+        assertThrows(IllegalArgumentException.class, () -> new LoginThrottle(5, 3, 0),
+                "Zero buckets was accepted");
+    }
+}
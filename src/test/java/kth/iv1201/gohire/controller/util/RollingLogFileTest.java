@@ -0,0 +1,117 @@
+package kth.iv1201.gohire.controller.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class RollingLogFileTest {
+    @TempDir
+    Path logDirectory;
+    private LocalDate today;
+    private String entry;
+
+    @BeforeEach
+    void setUp() {
+        today = LocalDate.now();
+        entry = "x".repeat(49) + "\n";
+    }
+
+    @Test
+    void testIfSegmentIsRolledOverAndCompressedWhenFull() throws IOException, InterruptedException {
+        RollingLogFile logFile = new RollingLogFile(logDirectory, "eventlog.txt", new LogCompressor(logDirectory, 0), 100);
+        for (int i = 0; i < 5; i++)
+            logFile.append(today, entry);
+        logFile.close();
+        List<String> compressed = awaitCompressedSegments(2);
+        assertTrue(compressed.contains(today + "_eventlog.1.txt.gz"), "First full segment was not compressed");
+        assertTrue(compressed.contains(today + "_eventlog.2.txt.gz"), "Second full segment was not compressed");
+        assertEquals(50, Files.size(logDirectory.resolve(today + "_eventlog.txt")),
+                "Active segment does not contain only the entry written after the last roll over");
+    }
+
+    @Test
+    void testIfSegmentOfPreviousDayIsCompressedWhenDateChanges() throws IOException, InterruptedException {
+        RollingLogFile logFile = new RollingLogFile(logDirectory, "eventlog.txt", new LogCompressor(logDirectory, 0), 0);
+        logFile.append(today.minusDays(1), entry);
+        logFile.append(today, entry);
+        logFile.close();
+        List<String> compressed = awaitCompressedSegments(1);
+        assertEquals(List.of(today.minusDays(1) + "_eventlog.txt.gz"), compressed,
+                "Segment of the previous day was not compressed");
+    }
+
+    @Test
+    void testIfOldestCompressedSegmentsAreDeletedWhenOverRetentionLimit() throws IOException, InterruptedException {
+        RollingLogFile logFile = new RollingLogFile(logDirectory, "eventlog.txt", new LogCompressor(logDirectory, 150), 50);
+        for (int i = 0; i < 20; i++)
+            logFile.append(today, entry);
+        logFile.close();
+        Thread.sleep(2000);
+        long totalBytes;
+        try (Stream<Path> files = Files.list(logDirectory)) {
+            totalBytes = files.mapToLong(file -> file.toFile().length()).sum();
+        }
+        assertTrue(totalBytes <= 150, "Logs use more disk than the retention limit allows: " + totalBytes);
+    }
+
+    @Test
+    void testIfStructuredSegmentsOfOldDaysAreDeletedWithTheTextLogs() throws IOException, InterruptedException {
+        LocalDate expiredDay = today.minusDays(40);
+        LocalDate keptDay = today.minusDays(2);
+        for (LocalDate day : List.of(expiredDay, keptDay, today))
+            for (String suffix : List.of("_eventlog.bin", "_eventlog.tidx", "_eventlog.aidx"))
+                Files.writeString(logDirectory.resolve(day + suffix), "x");
+        Files.writeString(logDirectory.resolve(expiredDay + "_eventlog.txt.gz"), "x");
+        LogCompressor compressor = new LogCompressor(logDirectory, 0);
+        compressor.setMaxAgeDays(30);
+        compressor.enforceRetentionInBackground();
+        Thread.sleep(1000);
+        try (Stream<Path> files = Files.list(logDirectory)) {
+            List<String> names = files.map(file -> file.getFileName().toString()).toList();
+            assertTrue(names.stream().noneMatch(name -> name.startsWith(expiredDay.toString())),
+                    "Log artifacts older than the maximum age were kept: " + names);
+            assertEquals(6, names.size(), "Log artifacts within the maximum age were deleted: " + names);
+        }
+    }
+
+    @Test
+    void testIfOldestStructuredDayIsDeletedWhenOverRetentionLimit() throws IOException, InterruptedException {
+        for (int daysAgo = 3; daysAgo >= 0; daysAgo--)
+            for (String suffix : List.of("_eventlog.bin", "_eventlog.tidx", "_eventlog.aidx"))
+                Files.writeString(logDirectory.resolve(today.minusDays(daysAgo) + suffix), "x".repeat(10));
+        new LogCompressor(logDirectory, 90).enforceRetentionInBackground();
+        Thread.sleep(1000);
+        try (Stream<Path> files = Files.list(logDirectory)) {
+            List<String> names = files.map(file -> file.getFileName().toString()).sorted().toList();
+            assertEquals(9, names.size(), "Structured logs were not cut down to the retention limit: " + names);
+            assertTrue(names.stream().noneMatch(name -> name.startsWith(today.minusDays(3).toString())),
+                    "The oldest day was not deleted first: " + names);
+        }
+    }
+
+    private List<String> awaitCompressedSegments(int expected) throws IOException, InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            List<String> compressed;
+            try (Stream<Path> files = Files.list(logDirectory)) {
+                compressed = files.map(file -> file.getFileName().toString())
+                        .filter(name -> name.endsWith(".gz")).sorted().toList();
+            }
+            if (compressed.size() >= expected)
+                return compressed;
+            Thread.sleep(100);
+        }
+        fail("Closed segments were not compressed in time");
+        return List.of();
+    }
+}
@@ -0,0 +1,119 @@
+package kth.iv1201.gohire.controller.util;
+
+import kth.iv1201.gohire.DTO.EventType;
+import kth.iv1201.gohire.DTO.LogEventDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class StructuredEventLogTest {
+    @TempDir
+    Path logDirectory;
+    private StructuredEventLog eventLog;
+    private Instant start;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        eventLog = new StructuredEventLog(logDirectory, new LogCompressor(logDirectory, 0));
+        start = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).plusHours(1).toInstant();
+        List<LogEventDTO> events = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String actor = i % 2 == 0 ? "recruiter" : "applicant" + i;
+            events.add(new LogEventDTO(EventType.APPLICATION_STATUS_CHANGED, actor, i, "accepted",
+                    start.plusSeconds(i * 60L)));
+        }
+        eventLog.append(events);
+        eventLog.close();
+    }
+
+    @Test
+    void testIfEventsAreReadBackUnchanged() throws IOException {
+        List<LogEventDTO> found = new ArrayList<>();
+        eventLog.query(null, start, start, found::add);
+        assertEquals(1, found.size(), "Query did not return exactly the event at the start of the range");
+        LogEventDTO event = found.get(0);
+        assertEquals(EventType.APPLICATION_STATUS_CHANGED, event.getType(), "Event type was not read back");
+        assertEquals("recruiter", event.getActor(), "Actor was not read back");
+        assertEquals(0, event.getSubjectId(), "Subject id was not read back");
+        assertEquals("accepted", event.getDetail(), "Detail was not read back");
+        assertEquals(start, event.getTimestamp(), "Timestamp was not read back");
+    }
+
+    @Test
+    void testIfQueryByTimeReturnsOnlyEventsInRange() throws IOException {
+        List<LogEventDTO> found = new ArrayList<>();
+        eventLog.query(null, start.plusSeconds(100 * 60L), start.plusSeconds(149 * 60L), found::add);
+        assertEquals(50, found.size(), "Query by time did not return the events in range");
+        assertEquals(100, found.get(0).getSubjectId(), "Query by time did not start at the first event in range");
+    }
+
+    @Test
+    void testIfQueryByActorReturnsOnlyEventsOfActor() throws IOException {
+        List<LogEventDTO> found = new ArrayList<>();
+        eventLog.query("recruiter", start, start.plusSeconds(199 * 60L), found::add);
+        assertEquals(100, found.size(), "Query by actor did not return all events of the actor");
+        assertTrue(found.stream().allMatch(event -> event.getActor().equals("recruiter")),
+                "Query by actor returned events of other actors");
+    }
+
+    @Test
+    void testIfAppendingAfterReopenKeepsIndexesConsistent() throws IOException {
+        eventLog.append(List.of(new LogEventDTO(EventType.LOGIN, "late", null, null, start.plusSeconds(300 * 60L))));
+        List<LogEventDTO> found = new ArrayList<>();
+        eventLog.query("late", start, start.plusSeconds(300 * 60L), found::add);
+        assertEquals(1, found.size(), "Event appended after reopening was not found through the actor index");
+        assertNull(found.get(0).getSubjectId(), "Missing subject id was not read back as null");
+    }
+
+    @Test
+    void testIfDetailLongerThanAShortIsReadBackWhole() throws IOException {
+        String detail = "d".repeat(70000);
+        eventLog.append(List.of(new LogEventDTO(EventType.LOGIN, "verbose", null, detail, start.plusSeconds(301 * 60L)),
+                new LogEventDTO(EventType.LOGIN, "verbose", 1, null, start.plusSeconds(302 * 60L))));
+        List<LogEventDTO> found = new ArrayList<>();
+        eventLog.query("verbose", start, start.plusSeconds(302 * 60L), found::add);
+        assertEquals(2, found.size(), "Record after a long detail was not found");
+        assertEquals(detail, found.get(0).getDetail(), "Detail longer than 32767 bytes was not read back whole");
+    }
+
+    @Test
+    void testIfEventOfEarlierDayIsWrittenToSegmentOfItsDay() throws IOException {
+        Instant tomorrow = start.plus(1, ChronoUnit.DAYS);
+        Instant yesterday = start.minus(1, ChronoUnit.DAYS);
+        eventLog.append(List.of(new LogEventDTO(EventType.LOGIN, "nextDay", null, null, tomorrow)));
+        eventLog.append(List.of(new LogEventDTO(EventType.LOGOUT, "previousDay", null, null, yesterday)));
+        eventLog.close();
+        List<LogEventDTO> found = new ArrayList<>();
+        eventLog.query(null, yesterday, yesterday, found::add);
+        assertEquals(1, found.size(), "Event of an earlier day was not found in the segment of its day");
+        found.clear();
+        eventLog.query("previousDay", yesterday, yesterday, found::add);
+        assertEquals(1, found.size(), "Event of an earlier day was not found through the actor index of its day");
+    }
+
+    @Test
+    void testIfActorIsFoundAmongManySortedAndAppendedEntries() throws IOException {
+        List<LogEventDTO> events = new ArrayList<>();
+        for (int i = 0; i < 10000; i++)
+            events.add(new LogEventDTO(EventType.LOGIN, "user" + i, i, null, start.plusMillis(i)));
+        eventLog.append(events);
+        eventLog.append(List.of(new LogEventDTO(EventType.LOGOUT, "user42", 42, null, start.plusSeconds(5))));
+        List<LogEventDTO> found = new ArrayList<>();
+        eventLog.query("user42", start, start.plusSeconds(5), found::add);
+        assertEquals(2, found.size(), "Actor was not found in both the sorted and the appended index entries");
+        assertEquals(EventType.LOGIN, found.get(0).getType(), "Events of the actor were not in the order written");
+    }
+}
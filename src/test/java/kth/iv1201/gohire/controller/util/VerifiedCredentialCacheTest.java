@@ -0,0 +1,93 @@
+package kth.iv1201.gohire.controller.util;
+
+import jakarta.servlet.http.Cookie;
+import kth.iv1201.gohire.config.JdbcSecurityContextRepository;
+import kth.iv1201.gohire.service.PersonChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class VerifiedCredentialCacheTest {
+    private VerifiedCredentialCache verifiedCredentialCache;
+
+    @BeforeEach
+    void setUp() {
+        verifiedCredentialCache = new VerifiedCredentialCache(300, 100);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(requestWithSession()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testIfConfirmedCredentialsAreVerified() {
+        verifiedCredentialCache.markVerified("recruiter", "password");
+        assertTrue(verifiedCredentialCache.isVerified("recruiter", "password"), "Confirmed credentials were not remembered");
+        assertFalse(verifiedCredentialCache.isVerified("recruiter", "wrongPassword"), "Other password was verified");
+    }
+
+    @Test
+    void testIfConfirmationIsNotSharedBetweenSessions() {
+        verifiedCredentialCache.markVerified("recruiter", "password");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(requestWithSession()));
+        assertFalse(verifiedCredentialCache.isVerified("recruiter", "password"), "Confirmation leaked to another session");
+    }
+
+    @Test
+    void testIfConfirmationIsForgottenOnLogout() {
+        verifiedCredentialCache.markVerified("recruiter", "password");
+        verifiedCredentialCache.invalidateCurrentSession();
+        assertFalse(verifiedCredentialCache.isVerified("recruiter", "password"), "Confirmation survived logout");
+    }
+
+    @Test
+    void testIfConfirmationIsForgottenWhenPersonChanges() {
+        verifiedCredentialCache.markVerified("recruiter", "password");
+        verifiedCredentialCache.onPersonChanged(new PersonChangedEvent("recruiter"));
+        assertFalse(verifiedCredentialCache.isVerified("recruiter", "password"), "Confirmation survived person change");
+    }
+
+    @Test
+    void testIfRequestWithoutSessionIsNeverVerified() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        verifiedCredentialCache.markVerified("recruiter", "password");
+        assertFalse(verifiedCredentialCache.isVerified("recruiter", "password"), "Request without session was verified");
+        assertNull(request.getSession(false), "Session was created for a request without session");
+    }
+
+    @Test
+    void testIfConfirmationIsKeptPerSharedSession() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(requestWithSharedSession("first")));
+        verifiedCredentialCache.markVerified("recruiter", "password");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(requestWithSharedSession("first")));
+        assertTrue(verifiedCredentialCache.isVerified("recruiter", "password"),
+                "Confirmation was not remembered for the shared session");
+        MockHttpServletRequest other = requestWithSharedSession("second");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(other));
+        assertFalse(verifiedCredentialCache.isVerified("recruiter", "password"),
+                "Confirmation leaked to another shared session");
+        assertNull(other.getSession(false), "Session was created for a request with a shared session");
+    }
+
+    private MockHttpServletRequest requestWithSharedSession(String sessionId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(JdbcSecurityContextRepository.COOKIE_NAME, sessionId));
+        return request;
+    }
+
+    private MockHttpServletRequest requestWithSession() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.getSession();
+        return request;
+    }
+}
@@ -0,0 +1,154 @@
+package kth.iv1201.gohire.service;
+
+import kth.iv1201.gohire.DTO.ApplicantChangesDTO;
+import kth.iv1201.gohire.DTO.ApplicantDTO;
+import kth.iv1201.gohire.DTO.ApplicantPageDTO;
+import kth.iv1201.gohire.DTO.ChangeApplicationStatusRequestDTO;
+import kth.iv1201.gohire.controller.util.ApplicantSortOrder;
+import kth.iv1201.gohire.service.exception.ApplicationHandledException;
+import kth.iv1201.gohire.service.exception.InvalidPageCursorException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Sql(scripts = "classpath:acceptance-test-data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class ApplicantQueryTest {
+    @Autowired
+    PersonService personService;
+    @Autowired
+    ApplicantReadModel applicantReadModel;
+    @Autowired
+    ApplicantExportService applicantExportService;
+
+    @Test
+    void testIfPagesByNameCoverEveryApplicantOnce() throws InvalidPageCursorException {
+        List<String> firstNames = new ArrayList<>();
+        String cursor = null;
+        do {
+            ApplicantPageDTO page = personService.fetchApplicantPage(ApplicantSortOrder.NAME, null, 2, cursor);
+            assertTrue(page.getApplicants().size() <= 2, "Page contained more applicants than the page size");
+            page.getApplicants().forEach(applicant -> firstNames.add(applicant.getFirstName()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(List.of("applicant1", "applicant2", "applicant3"), firstNames,
+                "Pages by name did not list every applicant once in name order");
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO person (name, surname, username, role_id, application_status_id) " +
+            "VALUES ('unnamedApplicant', NULL, 'unnamedApplicant', 2, 3)")
+    @Sql(statements = "DELETE FROM person WHERE username = 'unnamedApplicant'",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void testIfApplicantsWithoutLastNameAreListedFirstByName() throws InvalidPageCursorException {
+        List<String> firstNames = new ArrayList<>();
+        String cursor = null;
+        do {
+            ApplicantPageDTO page = personService.fetchApplicantPage(ApplicantSortOrder.NAME, null, 1, cursor);
+            page.getApplicants().forEach(applicant -> firstNames.add(applicant.getFirstName()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(List.of("unnamedApplicant", "applicant1", "applicant2", "applicant3"), firstNames,
+                "Applicant without a last name was not listed first by name");
+    }
+
+    @Test
+    void testIfApplicantSummariesContainEveryApplicantWithStatus() {
+        applicantReadModel.reconcile();
+        List<ApplicantDTO> applicants = personService.fetchApplicants();
+        assertEquals(3, applicants.size(), "Not every applicant was fetched");
+        assertTrue(applicants.stream().anyMatch(applicant -> applicant.getFirstName().equals("applicant3") &&
+                applicant.getStatus().equals("accepted")), "Applicant summary has the wrong name or status");
+    }
+
+    @Test
+    void testIfStreamedApplicantsAreOrderedById() {
+        List<ApplicantDTO> streamed = new ArrayList<>();
+        personService.streamApplicants(streamed::add);
+        assertEquals(3, streamed.size(), "Not every applicant was streamed");
+        for (int i = 1; i < streamed.size(); i++)
+            assertTrue(streamed.get(i - 1).getId() < streamed.get(i).getId(), "Streamed applicants were not ordered by id");
+    }
+
+    @Test
+    void testIfExportedCsvHasHeaderAndEveryApplicantOrderedById() throws IOException {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        long rows = applicantExportService.exportApplicantsAsCsv(csv);
+        String[] lines = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, rows, "Not every applicant was exported");
+        assertEquals("id,first_name,last_name,status", lines[0], "Export did not start with the header");
+        assertEquals(4, lines.length, "Export did not have one line per applicant");
+        assertTrue(lines[1].matches("\\d+,applicant\\d,\\w+,\\w+"), "Exported applicant was not written as CSV");
+        for (int i = 2; i < lines.length; i++)
+            assertTrue(Integer.parseInt(lines[i - 1].split(",")[0]) < Integer.parseInt(lines[i].split(",")[0]),
+                    "Exported applicants were not ordered by id");
+    }
+
+    @Test
+    void testIfCsvFieldsAreQuotedLikePostgresCopy() {
+        assertEquals("Anna", ApplicantExportService.csvField("Anna"), "Plain field was quoted");
+        assertEquals("\"Smith, Jr\"", ApplicantExportService.csvField("Smith, Jr"), "Field with a comma was not quoted");
+        assertEquals("\"O\"\"Neil\"", ApplicantExportService.csvField("O\"Neil"), "Quote was not doubled");
+        assertEquals("\"\"", ApplicantExportService.csvField(""), "Empty field was not told apart from a missing one");
+        assertEquals("", ApplicantExportService.csvField(null), "Missing field was not written empty");
+    }
+
+    @Test
+    void testIfCsvFieldsAreNeverReadAsFormulas() {
+        assertEquals("'=1+2", ApplicantExportService.csvField("=1+2"), "Formula was not prefixed");
+        assertEquals("'+46701234567", ApplicantExportService.csvField("+46701234567"), "Plus sign was not prefixed");
+        assertEquals("'-5", ApplicantExportService.csvField("-5"), "Minus sign was not prefixed");
+        assertEquals("'@SUM(A1)", ApplicantExportService.csvField("@SUM(A1)"), "At sign was not prefixed");
+        assertEquals("\"'=HYPERLINK(\"\"x\"\",\"\"y\"\")\"", ApplicantExportService.csvField("=HYPERLINK(\"x\",\"y\")"),
+                "Prefixed formula was not quoted");
+        assertEquals("Smith-Jones", ApplicantExportService.csvField("Smith-Jones"), "Field was prefixed for a later sign");
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO person (name, surname, username, role_id, application_status_id) " +
+            "VALUES ('=cmd', '@evil', 'formulaApplicant', 2, 3)")
+    @Sql(statements = "DELETE FROM person WHERE username = 'formulaApplicant'",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void testIfExportedNamesAreNeverReadAsFormulas() throws IOException {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        applicantExportService.exportApplicantsAsCsv(csv);
+        assertTrue(csv.toString(StandardCharsets.UTF_8).lines().anyMatch(line -> line.endsWith(",'=cmd,'@evil,unhandled")),
+                "Exported names that look like formulas were not prefixed");
+    }
+
+    @Test
+    void testIfChangesAfterHighWaterMarkContainOnlyChangedApplicant() throws ApplicationHandledException,
+            InvalidPageCursorException {
+        long highWaterMark = personService.fetchApplicantChanges(null).getHighWaterMark();
+        ApplicantDTO unhandled = personService.fetchApplicantPage(ApplicantSortOrder.ID, "unhandled", 1, null)
+                .getApplicants().get(0);
+        personService.changeApplicantStatus(new ChangeApplicationStatusRequestDTO(unhandled.getId(), "accepted",
+                null, null));
+        ApplicantChangesDTO changes = personService.fetchApplicantChanges(highWaterMark);
+        assertEquals(1, changes.getApplicants().size(), "Changes contained applicants that were not changed");
+        assertEquals(unhandled.getId(), changes.getApplicants().get(0).getId(), "Changes contained the wrong applicant");
+        assertEquals("accepted", changes.getApplicants().get(0).getStatus(), "Changes contained the old status");
+        assertTrue(changes.getHighWaterMark() > highWaterMark, "High-water mark did not move past the change");
+        assertTrue(personService.fetchApplicantChanges(changes.getHighWaterMark()).getApplicants().isEmpty(),
+                "Changes were returned again after the new high-water mark");
+    }
+
+    @Test
+    void testIfPagesAreFilteredByStatus() throws InvalidPageCursorException {
+        ApplicantPageDTO page = personService.fetchApplicantPage(ApplicantSortOrder.ID, "rejected", 10, null);
+        assertEquals(1, page.getApplicants().size(), "Filtered page contained the wrong number of applicants");
+        ApplicantDTO applicant = page.getApplicants().get(0);
+        assertEquals("applicant2", applicant.getFirstName(), "Filtered page contained the wrong applicant");
+        assertEquals("rejected", applicant.getStatus(), "Filtered page contained the wrong status");
+        assertNull(page.getNextCursor(), "A cursor was returned for the only page");
+    }
+}
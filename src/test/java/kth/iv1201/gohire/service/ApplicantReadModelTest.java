@@ -0,0 +1,111 @@
+package kth.iv1201.gohire.service;
+
+import kth.iv1201.gohire.DTO.ApplicantDTO;
+import kth.iv1201.gohire.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class ApplicantReadModelTest {
+    @Mock
+    PersonRepository personRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    ApplicantReadModel applicantReadModel;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.reset(personRepository);
+        when(personRepository.findApplicantSummaries(2)).thenReturn(List.of(applicant(3, "unhandled"),
+                applicant(1, "accepted")));
+        applicantReadModel = new ApplicantReadModel(personRepository, transactionManager);
+        applicantReadModel.load();
+    }
+
+    @Test
+    void testIfLoadedApplicantsAreOrderedById() {
+        List<ApplicantDTO> applicants = applicantReadModel.getApplicants();
+        assertEquals(1, applicants.get(0).getId(), "Loaded applicants were not ordered by id");
+        assertEquals(3, applicants.get(1).getId(), "Loaded applicants were not ordered by id");
+    }
+
+    @Test
+    void testIfChangedApplicantReplacesOldAndLeavesPreviousListUnchanged() {
+        List<ApplicantDTO> before = applicantReadModel.getApplicants();
+        long versionBefore = applicantReadModel.getVersion();
+        String versionTagBefore = applicantReadModel.getVersionTag();
+        applicantReadModel.onApplicantChanged(new ApplicantChangedEvent(applicant(3, "rejected")));
+        applicantReadModel.onApplicantChanged(new ApplicantChangedEvent(applicant(2, "unhandled")));
+        List<ApplicantDTO> after = applicantReadModel.getApplicants();
+        assertEquals(List.of(1, 2, 3), after.stream().map(ApplicantDTO::getId).toList(),
+                "Created applicant was not inserted in id order");
+        assertEquals("rejected", after.get(2).getStatus(), "Changed applicant was not replaced");
+        assertEquals("unhandled", before.get(1).getStatus(), "A previously returned list was changed");
+        assertEquals(versionBefore + 2, applicantReadModel.getVersion(), "Version was not increased by every change");
+        assertNotEquals(versionTagBefore, applicantReadModel.getVersionTag(), "Version tag did not change");
+    }
+
+    @Test
+    void testIfReconcileReplacesDriftedApplicantsOnly() {
+        assertFalse(applicantReadModel.reconcile(), "Applicants were replaced without drift");
+        assertEquals(0, applicantReadModel.getDriftCorrections(), "Drift was counted without drift");
+        when(personRepository.findApplicantSummaries(2)).thenReturn(List.of(applicant(1, "accepted")));
+        assertTrue(applicantReadModel.reconcile(), "Drifted applicants were not replaced");
+        assertEquals(1, applicantReadModel.getApplicants().size(), "Applicants were not reloaded from the database");
+        assertEquals(1, applicantReadModel.getDriftCorrections(), "Replaced drift was not counted");
+    }
+
+    @Test
+    void testIfListenersAreCalledInOrderWithoutHoldingBackWriters() throws InterruptedException {
+        List<Integer> notified = new CopyOnWriteArrayList<>();
+        CountDownLatch listenerEntered = new CountDownLatch(1);
+        CountDownLatch releaseListener = new CountDownLatch(1);
+        applicantReadModel.addApplicantListener(applicant -> {
+            if (applicant.getId() == 4) {
+                listenerEntered.countDown();
+                awaitQuietly(releaseListener);
+            }
+            notified.add(applicant.getId());
+        });
+        Thread slowWriter = new Thread(() ->
+                applicantReadModel.onApplicantChanged(new ApplicantChangedEvent(applicant(4, "unhandled"))));
+        slowWriter.start();
+        assertTrue(listenerEntered.await(5, TimeUnit.SECONDS), "Listener was not called");
+        Thread otherWriter = new Thread(() ->
+                applicantReadModel.onApplicantChanged(new ApplicantChangedEvent(applicant(5, "unhandled"))));
+        otherWriter.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (applicantReadModel.getApplicants().size() < 4 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(4, applicantReadModel.getApplicants().size(), "Writer was held back by a slow listener");
+        releaseListener.countDown();
+        slowWriter.join(5000);
+        otherWriter.join(5000);
+        assertEquals(List.of(4, 5), notified, "Listeners were not called in the order of the changes");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ApplicantDTO applicant(int id, String status) {
+        return new ApplicantDTO(id, "ApplicantFirstName", "ApplicantLastName", status);
+    }
+}
@@ -0,0 +1,76 @@
+package kth.iv1201.gohire.service;
+
+import kth.iv1201.gohire.DTO.ApplicantDTO;
+import kth.iv1201.gohire.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class ApplicantSearchIndexTest {
+    @Mock
+    PersonRepository personRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    ApplicantReadModel applicantReadModel;
+    ApplicantSearchIndex applicantSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.reset(personRepository);
+        when(personRepository.findApplicantSummaries(2)).thenReturn(List.of(
+                new ApplicantDTO(1, "Anna", "Ångström", "unhandled"),
+                new ApplicantDTO(2, "Johan", "Andersson", "accepted"),
+                new ApplicantDTO(3, "Zoë", "Nilsson-Berg", "rejected")));
+        applicantReadModel = new ApplicantReadModel(personRepository, transactionManager);
+        applicantReadModel.load();
+        applicantSearchIndex = new ApplicantSearchIndex(applicantReadModel);
+    }
+
+    @Test
+    void testIfSearchIgnoresCaseAndDiacritics() {
+        assertEquals(List.of(1), ids(applicantSearchIndex.search("ANGSTRÖM", 10)), "Folded name was not found");
+        assertEquals(List.of(3), ids(applicantSearchIndex.search("zoe", 10)), "Name with diaeresis was not found");
+    }
+
+    @Test
+    void testIfLongWordsMatchInsideNamesAndShortWordsOnlyAtWordStart() {
+        assertEquals(List.of(2, 3), ids(applicantSearchIndex.search("sson", 10)), "Substring was not found in names");
+        assertEquals(List.of(1, 2), ids(applicantSearchIndex.search("an", 10)), "Short word did not match word starts");
+        assertEquals(List.of(3), ids(applicantSearchIndex.search("be", 10)), "Word after hyphen was not matched");
+    }
+
+    @Test
+    void testIfEveryQueryWordMustMatch() {
+        assertEquals(List.of(2), ids(applicantSearchIndex.search("jo anders", 10)), "Words were not all required");
+        assertTrue(applicantSearchIndex.search("anna nilsson", 10).isEmpty(), "Applicant matching one word was found");
+    }
+
+    @Test
+    void testIfAddedApplicantIsFoundWithCurrentStatus() {
+        applicantSearchIndex.search("anna", 10);
+        applicantReadModel.onApplicantChanged(new ApplicantChangedEvent(new ApplicantDTO(4, "Åsa", "Öberg", "unhandled")));
+        applicantReadModel.onApplicantChanged(new ApplicantChangedEvent(new ApplicantDTO(1, "Anna", "Ångström", "accepted")));
+        assertEquals(List.of(4), ids(applicantSearchIndex.search("asa oberg", 10)), "Added applicant was not found");
+        assertEquals("accepted", applicantSearchIndex.search("anna", 10).get(0).getStatus(),
+                "Applicant was not returned with its current status");
+    }
+
+    @Test
+    void testIfSearchStopsAtLimit() {
+        assertEquals(1, applicantSearchIndex.search("a", 1).size(), "More applicants than the limit were returned");
+    }
+
+    private static List<Integer> ids(List<ApplicantDTO> applicants) {
+        return applicants.stream().map(ApplicantDTO::getId).toList();
+    }
+}
@@ -0,0 +1,32 @@
+package kth.iv1201.gohire.service;
+
+import kth.iv1201.gohire.DTO.LogEventDTO;
+import kth.iv1201.gohire.DTO.EventType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+public class AuditServiceTest {
+    @Autowired
+    AuditService auditService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testIfAllEventsAreInsertedAcrossStatements() {
+        List<LogEventDTO> events = new ArrayList<>();
+        for (int i = 0; i < 250; i++)
+            events.add(new LogEventDTO(EventType.APPLICATION_STATUS_CHANGED, "auditTestRecruiter", i, "accepted"));
+        auditService.saveAuditEvents(events);
+        Integer inserted = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_event WHERE actor = 'auditTestRecruiter'", Integer.class);
+        assertEquals(250, inserted, "Not every audit event was inserted");
+    }
+}
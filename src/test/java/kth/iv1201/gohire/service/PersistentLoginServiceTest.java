@@ -0,0 +1,64 @@
+package kth.iv1201.gohire.service;
+
+import kth.iv1201.gohire.DTO.PersistentLoginTokenDTO;
+import kth.iv1201.gohire.service.exception.InvalidPersistentLoginException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class PersistentLoginServiceTest {
+    @Autowired
+    PersistentLoginService persistentLoginService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testIfTokenIsReplacedOnUse() throws InvalidPersistentLoginException {
+        PersistentLoginTokenDTO created = persistentLoginService.createPersistentLogin("rememberedRecruiter");
+        PersistentLoginTokenDTO rotated = persistentLoginService.rotatePersistentLogin(created.getSeries(), created.getToken());
+        assertEquals("rememberedRecruiter", rotated.getUsername(), "Remembered login returned the wrong user");
+        assertEquals(created.getSeries(), rotated.getSeries(), "Series changed on use");
+        assertNotEquals(created.getToken(), rotated.getToken(), "Token was not replaced on use");
+        assertDoesNotThrow(() -> persistentLoginService.rotatePersistentLogin(rotated.getSeries(), rotated.getToken()),
+                "Replaced token was not accepted");
+    }
+
+    @Test
+    void testIfWrongTokenIsRejected() {
+        PersistentLoginTokenDTO created = persistentLoginService.createPersistentLogin("wrongTokenRecruiter");
+        assertThrowsExactly(InvalidPersistentLoginException.class,
+                () -> persistentLoginService.rotatePersistentLogin(created.getSeries(), "notTheToken"),
+                "Wrong token was accepted");
+    }
+
+    @Test
+    void testIfReusedTokenRemovesEveryLoginOfPerson() throws InvalidPersistentLoginException {
+        PersistentLoginTokenDTO stolen = persistentLoginService.createPersistentLogin("stolenRecruiter");
+        persistentLoginService.createPersistentLogin("stolenRecruiter");
+        persistentLoginService.rotatePersistentLogin(stolen.getSeries(), stolen.getToken());
+        persistentLoginService.rotatePersistentLogin(stolen.getSeries(), stolen.getToken());
+        PersistentLoginTokenDTO current = persistentLoginService.rotatePersistentLogin(stolen.getSeries(), stolen.getToken());
+        assertNull(current.getToken(), "Previous token within the grace period was replaced again");
+        jdbcTemplate.update("UPDATE persistent_login SET last_used = DATEADD('MINUTE', -1, last_used) " +
+                "WHERE username = 'stolenRecruiter'");
+        assertThrowsExactly(InvalidPersistentLoginException.class,
+                () -> persistentLoginService.rotatePersistentLogin(stolen.getSeries(), stolen.getToken()),
+                "Reused token was accepted after the grace period");
+        Integer remaining = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM persistent_login WHERE username = 'stolenRecruiter'", Integer.class);
+        assertEquals(0, remaining, "Remembered logins of the person were not removed after a token was reused");
+    }
+
+    @Test
+    void testIfRemovedLoginIsRejected() {
+        PersistentLoginTokenDTO created = persistentLoginService.createPersistentLogin("loggedOutRecruiter");
+        persistentLoginService.removePersistentLogin(created.getSeries());
+        assertThrowsExactly(InvalidPersistentLoginException.class,
+                () -> persistentLoginService.rotatePersistentLogin(created.getSeries(), created.getToken()),
+                "Removed login was accepted");
+    }
+}
@@ -0,0 +1,60 @@
+package kth.iv1201.gohire.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonAuthenticationTest {
+
+    @Test
+    void testIfBinaryFormatKeepsPerson() {
+        PersonAuthentication authentication = new PersonAuthentication(42, "compactRecruiter", "recruiter");
+        PersonAuthentication read = PersonAuthentication.fromBytes(authentication.toBytes());
+        assertEquals(authentication, read, "Authentication changed when written and read");
+        assertEquals(42, read.getPrincipal().getPersonId(), "Principal has the wrong person id");
+        assertEquals("ROLE_recruiter", read.getAuthorities().iterator().next().getAuthority(),
+                "Authentication has the wrong authority");
+    }
+
+    @Test
+    void testIfUnknownFormatVersionIsRejected() {
+        byte[] bytes = new PersonAuthentication(1, "versionedRecruiter", "recruiter").toBytes();
+        bytes[0] = 99;
+        assertThrowsExactly(IllegalArgumentException.class, () -> PersonAuthentication.fromBytes(bytes),
+                "Unknown format version was accepted");
+    }
+
+    @Test
+    void testIfSerializedSessionIsSmallerThanFullToken() throws IOException, ClassNotFoundException {
+        PersonUserDetails principal = new PersonUserDetails(42, "compactRecruiter", "", "recruiter");
+        UsernamePasswordAuthenticationToken token = UsernamePasswordAuthenticationToken.authenticated(principal, null,
+                principal.getAuthorities());
+        token.setDetails(new WebAuthenticationDetails("127.0.0.1", "sessionId"));
+        byte[] full = serialize(new SecurityContextImpl(token));
+        byte[] compact = serialize(new SecurityContextImpl(PersonAuthentication.of(token)));
+        assertTrue(compact.length < full.length / 2, "Compact session of " + compact.length +
+                " bytes is not much smaller than the full token of " + full.length + " bytes");
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(compact))) {
+            Authentication read = ((SecurityContextImpl) in.readObject()).getAuthentication();
+            assertEquals(PersonAuthentication.of(token), read, "Authentication changed when serialized in a session");
+        }
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+}
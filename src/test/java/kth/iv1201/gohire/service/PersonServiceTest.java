@@ -1,16 +1,22 @@
 package kth.iv1201.gohire.service;
 
+import kth.iv1201.gohire.DTO.ApplicantChangesDTO;
 import kth.iv1201.gohire.DTO.ApplicantDTO;
+import kth.iv1201.gohire.DTO.ApplicantPageDTO;
 import kth.iv1201.gohire.DTO.ChangeApplicationStatusRequestDTO;
 import kth.iv1201.gohire.DTO.CreateApplicantRequestDTO;
 import kth.iv1201.gohire.DTO.LoggedInPersonDTO;
+import kth.iv1201.gohire.controller.util.ApplicantSortOrder;
 import kth.iv1201.gohire.entity.ApplicationStatusEntity;
+import kth.iv1201.gohire.entity.ChangeSequenceEntity;
 import kth.iv1201.gohire.entity.PersonEntity;
 import kth.iv1201.gohire.entity.RoleEntity;
 import kth.iv1201.gohire.repository.ApplicationStatusRepository;
+import kth.iv1201.gohire.repository.ChangeSequenceRepository;
 import kth.iv1201.gohire.repository.PersonRepository;
 import kth.iv1201.gohire.repository.RoleRepository;
 import kth.iv1201.gohire.service.exception.ApplicationHandledException;
+import kth.iv1201.gohire.service.exception.InvalidPageCursorException;
 import kth.iv1201.gohire.service.exception.UserCreationFailedException;
 import kth.iv1201.gohire.service.exception.UserNotFoundException;
 import org.junit.jupiter.api.*;
@@ -21,8 +27,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -36,6 +45,14 @@ public class PersonServiceTest {
     ApplicationStatusRepository applicationStatusRepository;
     @Mock
     PasswordEncoder passwordEncoder;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    @Mock
+    ApplicantReadModel applicantReadModel;
+    @Mock
+    ChangeSequenceRepository changeSequenceRepository;
+    @Mock
+    ApplicantSearchIndex applicantSearchIndex;
 
     @InjectMocks
     PersonService personService;
@@ -56,7 +73,12 @@ public class PersonServiceTest {
         Mockito.reset(personRepository);
         Mockito.reset(roleRepository);
         Mockito.reset(applicationStatusRepository);
-        this.personService = new PersonService(personRepository, roleRepository, applicationStatusRepository,passwordEncoder);
+        Mockito.reset(changeSequenceRepository);
+        ChangeSequenceEntity personChangeSequence = new ChangeSequenceEntity();
+        personChangeSequence.setName("person");
+        when(changeSequenceRepository.findByName("person")).thenReturn(personChangeSequence);
+        this.personService = new PersonService(personRepository, roleRepository, applicationStatusRepository,passwordEncoder,
+                eventPublisher, applicantReadModel, changeSequenceRepository, applicantSearchIndex);
         this.fakeRecruiterEntity = new PersonEntity();
         fakeRecruiterEntity.setUsername("aValidUsername");
         fakeRecruiterEntity.setPassword("aValidPassword");
@@ -77,6 +99,7 @@ public class PersonServiceTest {
         this.fakeUnhandledApplicationStatus = new ApplicationStatusEntity();
         fakeUnhandledApplicationStatus.setStatus("unhandled");
         fakeUnhandledApplicationStatus.setId(3);
+        when(applicationStatusRepository.findById(3)).thenReturn(fakeUnhandledApplicationStatus);
 
         this.fakeHandledApplicantPerson = new PersonEntity();
         fakeHandledApplicantPerson.setName("ApplicantFirstName");
@@ -279,12 +302,89 @@ public class PersonServiceTest {
             fail("The change applicant status failed even though valid arguments were sent");
         }
     }
+    @Test
+    void testIfApplicantPageReturnsCursorOnlyWhenMoreApplicantsExist() throws InvalidPageCursorException {
+        when(personRepository.findApplicantPageOrderedById(eq(2), isNull(), eq(0), any(Pageable.class)))
+                .thenReturn(fakeApplicantPage(1, 3));
+        ApplicantPageDTO fullPage = personService.fetchApplicantPage(ApplicantSortOrder.ID, null, 2, null);
+        assertEquals(2, fullPage.getApplicants().size(), "Page contained more applicants than the page size");
+        assertNotNull(fullPage.getNextCursor(), "No cursor was returned although more applicants exist");
+        when(personRepository.findApplicantPageOrderedById(eq(2), isNull(), eq(2), any(Pageable.class)))
+                .thenReturn(fakeApplicantPage(3, 1));
+        ApplicantPageDTO lastPage = personService.fetchApplicantPage(ApplicantSortOrder.ID, null, 2,
+                fullPage.getNextCursor());
+        assertEquals(3, lastPage.getApplicants().get(0).getId(), "Cursor did not continue after the previous page");
+        assertNull(lastPage.getNextCursor(), "A cursor was returned for the last page");
+    }
+
+    @Test
+    void testIfCursorOfOtherSortOrderIsRejected() throws InvalidPageCursorException {
+        when(personRepository.findApplicantPageOrderedById(eq(2), isNull(), eq(0), any(Pageable.class)))
+                .thenReturn(fakeApplicantPage(1, 2));
+        String cursor = personService.fetchApplicantPage(ApplicantSortOrder.ID, null, 1, null).getNextCursor();
+        assertThrowsExactly(InvalidPageCursorException.class,
+                () -> personService.fetchApplicantPage(ApplicantSortOrder.NAME, null, 1, cursor),
+                "Cursor of another sort order was accepted");
+        assertThrowsExactly(InvalidPageCursorException.class,
+                () -> personService.fetchApplicantPage(ApplicantSortOrder.ID, null, 1, "not*a*cursor"),
+                "Malformed cursor was accepted");
+    }
+
+    @Test
+    void testIfChangedApplicantIsStampedWithNextChangeSequence() throws ApplicationHandledException {
+        ChangeSequenceEntity sequence = new ChangeSequenceEntity();
+        sequence.setName("person");
+        sequence.setValue(41);
+        when(changeSequenceRepository.findByName("person")).thenReturn(sequence);
+        when(personRepository.findPersonById(fakeUnhandledApplicantPerson.getId())).thenReturn(fakeUnhandledApplicantPerson);
+        when(personRepository.save(fakeUnhandledApplicantPerson)).thenReturn(fakeUnhandledApplicantPerson);
+        personService.changeApplicantStatus(new ChangeApplicationStatusRequestDTO(fakeUnhandledApplicantPerson.getId(),
+                "accepted", null, null));
+        assertEquals(42, fakeUnhandledApplicantPerson.getChangeSeq(), "Changed applicant was not stamped with the next value");
+        assertEquals(42, sequence.getValue(), "Change sequence was not increased");
+    }
+
+    @Test
+    void testIfMissingChangeSequenceIsNotCreated() {
+        when(changeSequenceRepository.findByName("person")).thenReturn(null);
+        when(personRepository.findPersonById(fakeUnhandledApplicantPerson.getId())).thenReturn(fakeUnhandledApplicantPerson);
+        assertThrows(IllegalStateException.class, () -> personService.changeApplicantStatus(
+                new ChangeApplicationStatusRequestDTO(fakeUnhandledApplicantPerson.getId(), "accepted", null, null)),
+                "Change was stamped without a change sequence");
+        verify(changeSequenceRepository, never()).save(any());
+    }
+
+    @Test
+    void testIfChangesWithoutSinceOnlyReturnHighWaterMark() {
+        when(changeSequenceRepository.findValueByName("person")).thenReturn(17L);
+        ApplicantChangesDTO changes = personService.fetchApplicantChanges(null);
+        assertTrue(changes.getApplicants().isEmpty(), "Changes were returned without a high-water mark to start from");
+        assertEquals(17, changes.getHighWaterMark(), "Wrong high-water mark was returned");
+        verify(personRepository, never()).findApplicantsChangedAfter(anyInt(), anyLong());
+    }
+
+    @Test
+    void testIfSearchLimitIsKeptWithinBounds() {
+        personService.searchApplicants("anna", 1000);
+        verify(applicantSearchIndex).search("anna", 100);
+        personService.searchApplicants("anna", 0);
+        verify(applicantSearchIndex).search("anna", 1);
+    }
+
+    private List<ApplicantDTO> fakeApplicantPage(int firstId, int numberOfApplicants) {
+        List<ApplicantDTO> applicants = new ArrayList<>();
+        for (int id = firstId; id < firstId + numberOfApplicants; id++)
+            applicants.add(new ApplicantDTO(id, "ApplicantFirstName", "ApplicantLastName", "unhandled"));
+        return applicants;
+    }
+
     private List<ApplicantDTO> mockRepositoryAndCallFetchApplicants(int numberOfPersons) {
-        List<PersonEntity> inputPersons = new LinkedList<>();
+        List<ApplicantDTO> inputApplicants = new LinkedList<>();
         for (int i = 0; i < numberOfPersons; i++) {
-            inputPersons.add(fakeUnhandledApplicantPerson);
+            inputApplicants.add(new ApplicantDTO(fakeUnhandledApplicantPerson.getId(), fakeUnhandledApplicantPerson.getName(),
+                    fakeUnhandledApplicantPerson.getSurname(), fakeUnhandledApplicantPerson.getApplicationStatus().getStatus()));
         }
-        when(personRepository.findPersonEntitiesByRoleIs(any())).thenReturn(inputPersons);
+        when(applicantReadModel.getApplicants()).thenReturn(inputApplicants);
         return personService.fetchApplicants();
     }
 
@@ -0,0 +1,42 @@
+import {test} from 'node:test'
+import assert from 'node:assert/strict'
+
+const storage = new Map()
+globalThis.localStorage = {
+    getItem: key => storage.has(key) ? storage.get(key) : null,
+    setItem: (key, value) => storage.set(key, String(value)),
+    removeItem: key => storage.delete(key),
+    clear: () => storage.clear()
+}
+const requests = []
+let respond = null
+globalThis.fetch = (url, options) => {
+    requests.push({url, options})
+    return new Promise(resolve => respond = body => resolve({
+        status: 200,
+        headers: new Headers({'ETag': '"applications"'}),
+        json: () => Promise.resolve(body)
+    }))
+}
+
+const {fetchListOfApplications, logout} = await import('../../main/js/presenter/api/apiCallHandler.js')
+
+test('logout forgets the auth token and cached applications before the request resolves', async () => {
+    localStorage.setItem('authToken', 'signed-token')
+    const fetched = fetchListOfApplications()
+    respond([{id: 1}])
+    await fetched
+
+    const loggedOut = logout()
+    assert.equal(localStorage.getItem('authToken'), null, 'Auth token was kept until the logout request resolved')
+    assert.equal(requests.at(-1).options.headers['Authorization'], 'Bearer signed-token',
+        'Logout request was not sent with the auth token')
+    respond({})
+    await loggedOut
+
+    fetchListOfApplications()
+    assert.equal(requests.at(-1).options.headers['If-None-Match'], undefined,
+        'Cached applications were reused after logout')
+    assert.equal(requests.at(-1).options.headers['Authorization'], undefined,
+        'Auth token was sent after logout')
+})
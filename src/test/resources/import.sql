@@ -0,0 +1,2 @@
+-- Rows created with the schema, run by Hibernate after it has created the tables
+INSERT INTO change_sequence (name, last_value) VALUES ('person', 0);